@@ -0,0 +1,427 @@
+package uk.co.epsilontechnologies.primer;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpUpgradeHandler;
+import javax.servlet.http.Part;
+import java.io.BufferedReader;
+import java.security.Principal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable HTTP servlet request for the benchmarks, standing in for the request of the container without the cost
+ * (or allocation) of a mock, so that what is measured is the work of the Primer. Its body is handed to the Primer as
+ * already read, as it is by the server, so it has no input stream.
+ *
+ * @author Shane Gibson
+ */
+class BenchmarkHttpServletRequest implements HttpServletRequest {
+
+    private final String method;
+
+    private final String requestURI;
+
+    private final String contentType;
+
+    private final long contentLength;
+
+    private final Map<String,List<String>> headers;
+
+    private final Map<String,String[]> parameters;
+
+    private final Cookie[] cookies;
+
+    /**
+     * Constructs the request
+     * @param method the HTTP method of the request
+     * @param requestURI the URI of the request, including the context path
+     * @param contentType the content type of the body, or null if there is no body
+     * @param contentLength the length of the body, or -1 if there is no body
+     * @param headers the values of each header of the request
+     * @param parameters the values of each parameter of the request
+     * @param cookies the cookies of the request
+     */
+    BenchmarkHttpServletRequest(
+            final String method,
+            final String requestURI,
+            final String contentType,
+            final long contentLength,
+            final Map<String,List<String>> headers,
+            final Map<String,String[]> parameters,
+            final Cookie... cookies) {
+        this.method = method;
+        this.requestURI = requestURI;
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+        this.headers = new LinkedHashMap<>(headers);
+        this.parameters = new LinkedHashMap<>(parameters);
+        this.cookies = cookies;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public int getContentLength() {
+        return (int) contentLength;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return contentLength;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return null;
+    }
+
+    @Override
+    public String getHeader(final String name) {
+        final List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(final String name) {
+        final List<String> values = headers.get(name);
+        return Collections.enumeration(values == null ? Collections.<String>emptyList() : values);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public long getDateHeader(final String name) {
+        return -1;
+    }
+
+    @Override
+    public int getIntHeader(final String name) {
+        final String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public String getParameter(final String name) {
+        final String[] values = parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(final String name) {
+        return parameters.get(name);
+    }
+
+    @Override
+    public Map<String,String[]> getParameterMap() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        return cookies.length == 0 ? null : cookies;
+    }
+
+    @Override
+    public String getContextPath() {
+        return "";
+    }
+
+    @Override
+    public String getServletPath() {
+        return "";
+    }
+
+    @Override
+    public String getPathInfo() {
+        return requestURI;
+    }
+
+    @Override
+    public String getQueryString() {
+        return null;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        return new StringBuffer("http://localhost").append(requestURI);
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public String getScheme() {
+        return "http";
+    }
+
+    @Override
+    public String getServerName() {
+        return "localhost";
+    }
+
+    @Override
+    public int getServerPort() {
+        return 80;
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public String getRemoteHost() {
+        return "localhost";
+    }
+
+    @Override
+    public int getRemotePort() {
+        return 0;
+    }
+
+    @Override
+    public String getLocalName() {
+        return "localhost";
+    }
+
+    @Override
+    public String getLocalAddr() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public int getLocalPort() {
+        return 80;
+    }
+
+    @Override
+    public boolean isSecure() {
+        return false;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return Locale.ENGLISH;
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+        return Collections.enumeration(Collections.singletonList(Locale.ENGLISH));
+    }
+
+    @Override
+    public Object getAttribute(final String name) {
+        return null;
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.emptyEnumeration();
+    }
+
+    @Override
+    public void setAttribute(final String name, final Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeAttribute(final String name) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setCharacterEncoding(final String encoding) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        throw new UnsupportedOperationException("The body is handed to the Primer as already read");
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        throw new UnsupportedOperationException("The body is handed to the Primer as already read");
+    }
+
+    @Override
+    public RequestDispatcher getRequestDispatcher(final String path) {
+        return null;
+    }
+
+    @Override
+    @Deprecated
+    public String getRealPath(final String path) {
+        return null;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return null;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        throw new IllegalStateException("Asynchronous responses are not benchmarked");
+    }
+
+    @Override
+    public AsyncContext startAsync(final ServletRequest servletRequest, final ServletResponse servletResponse) {
+        throw new IllegalStateException("Asynchronous responses are not benchmarked");
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+        throw new IllegalStateException("Asynchronous responses are not benchmarked");
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return DispatcherType.REQUEST;
+    }
+
+    @Override
+    public String getAuthType() {
+        return null;
+    }
+
+    @Override
+    public String getPathTranslated() {
+        return null;
+    }
+
+    @Override
+    public String getRemoteUser() {
+        return null;
+    }
+
+    @Override
+    public boolean isUserInRole(final String role) {
+        return false;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return null;
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return null;
+    }
+
+    @Override
+    public HttpSession getSession(final boolean create) {
+        return null;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return null;
+    }
+
+    @Override
+    public String changeSessionId() {
+        throw new IllegalStateException("There is no session");
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromCookie() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromURL() {
+        return false;
+    }
+
+    @Override
+    @Deprecated
+    public boolean isRequestedSessionIdFromUrl() {
+        return false;
+    }
+
+    @Override
+    public boolean authenticate(final HttpServletResponse response) {
+        return false;
+    }
+
+    @Override
+    public void login(final String username, final String password) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void logout() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<Part> getParts() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Part getPart(final String name) {
+        return null;
+    }
+
+    @Override
+    public <T extends HttpUpgradeHandler> T upgrade(final Class<T> handlerClass) {
+        throw new UnsupportedOperationException();
+    }
+
+}
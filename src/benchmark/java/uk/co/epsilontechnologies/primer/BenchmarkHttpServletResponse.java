@@ -0,0 +1,263 @@
+package uk.co.epsilontechnologies.primer;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * An HTTP servlet response for the benchmarks, which records the status and counts the bytes of content written, but
+ * otherwise discards what it is given - so that what is measured is the work of the Primer rather than of the
+ * response. It is reset before each use.
+ *
+ * @author Shane Gibson
+ */
+class BenchmarkHttpServletResponse implements HttpServletResponse {
+
+    private final CountingOutputStream outputStream = new CountingOutputStream();
+
+    private final PrintWriter writer = new PrintWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+    private int status;
+
+    private String contentType;
+
+    private boolean committed;
+
+    /**
+     * Getter for the number of bytes of content written since the response was reset
+     * @return the number of bytes of content written
+     */
+    long getBytesWritten() {
+        return outputStream.count;
+    }
+
+    @Override
+    public void reset() {
+        status = SC_OK;
+        contentType = null;
+        committed = false;
+        outputStream.count = 0;
+    }
+
+    @Override
+    public void setStatus(final int status) {
+        this.status = status;
+    }
+
+    @Override
+    @Deprecated
+    public void setStatus(final int status, final String message) {
+        this.status = status;
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void setContentType(final String contentType) {
+        this.contentType = contentType;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() {
+        writer.flush();
+        committed = true;
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void resetBuffer() {
+        outputStream.count = 0;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return StandardCharsets.UTF_8.name();
+    }
+
+    @Override
+    public void setCharacterEncoding(final String characterEncoding) {
+        // the content is discarded, so its encoding is immaterial
+    }
+
+    @Override
+    public void setContentLength(final int contentLength) {
+        // the content is discarded, so its length is immaterial
+    }
+
+    @Override
+    public void setContentLengthLong(final long contentLength) {
+        // the content is discarded, so its length is immaterial
+    }
+
+    @Override
+    public void setBufferSize(final int bufferSize) {
+        // the content is discarded, so it is never buffered
+    }
+
+    @Override
+    public int getBufferSize() {
+        return 0;
+    }
+
+    @Override
+    public void setLocale(final Locale locale) {
+        // the content is discarded, so its locale is immaterial
+    }
+
+    @Override
+    public Locale getLocale() {
+        return Locale.ENGLISH;
+    }
+
+    @Override
+    public void addCookie(final Cookie cookie) {
+        // discarded
+    }
+
+    @Override
+    public boolean containsHeader(final String name) {
+        return false;
+    }
+
+    @Override
+    public String encodeURL(final String url) {
+        return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(final String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeUrl(final String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeRedirectUrl(final String url) {
+        return url;
+    }
+
+    @Override
+    public void sendError(final int status, final String message) {
+        this.status = status;
+        this.committed = true;
+    }
+
+    @Override
+    public void sendError(final int status) {
+        sendError(status, null);
+    }
+
+    @Override
+    public void sendRedirect(final String location) {
+        sendError(SC_FOUND, null);
+    }
+
+    @Override
+    public void setDateHeader(final String name, final long date) {
+        // discarded
+    }
+
+    @Override
+    public void addDateHeader(final String name, final long date) {
+        // discarded
+    }
+
+    @Override
+    public void setHeader(final String name, final String value) {
+        // discarded
+    }
+
+    @Override
+    public void addHeader(final String name, final String value) {
+        // discarded
+    }
+
+    @Override
+    public void setIntHeader(final String name, final int value) {
+        // discarded
+    }
+
+    @Override
+    public void addIntHeader(final String name, final int value) {
+        // discarded
+    }
+
+    @Override
+    public String getHeader(final String name) {
+        return null;
+    }
+
+    @Override
+    public Collection<String> getHeaders(final String name) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * An output stream that counts the bytes written to it, then discards them
+     */
+    private static class CountingOutputStream extends ServletOutputStream {
+
+        private long count;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            throw new IllegalStateException("Asynchronous responses are not benchmarked");
+        }
+
+    }
+
+}
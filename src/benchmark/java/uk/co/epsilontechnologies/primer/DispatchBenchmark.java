@@ -0,0 +1,222 @@
+package uk.co.epsilontechnologies.primer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.epsilontechnologies.primer.domain.PrimedInvocation;
+import uk.co.epsilontechnologies.primer.domain.Request;
+import uk.co.epsilontechnologies.primer.domain.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static uk.co.epsilontechnologies.primer.domain.JsonMatchable.json;
+import static uk.co.epsilontechnologies.primer.domain.PathTemplateMatchable.path;
+import static uk.co.epsilontechnologies.primer.domain.RegExMatchable.regex;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.get;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.post;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.put;
+import static uk.co.epsilontechnologies.primer.domain.SimpleResponseBuilder.response;
+import static uk.co.epsilontechnologies.primer.domain.XmlMatchable.xml;
+
+/**
+ * Benchmarks the latency of dispatching a request through the Primer request handler - from the wrapping of the
+ * request, through the lookup and matching of its candidates, to the writing of the response - as the number of
+ * primed invocations grows from 10 to 100,000. The primed invocations are a mix of exact URIs matched on a header,
+ * path templates, and JSON and XML bodies, and the invocation dispatched to is primed half way through them.
+ *
+ * Responses are consumed as they are issued, so the invocation dispatched to is topped up with a response after each
+ * dispatch, keeping it from being exhausted.
+ *
+ * Run with: mvn -P benchmark test-compile exec:exec -Dbenchmark=DispatchBenchmark
+ * Add the allocation per request with: -Dbenchmark="DispatchBenchmark -prof gc"
+ *
+ * @author Shane Gibson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+public class DispatchBenchmark {
+
+    /**
+     * The number of distinct requests that are cycled through - more than the match decision cache holds, so that
+     * none of them is ever dispatched from a cached decision
+     */
+    private static final int DISTINCT_REQUESTS = 16384;
+
+    /**
+     * The size of the JSON body of the request dispatched to - larger than a body that is fingerprinted, so it is
+     * always matched in full
+     */
+    private static final int JSON_BODY_SIZE = 8192;
+
+    private static final String CORRELATION_ID = "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}";
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int stubs;
+
+    private PrimerRequestHandler requestHandler;
+
+    private final BenchmarkHttpServletResponse response = new BenchmarkHttpServletResponse();
+
+    private final byte[] noBody = new byte[0];
+
+    private Response primedResponse;
+
+    private Target getTarget;
+
+    private Target pathTemplateTarget;
+
+    private Target jsonTarget;
+
+    private BenchmarkHttpServletRequest repeatedGetRequest;
+
+    private BenchmarkHttpServletRequest[] distinctGetRequests;
+
+    private BenchmarkHttpServletRequest[] distinctPathTemplateRequests;
+
+    private BenchmarkHttpServletRequest jsonRequest;
+
+    private byte[] jsonBody;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final PrimedInvocationIndex primedInvocations = new PrimedInvocationIndex();
+        requestHandler = new PrimerRequestHandler("/benchmark", primedInvocations);
+        primedResponse = response(200, "application/json", "{\"status\":\"ACCEPTED\",\"reference\":\"REF-0000001\"}").build();
+
+        final int target = stubs / 2 / 4 * 4;
+        for (int i = 0; i < stubs; i++) {
+            final Request request;
+            switch (i % 4) {
+                case 0:
+                    request = get().withUri("/accounts/" + i).withHeader("x-correlation-id", regex(CORRELATION_ID)).build();
+                    break;
+                case 1:
+                    request = post().withUri("/orders/" + i).withBody(i == target + 1 ? json(Payloads.primedJson(JSON_BODY_SIZE)) : json("{\"orderId\":" + i + "}")).build();
+                    break;
+                case 2:
+                    request = get().withUri(path("/customers/{customerId}/statements/" + i)).build();
+                    break;
+                default:
+                    request = put().withUri("/payments/" + i).withBody(xml("<payment id=\"" + i + "\"/>")).build();
+                    break;
+            }
+            // the invocations dispatched to are primed with a spare response, which each dispatch replaces
+            if (i >= target && i < target + 3) {
+                primedInvocations.prime(request, primedResponse, primedResponse);
+            } else {
+                primedInvocations.prime(request, primedResponse);
+            }
+        }
+        getTarget = new Target(primedInvocations, "GET", "/accounts/" + target);
+        jsonTarget = new Target(primedInvocations, "POST", "/orders/" + (target + 1));
+        pathTemplateTarget = new Target(primedInvocations, "GET", "/customers/C-1001/statements/" + (target + 2));
+
+        final Random random = new Random(42);
+        repeatedGetRequest = newRequest("GET", "/benchmark/accounts/" + target, new UUID(random.nextLong(), random.nextLong()).toString(), null, -1);
+        distinctGetRequests = new BenchmarkHttpServletRequest[DISTINCT_REQUESTS];
+        distinctPathTemplateRequests = new BenchmarkHttpServletRequest[DISTINCT_REQUESTS];
+        for (int i = 0; i < DISTINCT_REQUESTS; i++) {
+            final String correlationId = new UUID(random.nextLong(), random.nextLong()).toString();
+            distinctGetRequests[i] = newRequest("GET", "/benchmark/accounts/" + target, correlationId, null, -1);
+            distinctPathTemplateRequests[i] = newRequest("GET", "/benchmark/customers/C-" + i + "/statements/" + (target + 2), correlationId, null, -1);
+        }
+        jsonBody = Payloads.requestJson(JSON_BODY_SIZE).getBytes(StandardCharsets.UTF_8);
+        jsonRequest = newRequest("POST", "/benchmark/orders/" + (target + 1), new UUID(random.nextLong(), random.nextLong()).toString(), "application/json", jsonBody.length);
+
+        // each request must be dispatched to its target, or what is measured is the cost of failing to match it
+        if (getRepeated() != 200 || getDistinct() != 200 || pathTemplateDistinct() != 200 || postJson() != 200) {
+            throw new IllegalStateException("Each request must be dispatched to the invocation primed for it");
+        }
+    }
+
+    /**
+     * Dispatches the same request repeatedly, so that it is dispatched from the cached match decision
+     */
+    @Benchmark
+    public int getRepeated() {
+        return dispatch(repeatedGetRequest, noBody, getTarget);
+    }
+
+    /**
+     * Dispatches requests that differ by a header that is matched, so that each is matched against its candidates
+     */
+    @Benchmark
+    public int getDistinct() {
+        return dispatch(distinctGetRequests[next++ & (DISTINCT_REQUESTS - 1)], noBody, getTarget);
+    }
+
+    /**
+     * Dispatches requests that differ by a path variable, so that each is looked up and matched by its path template
+     */
+    @Benchmark
+    public int pathTemplateDistinct() {
+        return dispatch(distinctPathTemplateRequests[next++ & (DISTINCT_REQUESTS - 1)], noBody, pathTemplateTarget);
+    }
+
+    /**
+     * Dispatches a request with a realistic JSON body, too large to be fingerprinted, so that its body is matched
+     */
+    @Benchmark
+    public int postJson() {
+        return dispatch(jsonRequest, jsonBody, jsonTarget);
+    }
+
+    private int dispatch(final BenchmarkHttpServletRequest request, final byte[] body, final Target target) {
+        response.reset();
+        requestHandler.handle(request, response, null, body);
+        target.invocation.addResponses(primedResponse);
+        return response.getStatus();
+    }
+
+    private static BenchmarkHttpServletRequest newRequest(final String method, final String uri, final String correlationId, final String contentType, final long contentLength) {
+        final Map<String,List<String>> headers = new LinkedHashMap<>();
+        for (final String[] header : MatchableBenchmark.API_HEADERS) {
+            headers.put(header[0], Arrays.asList(header[1]));
+        }
+        headers.put("x-correlation-id", Arrays.asList(correlationId));
+        if (contentType != null) {
+            headers.put("content-type", Arrays.asList(contentType));
+        }
+        return new BenchmarkHttpServletRequest(method, uri, contentType, contentLength, headers, new HashMap<String,String[]>());
+    }
+
+    /**
+     * A primed invocation that requests are dispatched to
+     */
+    private static class Target {
+
+        private final PrimedInvocation invocation;
+
+        private Target(final PrimedInvocationIndex primedInvocations, final String method, final String uri) {
+            final List<PrimedInvocation> candidates = primedInvocations.candidates(method, uri);
+            if (candidates.size() != 1) {
+                throw new IllegalStateException("Expected a single candidate for " + method + " " + uri + " but found " + candidates.size());
+            }
+            this.invocation = candidates.get(0);
+        }
+
+    }
+
+}
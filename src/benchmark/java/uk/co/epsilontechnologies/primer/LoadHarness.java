@@ -0,0 +1,328 @@
+package uk.co.epsilontechnologies.primer;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BytesContentProvider;
+import org.eclipse.jetty.client.api.Response;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An end-to-end load harness, which starts a Primer, primes it with a realistic stub catalogue, and drives it over
+ * HTTP from a load generator in the same JVM - to measure the ceiling of the stub server before it is put in front of
+ * the services under test. Load is driven in one of two modes:
+ *
+ * closed - each connection issues its next request as soon as the last is answered. This finds the maximum
+ * throughput, but as a slow response delays the requests that would have followed it, the latency it reports omits
+ * the time those requests would have waited (coordinated omission).
+ *
+ * constant - requests are issued at a constant rate, whether or not earlier requests have been answered, and the
+ * latency of each is measured from when it should have been sent. This corrects for coordinated omission, so the
+ * latency reported is what a client sending at that rate would see. The latency from when each request was actually
+ * sent is reported alongside it.
+ *
+ * Throughput and the p50, p99, p99.9 and max latency are reported, followed by the full HdrHistogram percentile
+ * distribution, which may also be written to a file for plotting.
+ *
+ * Run with: mvn -P benchmark test-compile exec:exec@load -Dload="--mode=constant --rate=5000 --duration=30"
+ *
+ * @author Shane Gibson
+ */
+public final class LoadHarness {
+
+    /**
+     * The context path of the Primer under load
+     */
+    private static final String CONTEXT_PATH = "/load";
+
+    /**
+     * The prefix of each line of the report
+     */
+    private static final String PREFIX = "PRIMER LOAD :-- ";
+
+    /**
+     * The most requests that may be queued for a connection - beyond which, at a constant rate that the server cannot
+     * sustain, requests are rejected and counted as errors
+     */
+    private static final int MAX_QUEUED_REQUESTS = 65536;
+
+    /**
+     * The longest time in seconds for which requests still in flight are awaited once the load has been driven
+     */
+    private static final int DRAIN_SECONDS = 30;
+
+    public static void main(final String[] args) throws Exception {
+        new LoadHarness(Options.parse(args)).run();
+    }
+
+    private final Options options;
+
+    private final Recorder correctedLatency = new Recorder(3);
+
+    private final Recorder uncorrectedLatency = new Recorder(3);
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private final AtomicLong inFlight = new AtomicLong();
+
+    private LoadHarness(final Options options) {
+        this.options = options;
+    }
+
+    private void run() throws Exception {
+        final Primer primer = new Primer(CONTEXT_PATH, 0);
+        primer.start();
+        final HttpClient client = new HttpClient();
+        client.setMaxConnectionsPerDestination(options.connections);
+        client.setMaxRequestsQueuedPerDestination(MAX_QUEUED_REQUESTS);
+        client.setFollowRedirects(false);
+        client.start();
+        try {
+            final StubCatalogue catalogue = new StubCatalogue(primer, CONTEXT_PATH, options.stubs, options.targets, options.payloadSize);
+            final String baseUri = "http://localhost:" + primer.getPort();
+            System.out.println(PREFIX + describe(catalogue));
+
+            drive(client, baseUri, catalogue, options.warmUpSeconds);
+            correctedLatency.getIntervalHistogram();
+            uncorrectedLatency.getIntervalHistogram();
+            errors.set(0);
+
+            final long start = System.nanoTime();
+            drive(client, baseUri, catalogue, options.durationSeconds);
+            final double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            report(correctedLatency.getIntervalHistogram(), uncorrectedLatency.getIntervalHistogram(), elapsedSeconds);
+        } finally {
+            client.stop();
+            primer.stop();
+        }
+    }
+
+    /**
+     * Drives load at the catalogue for the given time, in the configured mode, then awaits the requests in flight
+     */
+    private void drive(final HttpClient client, final String baseUri, final StubCatalogue catalogue, final int seconds) throws InterruptedException {
+        if (seconds <= 0) {
+            return;
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        if (options.constantRate) {
+            driveConstantRate(client, baseUri, catalogue, deadline);
+        } else {
+            driveClosedLoop(client, baseUri, catalogue, deadline);
+        }
+        final long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_SECONDS);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Issues requests from each connection as soon as the last is answered
+     */
+    private void driveClosedLoop(final HttpClient client, final String baseUri, final StubCatalogue catalogue, final long deadline) throws InterruptedException {
+        final List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < options.connections; i++) {
+            final Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (System.nanoTime() < deadline) {
+                        final Request request = newRequest(client, baseUri, catalogue.next());
+                        final long sent = System.nanoTime();
+                        try {
+                            final ContentResponse response = request.send();
+                            record(sent, sent, response.getStatus() >= 400);
+                        } catch (final Exception e) {
+                            record(sent, sent, true);
+                        }
+                    }
+                }
+            }, "primer-load-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (final Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Issues requests at the configured rate, each timed from when it should have been sent
+     */
+    private void driveConstantRate(final HttpClient client, final String baseUri, final StubCatalogue catalogue, final long deadline) {
+        final double intervalNanos = 1e9 / options.rate;
+        final long start = System.nanoTime();
+        for (long i = 0; ; i++) {
+            final long intended = start + (long) (i * intervalNanos);
+            if (intended >= deadline) {
+                return;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            final Request request = newRequest(client, baseUri, catalogue.next());
+            inFlight.incrementAndGet();
+            final long sent = System.nanoTime();
+            request.send(new Response.CompleteListener() {
+                @Override
+                public void onComplete(final Result result) {
+                    record(intended, sent, result.isFailed() || result.getResponse().getStatus() >= 400);
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static Request newRequest(final HttpClient client, final String baseUri, final StubCatalogue.Variant variant) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Request request = client.newRequest(baseUri + variant.uri)
+                .method(variant.method)
+                .header("x-correlation-id", new UUID(random.nextLong(), random.nextLong()).toString());
+        if (variant.body != null) {
+            request.content(new BytesContentProvider(variant.contentType, variant.body));
+        }
+        return request;
+    }
+
+    /**
+     * Records the latency of a request that has been answered, or has failed
+     * @param intended the time at which the request should have been sent
+     * @param sent the time at which the request was sent
+     * @param error whether the request failed, or was answered with an error
+     */
+    private void record(final long intended, final long sent, final boolean error) {
+        final long now = System.nanoTime();
+        correctedLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(now - intended));
+        uncorrectedLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(now - sent));
+        if (error) {
+            errors.incrementAndGet();
+        }
+    }
+
+    private String describe(final StubCatalogue catalogue) {
+        return String.format(Locale.ENGLISH, "%s, %d connections, %d stubs (%d targets), %d byte payloads, %ds after %ds warm-up",
+                options.constantRate ? "constant rate of " + options.rate + " req/s" : "closed loop",
+                options.connections, options.stubs, catalogue.getTargetCount(), options.payloadSize, options.durationSeconds, options.warmUpSeconds);
+    }
+
+    private void report(final Histogram corrected, final Histogram uncorrected, final double elapsedSeconds) throws IOException {
+        System.out.println(String.format(Locale.ENGLISH, "%s%d requests, %d errors, %.1f req/s",
+                PREFIX, corrected.getTotalCount(), errors.get(), corrected.getTotalCount() / elapsedSeconds));
+        System.out.println(String.format(Locale.ENGLISH, "%s%-24s%10s%10s%10s%10s", PREFIX, "latency (ms)", "p50", "p99", "p99.9", "max"));
+        if (options.constantRate) {
+            System.out.println(summarize("corrected", corrected));
+            System.out.println(summarize("uncorrected", uncorrected));
+        } else {
+            System.out.println(summarize("uncorrected", uncorrected));
+        }
+        final Histogram distribution = options.constantRate ? corrected : uncorrected;
+        System.out.println(PREFIX + (options.constantRate ? "corrected" : "uncorrected") + " latency distribution (ms):");
+        distribution.outputPercentileDistribution(System.out, 1000.0);
+        if (options.histogramFile != null) {
+            try (PrintStream out = new PrintStream(new FileOutputStream(options.histogramFile), false, "UTF-8")) {
+                distribution.outputPercentileDistribution(out, 1000.0);
+            }
+            System.out.println(PREFIX + "histogram written to " + options.histogramFile);
+        }
+    }
+
+    private static String summarize(final String name, final Histogram histogram) {
+        return String.format(Locale.ENGLISH, "%s%-24s%10.3f%10.3f%10.3f%10.3f", PREFIX, name,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * The options of the load harness, each given as --name=value
+     */
+    private static class Options {
+
+        private boolean constantRate = false;
+
+        private int rate = 1000;
+
+        private int connections = 64;
+
+        private int durationSeconds = 30;
+
+        private int warmUpSeconds = 10;
+
+        private int stubs = 1000;
+
+        private int targets = 64;
+
+        private int payloadSize = 1024;
+
+        private String histogramFile;
+
+        private static Options parse(final String[] args) {
+            final Options options = new Options();
+            for (final String arg : args) {
+                final int separator = arg.indexOf('=');
+                if (!arg.startsWith("--") || separator < 0) {
+                    throw new IllegalArgumentException("Expected --name=value but was '" + arg + "'. " + usage());
+                }
+                final String name = arg.substring(2, separator);
+                final String value = arg.substring(separator + 1);
+                switch (name) {
+                    case "mode":
+                        if (!"closed".equals(value) && !"constant".equals(value)) {
+                            throw new IllegalArgumentException("Unknown mode '" + value + "'. " + usage());
+                        }
+                        options.constantRate = "constant".equals(value);
+                        break;
+                    case "rate":
+                        options.rate = Integer.parseInt(value);
+                        break;
+                    case "connections":
+                        options.connections = Integer.parseInt(value);
+                        break;
+                    case "duration":
+                        options.durationSeconds = Integer.parseInt(value);
+                        break;
+                    case "warmup":
+                        options.warmUpSeconds = Integer.parseInt(value);
+                        break;
+                    case "stubs":
+                        options.stubs = Integer.parseInt(value);
+                        break;
+                    case "targets":
+                        options.targets = Integer.parseInt(value);
+                        break;
+                    case "payload":
+                        options.payloadSize = Integer.parseInt(value);
+                        break;
+                    case "histogram":
+                        options.histogramFile = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option '" + name + "'. " + usage());
+                }
+            }
+            return options;
+        }
+
+        private static String usage() {
+            return "Options: --mode=closed|constant --rate=<req/s> --connections=<n> --duration=<s> --warmup=<s> "
+                    + "--stubs=<n> --targets=<n> --payload=<bytes> --histogram=<file>";
+        }
+
+    }
+
+}
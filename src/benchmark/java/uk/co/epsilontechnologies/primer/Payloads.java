@@ -0,0 +1,120 @@
+package uk.co.epsilontechnologies.primer;
+
+import java.util.Locale;
+
+/**
+ * Generates realistic JSON and XML payloads of a given size for the benchmarks - orders of a customer, each with as
+ * many order lines as are needed to reach the size. Each payload comes as the primed document and as an equivalent
+ * request document, whose object fields, attributes and sibling elements are ordered differently and which is
+ * indented, so that matching it exercises the comparison in full rather than a byte-for-byte fast path.
+ *
+ * @author Shane Gibson
+ */
+final class Payloads {
+
+    private Payloads() {
+        super();
+    }
+
+    /**
+     * Generates the primed JSON order of at least the given size
+     * @param size the minimum size of the order in characters
+     * @return the compact primed JSON order
+     */
+    static String primedJson(final int size) {
+        final StringBuilder json = new StringBuilder(size + 256);
+        json.append("{\"orderId\":\"ORD-0000001\",\"currency\":\"GBP\",\"customer\":{\"id\":\"C-1001\",\"name\":\"Ada Lovelace\",\"email\":\"ada@example.com\"},\"lines\":[");
+        for (int line = 0; json.length() < size; line++) {
+            json.append(line > 0 ? "," : "")
+                    .append("{\"sku\":\"").append(sku(line))
+                    .append("\",\"description\":\"").append(description(line))
+                    .append("\",\"quantity\":").append(quantity(line))
+                    .append(",\"unitPrice\":").append(unitPrice(line))
+                    .append(",\"giftWrapped\":").append(line % 5 == 0)
+                    .append("}");
+        }
+        return json.append("],\"notes\":null}").toString();
+    }
+
+    /**
+     * Generates the request JSON equivalent to the primed JSON order of the given size
+     * @param size the minimum size of the order in characters
+     * @return the indented request JSON order, with the fields of each object in reverse order
+     */
+    static String requestJson(final int size) {
+        final int lines = countLines(primedJson(size));
+        final StringBuilder json = new StringBuilder(size * 2);
+        json.append("{\n  \"notes\" : null,\n  \"lines\" : [");
+        for (int line = 0; line < lines; line++) {
+            json.append(line > 0 ? ", " : "")
+                    .append("{\n    \"giftWrapped\" : ").append(line % 5 == 0)
+                    .append(",\n    \"unitPrice\" : ").append(unitPrice(line))
+                    .append(",\n    \"quantity\" : ").append(quantity(line))
+                    .append(",\n    \"description\" : \"").append(description(line))
+                    .append("\",\n    \"sku\" : \"").append(sku(line))
+                    .append("\"\n  }");
+        }
+        return json.append(" ],\n  \"customer\" : {\n    \"email\" : \"ada@example.com\",\n    \"name\" : \"Ada Lovelace\",\n    \"id\" : \"C-1001\"\n  },\n  \"currency\" : \"GBP\",\n  \"orderId\" : \"ORD-0000001\"\n}").toString();
+    }
+
+    /**
+     * Generates the primed XML order of at least the given size
+     * @param size the minimum size of the order in characters
+     * @return the compact primed XML order
+     */
+    static String primedXml(final int size) {
+        final StringBuilder xml = new StringBuilder(size + 256);
+        xml.append("<order xmlns=\"urn:example:orders\" id=\"ORD-0000001\" currency=\"GBP\"><customer id=\"C-1001\"><name>Ada Lovelace</name><email>ada@example.com</email></customer><lines>");
+        for (int line = 0; xml.length() < size; line++) {
+            xml.append("<line sku=\"").append(sku(line)).append("\" quantity=\"").append(quantity(line)).append("\">")
+                    .append("<description>").append(description(line)).append("</description>")
+                    .append("<unitPrice>").append(unitPrice(line)).append("</unitPrice>")
+                    .append("</line>");
+        }
+        return xml.append("</lines></order>").toString();
+    }
+
+    /**
+     * Generates the request XML equivalent to the primed XML order of the given size
+     * @param size the minimum size of the order in characters
+     * @return the indented request XML order, with a namespace prefix, and its attributes and the children of each
+     * line in reverse order
+     */
+    static String requestXml(final int size) {
+        final int lines = countLines(primedXml(size));
+        final StringBuilder xml = new StringBuilder(size * 2);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<o:order xmlns:o=\"urn:example:orders\" currency=\"GBP\" id=\"ORD-0000001\">\n  <o:customer id=\"C-1001\">\n    <o:email>ada@example.com</o:email>\n    <o:name>Ada Lovelace</o:name>\n  </o:customer>\n  <o:lines>\n");
+        for (int line = 0; line < lines; line++) {
+            xml.append("    <o:line quantity=\"").append(quantity(line)).append("\" sku=\"").append(sku(line)).append("\">\n")
+                    .append("      <o:unitPrice>").append(unitPrice(line)).append("</o:unitPrice>\n")
+                    .append("      <o:description>").append(description(line)).append("</o:description>\n")
+                    .append("    </o:line>\n");
+        }
+        return xml.append("  </o:lines>\n</o:order>\n").toString();
+    }
+
+    private static int countLines(final String primed) {
+        int lines = 0;
+        for (int index = primed.indexOf("SKU-"); index >= 0; index = primed.indexOf("SKU-", index + 1)) {
+            lines++;
+        }
+        return lines;
+    }
+
+    private static String sku(final int line) {
+        return String.format(Locale.ENGLISH, "SKU-%06d", line * 7919 % 1000000);
+    }
+
+    private static String description(final int line) {
+        return "Replacement part " + line + " for the model " + (line % 12) + " assembly";
+    }
+
+    private static int quantity(final int line) {
+        return 1 + line % 9;
+    }
+
+    private static String unitPrice(final int line) {
+        return String.format(Locale.ENGLISH, "%d.%02d", 3 + line * 13 % 250, line * 37 % 100);
+    }
+
+}
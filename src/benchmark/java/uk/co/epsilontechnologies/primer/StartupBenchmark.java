@@ -0,0 +1,83 @@
+package uk.co.epsilontechnologies.primer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import static uk.co.epsilontechnologies.primer.PrimerStatics.when;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.get;
+import static uk.co.epsilontechnologies.primer.domain.SimpleResponseBuilder.response;
+
+/**
+ * Benchmarks the cold start of a Primer - each measurement is made once, in a fresh JVM, so that it includes the
+ * loading and initialization of the classes of the server, as a test suite would pay it.
+ *
+ * Run with: mvn -P benchmark test-compile exec:exec -Dbenchmark=StartupBenchmark
+ *
+ * @author Shane Gibson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+
+    /**
+     * The primer started by the benchmark
+     */
+    private Primer primer;
+
+    /**
+     * Measures the construction and start of a primer, on a port chosen when it starts
+     * @return the primer, once started
+     */
+    @Benchmark
+    public Primer coldStart() {
+        primer = new Primer("/benchmark", 0);
+        primer.start();
+        return primer;
+    }
+
+    /**
+     * Measures the construction and start of a primer, then the priming and issuing of its first request
+     * @return the status of the response to the first request
+     * @throws IOException the request could not be issued
+     */
+    @Benchmark
+    public int timeToFirstResponse() throws IOException {
+        primer = new Primer("/benchmark", 0);
+        primer.start();
+        when(primer.receives(get().withUri("/first"))).thenReturn(response(200, "text/plain", "first"));
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + primer.getPort() + "/benchmark/first").openConnection();
+        try (InputStream inputStream = connection.getInputStream()) {
+            while (inputStream.read() >= 0) {
+                // drain the response, as a client would
+            }
+        }
+        return connection.getResponseCode();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        if (primer != null) {
+            primer.stop();
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+package uk.co.epsilontechnologies.primer;
+
+import uk.co.epsilontechnologies.primer.domain.Request;
+import uk.co.epsilontechnologies.primer.domain.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static uk.co.epsilontechnologies.primer.domain.JsonMatchable.json;
+import static uk.co.epsilontechnologies.primer.domain.PathTemplateMatchable.path;
+import static uk.co.epsilontechnologies.primer.domain.RegExMatchable.regex;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.get;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.post;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.put;
+import static uk.co.epsilontechnologies.primer.domain.SimpleResponseBuilder.response;
+import static uk.co.epsilontechnologies.primer.domain.XmlMatchable.xml;
+
+/**
+ * A realistic catalogue of stubs for the load harness - exact URIs matched on a header, path templates, and JSON and
+ * XML bodies, in equal measure - primed on a Primer. Load is driven at a set of targets spread evenly through the
+ * catalogue, while the rest of it is there to be looked up past.
+ *
+ * Responses are consumed as they are issued, so each target is primed with two batches of responses, and topped up
+ * with another batch each time a batch of its requests has been issued.
+ *
+ * @author Shane Gibson
+ */
+class StubCatalogue {
+
+    /**
+     * The pattern of the correlation id header, which every request carries with a value of its own, as a service
+     * would send - so that no request is dispatched from a cached match decision
+     */
+    static final String CORRELATION_ID = "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}";
+
+    /**
+     * The number of responses with which a target is topped up at a time
+     */
+    private static final int BATCH = 1024;
+
+    /**
+     * The number of distinct requests to each path template target, which differ by their path variable
+     */
+    private static final int VARIANTS = 64;
+
+    private final Primer primer;
+
+    private final List<Target> targets;
+
+    private final AtomicLong next = new AtomicLong();
+
+    /**
+     * Primes the given Primer with the catalogue
+     * @param primer the Primer to prime
+     * @param contextPath the context path of the Primer
+     * @param stubs the number of stubs in the catalogue
+     * @param targetCount the number of stubs at which load is driven
+     * @param payloadSize the size of the JSON and XML request and response bodies of the targets
+     */
+    StubCatalogue(final Primer primer, final String contextPath, final int stubs, final int targetCount, final int payloadSize) {
+        this.primer = primer;
+        final Response smallResponse = response(200, "application/json", "{\"status\":\"OK\"}").build();
+        final Response jsonResponse = response(200, "application/json", Payloads.primedJson(payloadSize)).build();
+        final Response xmlResponse = response(200, "application/xml", Payloads.primedXml(payloadSize)).build();
+        final String primedJson = Payloads.primedJson(payloadSize);
+        final byte[] requestJson = Payloads.requestJson(payloadSize).getBytes(StandardCharsets.UTF_8);
+        final String primedXml = Payloads.primedXml(payloadSize);
+        final byte[] requestXml = Payloads.requestXml(payloadSize).getBytes(StandardCharsets.UTF_8);
+        final int stride = Math.max(1, stubs / Math.max(1, targetCount));
+        final Random random = new Random(42);
+        final List<Target> targets = new ArrayList<>();
+        for (int i = 0; i < stubs; i++) {
+            final boolean target = i % stride == 0 && targets.size() < targetCount;
+            final Request request;
+            final Response response;
+            final List<Variant> variants = new ArrayList<>();
+            switch (i % 4) {
+                case 0:
+                    request = get().withUri("/accounts/" + i).withHeader("x-correlation-id", regex(CORRELATION_ID)).build();
+                    response = target ? jsonResponse : smallResponse;
+                    variants.add(new Variant("GET", contextPath + "/accounts/" + i, null, null));
+                    break;
+                case 1:
+                    request = post().withUri("/orders/" + i).withBody(json(target ? primedJson : "{\"orderId\":" + i + "}")).build();
+                    response = smallResponse;
+                    variants.add(new Variant("POST", contextPath + "/orders/" + i, "application/json", requestJson));
+                    break;
+                case 2:
+                    request = get().withUri(path("/customers/{customerId}/statements/" + i)).build();
+                    response = target ? jsonResponse : smallResponse;
+                    for (int variant = 0; variant < VARIANTS; variant++) {
+                        variants.add(new Variant("GET", contextPath + "/customers/C-" + random.nextInt(100000) + "/statements/" + i, null, null));
+                    }
+                    break;
+                default:
+                    request = put().withUri("/payments/" + i).withBody(xml(target ? primedXml : "<payment id=\"" + i + "\"/>")).build();
+                    response = target ? xmlResponse : smallResponse;
+                    variants.add(new Variant("PUT", contextPath + "/payments/" + i, "application/xml", requestXml));
+                    break;
+            }
+            if (target) {
+                final Target newTarget = new Target(request, response, variants);
+                primer.prime(request, newTarget.batch);
+                primer.prime(request, newTarget.batch);
+                targets.add(newTarget);
+            } else {
+                primer.prime(request, response);
+            }
+        }
+        this.targets = Collections.unmodifiableList(targets);
+    }
+
+    /**
+     * Getter for the number of stubs at which load is driven
+     * @return the number of targets
+     */
+    int getTargetCount() {
+        return targets.size();
+    }
+
+    /**
+     * Claims the next request to issue, cycling through the targets, and tops up the responses of its target if a
+     * batch of its requests has been issued
+     * @return the request to issue
+     */
+    Variant next() {
+        final long sequence = next.getAndIncrement();
+        final Target target = targets.get((int) (sequence % targets.size()));
+        final long issued = target.issued.incrementAndGet();
+        if (issued % BATCH == 0) {
+            primer.prime(target.request, target.batch);
+        }
+        return target.variants.get((int) (issued % target.variants.size()));
+    }
+
+    /**
+     * A stub at which load is driven
+     */
+    private static class Target {
+
+        private final Request request;
+
+        private final Response[] batch;
+
+        private final List<Variant> variants;
+
+        private final AtomicLong issued = new AtomicLong();
+
+        private Target(final Request request, final Response response, final List<Variant> variants) {
+            this.request = request;
+            this.batch = new Response[BATCH];
+            Arrays.fill(this.batch, response);
+            this.variants = variants;
+        }
+
+    }
+
+    /**
+     * A request that matches a target, once given a correlation id
+     */
+    static class Variant {
+
+        final String method;
+
+        final String uri;
+
+        final String contentType;
+
+        final byte[] body;
+
+        private Variant(final String method, final String uri, final String contentType, final byte[] body) {
+            this.method = method;
+            this.uri = uri;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+    }
+
+}
@@ -0,0 +1,160 @@
+package uk.co.epsilontechnologies.primer;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.epsilontechnologies.primer.domain.Request;
+import uk.co.epsilontechnologies.primer.domain.Response;
+import uk.co.epsilontechnologies.primer.server.ServerConfigurationBuilder;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.get;
+
+/**
+ * Benchmarks the throughput of a Primer whose responses block - as custom responses that wait on a callback, a sleep
+ * or a lookup do - with requests handled on the threads of a small pool, and on virtual threads. Handled on the pool,
+ * each blocked response holds a thread, so the throughput is bounded by the size of the pool; handled on virtual
+ * threads, it is bounded by the number of requests in flight.
+ *
+ * Requests are issued over HTTP by an asynchronous client, which holds the given number of requests in flight - each
+ * invocation waits for one to be answered, then issues the next - so the concurrency is not capped by the threads of
+ * the client. Every request in flight holds a connection of its own, so the higher concurrencies need a limit on open
+ * files to match. Responses are consumed as they are issued, so the invocation is topped up with a response before
+ * each request. The virtual threads require Java 21 or later; on earlier runtimes
+ * that half of the benchmark fails to set up, and the platform half runs alone.
+ *
+ * Run with: mvn -P benchmark test-compile exec:exec -Dbenchmark=ThreadingBenchmark
+ *
+ * @author Shane Gibson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadingBenchmark {
+
+    /**
+     * The maximum number of threads of the pool - fewer than the clients, as in a suite that outgrows its stubs
+     */
+    private static final int MAX_THREADS = 16;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"10"})
+    private int blockMillis;
+
+    @Param({"64", "1024", "4096"})
+    private int concurrency;
+
+    private PrimedInvocationIndex primedInvocations;
+
+    private Primer primer;
+
+    private Request request;
+
+    private Response blockingResponse;
+
+    private HttpClient client;
+
+    private String uri;
+
+    private Semaphore inFlight;
+
+    private final AtomicLong errors = new AtomicLong();
+
+    @Setup
+    public void setUp() throws Exception {
+        primedInvocations = new PrimedInvocationIndex();
+        primer = new Primer("/benchmark", 0, ServerConfigurationBuilder.configuration()
+                .withMinThreads(MAX_THREADS)
+                .withMaxThreads(MAX_THREADS)
+                .withVirtualThreads(virtualThreads)
+                .build(), primedInvocations);
+        primer.start();
+        request = get().withUri("/blocking").build();
+        blockingResponse = new BlockingResponse(blockMillis);
+        primedInvocations.prime(request, blockingResponse);
+        uri = "http://localhost:" + primer.getPort() + "/benchmark/blocking";
+        client = new HttpClient();
+        client.setMaxConnectionsPerDestination(concurrency);
+        client.setMaxRequestsQueuedPerDestination(concurrency);
+        client.setFollowRedirects(false);
+        client.start();
+        inFlight = new Semaphore(concurrency);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        // await the requests still in flight, so that none is failed by the server stopping beneath it
+        inFlight.tryAcquire(concurrency, 30, TimeUnit.SECONDS);
+        client.stop();
+        primer.stop();
+        if (errors.get() > 0) {
+            System.out.println("PRIMER BENCHMARK :-- " + errors.get() + " requests failed");
+        }
+    }
+
+    @Benchmark
+    public void blockingResponse() throws InterruptedException {
+        inFlight.acquire();
+        primedInvocations.prime(request, blockingResponse);
+        client.newRequest(uri).send(new org.eclipse.jetty.client.api.Response.CompleteListener() {
+            @Override
+            public void onComplete(final Result result) {
+                if (result.isFailed() || result.getResponse().getStatus() != 200) {
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * A response that blocks the thread that populates it before it is written
+     */
+    private static class BlockingResponse implements Response {
+
+        private static final byte[] BODY = "{\"status\":\"OK\"}".getBytes(StandardCharsets.UTF_8);
+
+        private final int blockMillis;
+
+        private BlockingResponse(final int blockMillis) {
+            this.blockMillis = blockMillis;
+        }
+
+        @Override
+        public void populate(final HttpServletResponse httpServletResponse) throws IOException {
+            try {
+                Thread.sleep(blockMillis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            httpServletResponse.setStatus(200);
+            httpServletResponse.setContentType("application/json");
+            httpServletResponse.setContentLength(BODY.length);
+            httpServletResponse.getOutputStream().write(BODY);
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+package uk.co.epsilontechnologies.primer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies with fixed buckets, in the form of a Prometheus histogram.
+ * Each bucket is a striped counter, so that recording from many request threads at once does not contend on a single
+ * counter, and recording never allocates.
+ *
+ * @author Shane Gibson
+ */
+class LatencyHistogram {
+
+    /**
+     * The upper bounds of the buckets in nanoseconds - from 10 microseconds to 10 seconds, followed by +Inf
+     */
+    static final long[] BOUNDS = {
+            10000L, 25000L, 50000L,
+            100000L, 250000L, 500000L,
+            1000000L, 2500000L, 5000000L,
+            10000000L, 25000000L, 50000000L,
+            100000000L, 250000000L, 500000000L,
+            1000000000L, 2500000000L, 5000000000L,
+            10000000000L
+    };
+
+    /**
+     * The number of latencies recorded in each bucket, with the last holding those beyond the largest bound
+     */
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+
+    /**
+     * The sum of the latencies recorded, in nanoseconds
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Constructs the empty histogram
+     */
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the given latency
+     * @param nanos the latency in nanoseconds
+     */
+    void record(final long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS.length && nanos > BOUNDS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sum.add(nanos);
+    }
+
+    /**
+     * Appends the histogram in the Prometheus text format
+     * @param name the name of the metric
+     * @param labels the labels of the metric, formatted as name="value" pairs separated by commas
+     * @param text the text to append to
+     */
+    void appendTo(final String name, final String labels, final StringBuilder text) {
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            text.append(name).append("_bucket{").append(labels).append(",le=\"")
+                    .append(i < BOUNDS.length ? Double.toString(BOUNDS[i] / 1e9) : "+Inf")
+                    .append("\"} ").append(cumulative).append('\n');
+        }
+        text.append(name).append("_sum{").append(labels).append("} ").append(sum.sum() / 1e9).append('\n');
+        text.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+    }
+
+}
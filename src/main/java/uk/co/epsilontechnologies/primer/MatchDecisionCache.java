@@ -0,0 +1,233 @@
+package uk.co.epsilontechnologies.primer;
+
+import uk.co.epsilontechnologies.primer.domain.HttpServletRequestWrapper;
+import uk.co.epsilontechnologies.primer.domain.PrimedInvocation;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bounded cache of match decisions, keyed on a fingerprint of the request.
+ * The fingerprint covers everything that a primed request can inspect - the method, the URI, the values of the
+ * headers, parameters and cookies referenced by any primed request, and the body - so two requests with the same
+ * fingerprint are matched by the same primed invocation. Both matches and misses are cached.
+ *
+ * Each decision is held against the generation of the index in which it was made, and is disregarded once the
+ * generation has moved on, so priming, resetting or exhausting an invocation invalidates every decision at once.
+ * The body is fingerprinted without being read wherever it can be: as empty if it is declared to be, and as merely
+ * present if no primed request matches on its content. Otherwise it is read, and fingerprinted, only if its declared
+ * length is within the maximum fingerprinted body size. A body of unknown length is never read here, so a request
+ * with such a body is only cached once something else has read it.
+ *
+ * @author Shane Gibson
+ */
+class MatchDecisionCache {
+
+    /**
+     * The default maximum number of decisions held
+     */
+    static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+    /**
+     * The default maximum size (in bytes) of a request body that is fingerprinted
+     */
+    static final int DEFAULT_MAXIMUM_BODY_SIZE = 4096;
+
+    /**
+     * The fingerprint of an empty body
+     */
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    /**
+     * The fingerprint of a body that is present, where no primed request matches on its content
+     */
+    private static final String PRESENT_BODY = "PRESENT_BODY";
+
+    /**
+     * The maximum number of decisions held - the cache is emptied when it is reached
+     */
+    private final int maximumSize;
+
+    /**
+     * The maximum size (in bytes) of a request body that is fingerprinted
+     */
+    private final int maximumBodySize;
+
+    /**
+     * The decisions, keyed by request fingerprint
+     */
+    private final ConcurrentMap<Fingerprint,Decision> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the match decision cache with the default bounds
+     */
+    MatchDecisionCache() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_MAXIMUM_BODY_SIZE);
+    }
+
+    /**
+     * Constructs the match decision cache with the given bounds
+     * @param maximumSize the maximum number of decisions held
+     * @param maximumBodySize the maximum size (in bytes) of a request body that is fingerprinted
+     */
+    MatchDecisionCache(final int maximumSize, final int maximumBodySize) {
+        this.maximumSize = maximumSize;
+        this.maximumBodySize = maximumBodySize;
+    }
+
+    /**
+     * Computes the fingerprint of the given request, with respect to the attributes referenced by the primed requests
+     * @param requestWrapper the request
+     * @param uri the URI of the request, relative to the context path
+     * @param primedInvocations the primed invocations
+     * @return the fingerprint of the request, or null if the request cannot be cached
+     */
+    Fingerprint fingerprint(final HttpServletRequestWrapper requestWrapper, final String uri, final PrimedInvocationIndex primedInvocations) {
+        final Object body = body(requestWrapper, primedInvocations);
+        if (body == null) {
+            return null;
+        }
+        final String[] headers = primedInvocations.referencedHeaders();
+        final String[] parameters = primedInvocations.referencedParameters();
+        final String[] cookies = primedInvocations.referencedCookies();
+        final Object[] parts = new Object[3 + headers.length + parameters.length + cookies.length];
+        int index = 0;
+        parts[index++] = requestWrapper.getMethod();
+        parts[index++] = uri;
+        for (final String header : headers) {
+            parts[index++] = requestWrapper.getHeaderValuesAsMap().get(header);
+        }
+        for (final String parameter : parameters) {
+            parts[index++] = requestWrapper.getParameterValuesAsMap().get(parameter);
+        }
+        for (final String cookie : cookies) {
+            parts[index++] = requestWrapper.getCookiesAsMap().get(cookie);
+        }
+        parts[index] = body;
+        return new Fingerprint(parts);
+    }
+
+    /**
+     * Determines the fingerprint of the body of the given request, reading it only where its content is referenced and
+     * its declared length is within the maximum fingerprinted body size
+     * @param requestWrapper the request
+     * @param primedInvocations the primed invocations
+     * @return the fingerprint of the body, or null if the request cannot be cached
+     */
+    private Object body(final HttpServletRequestWrapper requestWrapper, final PrimedInvocationIndex primedInvocations) {
+        if (requestWrapper.isBodyRead()) {
+            final byte[] body = requestWrapper.getBodyBytes();
+            return body.length > maximumBodySize ? null : body;
+        }
+        final long contentLength = requestWrapper.getContentLengthLong();
+        if (contentLength == 0 || contentLength < 0 && isHttp1(requestWrapper) && requestWrapper.getHeader("Transfer-Encoding") == null) {
+            return EMPTY_BODY;
+        }
+        if (!primedInvocations.referencesBody()) {
+            return contentLength > 0 ? PRESENT_BODY : null;
+        }
+        if (contentLength < 0 || contentLength > maximumBodySize) {
+            return null;
+        }
+        return requestWrapper.getBodyBytes();
+    }
+
+    /**
+     * Determines whether the given request was made over HTTP/1.x, where a request without a declared length or a
+     * transfer encoding has no body
+     */
+    private static boolean isHttp1(final HttpServletRequestWrapper requestWrapper) {
+        final String protocol = requestWrapper.getProtocol();
+        return protocol != null && protocol.startsWith("HTTP/1.");
+    }
+
+    /**
+     * Looks up the decision for the given fingerprint
+     * @param fingerprint the fingerprint of the request
+     * @param generation the current generation of the primed invocations
+     * @return the decision made in the given generation, or null if there is none
+     */
+    Decision get(final Fingerprint fingerprint, final long generation) {
+        final Decision decision = decisions.get(fingerprint);
+        return decision != null && decision.generation == generation ? decision : null;
+    }
+
+    /**
+     * Caches the decision for the given fingerprint
+     * @param fingerprint the fingerprint of the request
+     * @param generation the generation of the primed invocations in which the decision was made
+     * @param primedInvocation the invocation that matched the request, or null if none matched
+     */
+    void put(final Fingerprint fingerprint, final long generation, final PrimedInvocation primedInvocation) {
+        if (decisions.size() >= maximumSize) {
+            decisions.clear();
+        }
+        decisions.put(fingerprint, new Decision(generation, primedInvocation));
+    }
+
+    /**
+     * The fingerprint of a request
+     */
+    static final class Fingerprint {
+
+        /**
+         * The attributes of the request that make up the fingerprint
+         */
+        private final Object[] parts;
+
+        /**
+         * The hash code of the attributes, computed once
+         */
+        private final int hashCode;
+
+        private Fingerprint(final Object[] parts) {
+            this.parts = parts;
+            this.hashCode = Arrays.deepHashCode(parts);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Fingerprint
+                    && hashCode == ((Fingerprint) other).hashCode
+                    && Arrays.deepEquals(parts, ((Fingerprint) other).parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+    /**
+     * A cached match decision
+     */
+    static final class Decision {
+
+        /**
+         * The generation of the primed invocations in which the decision was made
+         */
+        private final long generation;
+
+        /**
+         * The invocation that matched the request, or null if none matched
+         */
+        private final PrimedInvocation primedInvocation;
+
+        private Decision(final long generation, final PrimedInvocation primedInvocation) {
+            this.generation = generation;
+            this.primedInvocation = primedInvocation;
+        }
+
+        /**
+         * Getter for the invocation that matched the request
+         * @return the invocation that matched the request, or null if none matched
+         */
+        PrimedInvocation getPrimedInvocation() {
+            return primedInvocation;
+        }
+
+    }
+
+}
@@ -1,5 +1,7 @@
 package uk.co.epsilontechnologies.primer;
 
+import uk.co.epsilontechnologies.primer.server.ServerConfiguration;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -26,4 +28,147 @@ public @interface Primable {
      */
     int port();
 
+    /**
+     * Whether the primable instance is hosted by the server shared by every primable instance on the same port, rather
+     * than by a server of its own. Only the server settings (threads, queues, timeouts, HTTP/2 and TLS) of the first
+     * instance to use the port apply, so every shared instance on the port must declare the same settings - a
+     * differing declaration fails with an IllegalStateException rather than being silently ignored.
+     * @return true if the server is shared, false otherwise
+     */
+    boolean shared() default false;
+
+    /**
+     * The Host by which requests are routed to the primable instance on a shared server, or empty to route them by
+     * context path
+     * @return the host
+     */
+    String host() default "";
+
+    /**
+     * The minimum number of threads in the pool of the server, or -1 for the default
+     * @return the minimum number of threads
+     */
+    int minThreads() default ServerConfiguration.DEFAULT;
+
+    /**
+     * The maximum number of threads in the pool of the server, or -1 for the default
+     * @return the maximum number of threads
+     */
+    int maxThreads() default ServerConfiguration.DEFAULT;
+
+    /**
+     * The maximum number of jobs queued for the threads of the server, or -1 for an unbounded queue
+     * @return the queue size
+     */
+    int queueSize() default ServerConfiguration.DEFAULT;
+
+    /**
+     * The number of threads that accept connections, or -1 for the default
+     * @return the number of acceptors
+     */
+    int acceptors() default ServerConfiguration.DEFAULT;
+
+    /**
+     * The number of selectors that process accepted connections, or -1 for the default
+     * @return the number of selectors
+     */
+    int selectors() default ServerConfiguration.DEFAULT;
+
+    /**
+     * The number of connections that may be pending acceptance, or -1 for the default
+     * @return the accept queue size
+     */
+    int acceptQueueSize() default ServerConfiguration.DEFAULT;
+
+    /**
+     * The time in milliseconds for which a connection may be idle before it is closed, or -1 for the default
+     * @return the idle timeout
+     */
+    long idleTimeout() default ServerConfiguration.DEFAULT;
+
+    /**
+     * Whether Nagle's algorithm is disabled on each connection
+     * @return true if TCP_NODELAY is set, false otherwise
+     */
+    boolean tcpNoDelay() default true;
+
+    /**
+     * The size in bytes of the buffer of the response content, or -1 for the default
+     * @return the output buffer size
+     */
+    int outputBufferSize() default ServerConfiguration.DEFAULT;
+
+    /**
+     * Whether requests are handled on virtual threads, which requires a Java runtime that provides them
+     * @return true if requests are handled on virtual threads, false otherwise
+     */
+    boolean virtualThreads() default false;
+
+    /**
+     * Whether HTTP/2 is offered alongside HTTP/1.1 - as h2c on the port, and as h2 on the TLS port, if there is one
+     * @return true if HTTP/2 is offered, false otherwise
+     */
+    boolean http2() default false;
+
+    /**
+     * The maximum number of concurrent streams of each HTTP/2 connection, or -1 for the default
+     * @return the maximum number of concurrent streams
+     */
+    int maxConcurrentStreams() default ServerConfiguration.DEFAULT;
+
+    /**
+     * The initial flow control window in bytes of each HTTP/2 stream, or -1 for the default
+     * @return the initial stream window
+     */
+    int initialStreamWindow() default ServerConfiguration.DEFAULT;
+
+    /**
+     * The initial flow control window in bytes of each HTTP/2 connection, or -1 for the default
+     * @return the initial session window
+     */
+    int initialSessionWindow() default ServerConfiguration.DEFAULT;
+
+    /**
+     * The port on which connections are accepted over TLS, or -1 if they are not
+     * @return the TLS port
+     */
+    int tlsPort() default ServerConfiguration.DEFAULT;
+
+    /**
+     * The path of the key store holding the certificate presented over TLS
+     * @return the key store path
+     */
+    String keyStorePath() default "";
+
+    /**
+     * The password of the key store holding the certificate presented over TLS
+     * @return the key store password
+     */
+    String keyStorePassword() default "";
+
+    /**
+     * The path, relative to the context path, on which the metrics of the primable instance are exposed in the
+     * Prometheus text format, or empty if they are not exposed
+     * @return the metrics path
+     */
+    String metricsPath() default "";
+
+    /**
+     * The number of requests held by the journal of the primable instance, or 0 if requests are not recorded
+     * @return the journal capacity
+     */
+    int journalCapacity() default 0;
+
+    /**
+     * The limit in bytes of the body held by the journal for each request, beyond which it is truncated
+     * @return the journal body limit
+     */
+    int journalMaxBodyBytes() default RequestJournal.DEFAULT_MAX_BODY_BYTES;
+
+    /**
+     * Whether the journal holds the bodies of requests off the heap
+     * @return true if the bodies are held off the heap, false otherwise
+     */
+    boolean journalOffHeap() default false;
+
 }
@@ -0,0 +1,481 @@
+package uk.co.epsilontechnologies.primer;
+
+import uk.co.epsilontechnologies.primer.domain.Matchable;
+import uk.co.epsilontechnologies.primer.domain.PathTemplateMatchable;
+import uk.co.epsilontechnologies.primer.domain.PrimedInvocation;
+import uk.co.epsilontechnologies.primer.domain.RegExMatchable;
+import uk.co.epsilontechnologies.primer.domain.Request;
+import uk.co.epsilontechnologies.primer.domain.Response;
+import uk.co.epsilontechnologies.primer.domain.StringMatchable;
+import uk.co.epsilontechnologies.primer.matcher.MultiPatternMatcher;
+import uk.co.epsilontechnologies.primer.matcher.PathTemplateTrie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Dispatch index of the primed invocations for a Primer instance.
+ * Invocations primed with a literal URI are bucketed by HTTP method and URI, so that only the candidates for that key
+ * are evaluated for a request. Invocations primed with a path template are held in a radix trie per HTTP method, so
+ * that their lookup cost depends on the depth of the request path. Invocations primed with any other URI matchable
+ * (regular expressions, etc) are held in a fallback bucket that is evaluated for every request. The regular expression
+ * URIs of the fallback bucket are combined per HTTP method into a single pattern, so that those that cannot match the
+ * request are excluded in one pass. Candidates are always returned in the order in which they were primed, preserving
+ * first-match semantics.
+ *
+ * The index is safe for concurrent use. Lookups and removals are lock-free, while priming and clearing are serialized
+ * with respect to each other so that a request primed twice is never split across two invocations.
+ *
+ * @author Shane Gibson
+ */
+class PrimedInvocationIndex {
+
+    /**
+     * The primed invocations keyed by HTTP method and literal URI, each bucket ordered by priming sequence
+     */
+    private final ConcurrentMap<String,ConcurrentNavigableMap<Long,PrimedInvocation>> literalEntries = new ConcurrentHashMap<>();
+
+    /**
+     * The primed invocations keyed by HTTP method and path template, each bucket ordered by priming sequence
+     */
+    private final ConcurrentMap<String,ConcurrentNavigableMap<Long,PrimedInvocation>> templateEntries = new ConcurrentHashMap<>();
+
+    /**
+     * The path templates of the primed invocations, keyed by HTTP method
+     */
+    private final ConcurrentMap<String,PathTemplateTrie<PrimedInvocation>> templateTries = new ConcurrentHashMap<>();
+
+    /**
+     * The primed invocations that cannot be keyed on a literal URI or path template, ordered by priming sequence
+     */
+    private final ConcurrentNavigableMap<Long,PrimedInvocation> fallbackEntries = new ConcurrentSkipListMap<>();
+
+    /**
+     * The combined regular expression URIs of the fallback bucket, keyed by HTTP method - built lazily after priming
+     */
+    private final ConcurrentMap<String,RegExUriFilter> regExUriFilters = new ConcurrentHashMap<>();
+
+    /**
+     * All of the primed invocations, ordered by priming sequence
+     */
+    private final ConcurrentNavigableMap<Long,PrimedInvocation> entries = new ConcurrentSkipListMap<>();
+
+    /**
+     * The priming sequence of each primed invocation
+     */
+    private final ConcurrentMap<PrimedInvocation,Long> sequences = new ConcurrentHashMap<>();
+
+    /**
+     * The sequence number to assign to the next primed invocation
+     */
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * The generation of the index, advanced whenever the primed invocations change
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * The names (in lower case) of the headers referenced by any primed request, in ascending order
+     */
+    private volatile String[] referencedHeaders = new String[0];
+
+    /**
+     * The names of the parameters referenced by any primed request, in ascending order
+     */
+    private volatile String[] referencedParameters = new String[0];
+
+    /**
+     * The names of the cookies referenced by any primed request, in ascending order
+     */
+    private volatile String[] referencedCookies = new String[0];
+
+    /**
+     * Whether any primed request matches on the content of the body, rather than requiring it to be empty
+     */
+    private volatile boolean referencesBody;
+
+    /**
+     * Primes the index with the given request and responses.
+     * If the request has already been primed, and that invocation is not yet exhausted, the responses are appended
+     * to the existing invocation.
+     * @param request the request to prime
+     * @param responses the responses to prime, in sequence
+     */
+    synchronized void prime(final Request request, final Response... responses) {
+        final ConcurrentNavigableMap<Long,PrimedInvocation> bucket = bucketFor(request, true);
+        for (final PrimedInvocation primedInvocation : bucket.values()) {
+            if (primedInvocation.getRequest().equals(request) && primedInvocation.addResponses(responses)) {
+                return;
+            }
+        }
+        final PrimedInvocation primedInvocation = new PrimedInvocation(request, responses);
+        final Long sequence = nextSequence.getAndIncrement();
+        sequences.put(primedInvocation, sequence);
+        entries.put(sequence, primedInvocation);
+        bucket.put(sequence, primedInvocation);
+        if (request.getURI() instanceof PathTemplateMatchable) {
+            trieFor(request.getMethod()).add(((PathTemplateMatchable) request.getURI()).getSegments(), sequence, primedInvocation);
+        }
+        if (request.getURI() instanceof RegExMatchable) {
+            regExUriFilters.remove(request.getMethod());
+        }
+        referencedHeaders = union(referencedHeaders, request.getHeaders(), true);
+        referencedParameters = union(referencedParameters, request.getParameters(), false);
+        referencedCookies = union(referencedCookies, request.getCookies(), false);
+        referencesBody |= !isEmptyBody(request.getBody());
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Determines the primed invocations that could match a request with the given method and URI
+     * @param method the HTTP method of the request
+     * @param uri the URI of the request, relative to the context path
+     * @return the candidate invocations, in the order in which they were primed
+     */
+    List<PrimedInvocation> candidates(final String method, final String uri) {
+        final List<Map<Long,PrimedInvocation>> buckets = new ArrayList<>(3);
+        final Map<Long,PrimedInvocation> literal = literalEntries.get(key(method, uri));
+        if (literal != null) {
+            buckets.add(literal);
+        }
+        final PathTemplateTrie<PrimedInvocation> trie = templateTries.get(method);
+        if (trie != null) {
+            buckets.add(trie.lookup(PathTemplateMatchable.split(uri)));
+        }
+        buckets.add(fallbackEntries);
+        final RegExUriFilter filter = regExUriFilterFor(method);
+        return merge(buckets, filter, filter.threshold(uri));
+    }
+
+    /**
+     * Removes the given primed invocation from the index
+     * @param primedInvocation the invocation to remove
+     */
+    void remove(final PrimedInvocation primedInvocation) {
+        final Long sequence = sequences.remove(primedInvocation);
+        if (sequence == null) {
+            return;
+        }
+        final Request request = primedInvocation.getRequest();
+        final Map<Long,PrimedInvocation> bucket = bucketFor(request, false);
+        if (bucket != null) {
+            bucket.remove(sequence);
+            if (bucket.isEmpty() && bucket != fallbackEntries) {
+                prune(request, bucket);
+            }
+        }
+        final PathTemplateTrie<PrimedInvocation> trie = templateTries.get(request.getMethod());
+        if (trie != null && request.getURI() instanceof PathTemplateMatchable) {
+            trie.remove(((PathTemplateMatchable) request.getURI()).getSegments(), sequence);
+        }
+        entries.remove(sequence);
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Clears all of the primed invocations
+     */
+    synchronized void clear() {
+        entries.clear();
+        literalEntries.clear();
+        templateEntries.clear();
+        templateTries.clear();
+        fallbackEntries.clear();
+        regExUriFilters.clear();
+        sequences.clear();
+        referencedHeaders = new String[0];
+        referencedParameters = new String[0];
+        referencedCookies = new String[0];
+        referencesBody = false;
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Determines the generation of the index. The generation advances whenever an invocation is primed, removed or
+     * cleared, so a decision made against one generation remains valid for as long as the generation is unchanged.
+     * @return the current generation
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Determines the names of the headers referenced by any primed request
+     * @return the header names, in lower case and ascending order
+     */
+    String[] referencedHeaders() {
+        return referencedHeaders;
+    }
+
+    /**
+     * Determines the names of the parameters referenced by any primed request
+     * @return the parameter names, in ascending order
+     */
+    String[] referencedParameters() {
+        return referencedParameters;
+    }
+
+    /**
+     * Determines the names of the cookies referenced by any primed request
+     * @return the cookie names, in ascending order
+     */
+    String[] referencedCookies() {
+        return referencedCookies;
+    }
+
+    /**
+     * Determines whether any primed request matches on the content of the body, rather than requiring it to be empty
+     * @return true if the content of the body is referenced by any primed request, false otherwise
+     */
+    boolean referencesBody() {
+        return referencesBody;
+    }
+
+    /**
+     * Getter for the number of primed invocations remaining
+     * @return the number of primed invocations remaining
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Getter for the number of buckets of literal and path template invocations held
+     * @return the number of buckets held
+     */
+    synchronized int buckets() {
+        return literalEntries.size() + templateEntries.size();
+    }
+
+    /**
+     * Determines if there are any primed invocations remaining
+     * @return true if there are no primed invocations, false otherwise
+     */
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * @see Object#toString()
+     * @return the string representation of the primed invocations, in the order in which they were primed
+     */
+    @Override
+    public String toString() {
+        return entries.values().toString();
+    }
+
+    /**
+     * Determines the bucket for the given primed request
+     * @param request the primed request
+     * @param create whether to create the bucket if it does not yet exist
+     * @return the bucket for the request, or null if it does not exist and was not created
+     */
+    private ConcurrentNavigableMap<Long,PrimedInvocation> bucketFor(final Request request, final boolean create) {
+        final Matchable uri = request.getURI();
+        if (uri instanceof StringMatchable && ((StringMatchable) uri).getPrimedString() != null) {
+            return bucketFor(literalEntries, key(request.getMethod(), ((StringMatchable) uri).getPrimedString()), create);
+        }
+        if (uri instanceof PathTemplateMatchable) {
+            return bucketFor(templateEntries, key(request.getMethod(), uri.toString()), create);
+        }
+        return fallbackEntries;
+    }
+
+    /**
+     * Removes the given bucket of the given request once it is empty - under the lock that priming holds, so that a
+     * bucket is never pruned as an invocation is primed into it
+     * @param request the request whose bucket it is
+     * @param bucket the bucket to prune
+     */
+    private synchronized void prune(final Request request, final Map<Long,PrimedInvocation> bucket) {
+        if (!bucket.isEmpty()) {
+            return;
+        }
+        final Matchable uri = request.getURI();
+        if (uri instanceof PathTemplateMatchable) {
+            templateEntries.remove(key(request.getMethod(), uri.toString()), bucket);
+        } else {
+            literalEntries.remove(key(request.getMethod(), ((StringMatchable) uri).getPrimedString()), bucket);
+        }
+    }
+
+    private static ConcurrentNavigableMap<Long,PrimedInvocation> bucketFor(
+            final ConcurrentMap<String,ConcurrentNavigableMap<Long,PrimedInvocation>> buckets,
+            final String key,
+            final boolean create) {
+        ConcurrentNavigableMap<Long,PrimedInvocation> bucket = buckets.get(key);
+        if (bucket == null && create) {
+            bucket = new ConcurrentSkipListMap<>();
+            buckets.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    private PathTemplateTrie<PrimedInvocation> trieFor(final String method) {
+        PathTemplateTrie<PrimedInvocation> trie = templateTries.get(method);
+        if (trie == null) {
+            trie = new PathTemplateTrie<>();
+            final PathTemplateTrie<PrimedInvocation> existing = templateTries.putIfAbsent(method, trie);
+            if (existing != null) {
+                trie = existing;
+            }
+        }
+        return trie;
+    }
+
+    private static String[] union(final String[] names, final Map<String,Matchable> primed, final boolean lowerCase) {
+        if (primed == null) {
+            return names;
+        }
+        final SortedSet<String> result = new TreeSet<>(Arrays.asList(names));
+        for (final String name : primed.keySet()) {
+            result.add(lowerCase ? name.toLowerCase(Locale.ENGLISH) : name);
+        }
+        return result.size() == names.length ? names : result.toArray(new String[result.size()]);
+    }
+
+    private static boolean isEmptyBody(final Matchable body) {
+        return body instanceof StringMatchable && "".equals(((StringMatchable) body).getPrimedString());
+    }
+
+    private static String key(final String method, final String uri) {
+        return method + ' ' + uri;
+    }
+
+    private RegExUriFilter regExUriFilterFor(final String method) {
+        RegExUriFilter filter = regExUriFilters.get(method);
+        if (filter == null) {
+            filter = new RegExUriFilter(method, fallbackEntries);
+            regExUriFilters.putIfAbsent(method, filter);
+        }
+        return filter;
+    }
+
+    /**
+     * Merges the given buckets, each ordered by priming sequence, into a single list ordered by priming sequence
+     * @param buckets the buckets to merge
+     * @param filter the filter of the regular expression URIs that cannot match the request
+     * @param threshold the threshold for the filter
+     * @return the merged primed invocations
+     */
+    private static List<PrimedInvocation> merge(final List<Map<Long,PrimedInvocation>> buckets, final RegExUriFilter filter, final long threshold) {
+        final List<PrimedInvocation> result = new ArrayList<>();
+        final List<Iterator<Map.Entry<Long,PrimedInvocation>>> iterators = new ArrayList<>(buckets.size());
+        final List<Map.Entry<Long,PrimedInvocation>> heads = new ArrayList<>(buckets.size());
+        for (final Map<Long,PrimedInvocation> bucket : buckets) {
+            final Iterator<Map.Entry<Long,PrimedInvocation>> iterator = bucket.entrySet().iterator();
+            iterators.add(iterator);
+            heads.add(next(iterator));
+        }
+        while (true) {
+            int lowest = -1;
+            for (int i = 0; i < heads.size(); i++) {
+                if (heads.get(i) != null && (lowest < 0 || heads.get(i).getKey() < heads.get(lowest).getKey())) {
+                    lowest = i;
+                }
+            }
+            if (lowest < 0) {
+                return result;
+            }
+            if (!filter.excludes(heads.get(lowest).getKey(), threshold)) {
+                result.add(heads.get(lowest).getValue());
+            }
+            heads.set(lowest, next(iterators.get(lowest)));
+        }
+    }
+
+    private static <T> T next(final Iterator<T> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * The regular expression URIs primed for a HTTP method, combined into a single pattern.
+     * The filter is a snapshot: invocations primed after it was built are never excluded, and invocations removed
+     * after it was built are simply no longer candidates.
+     */
+    private static class RegExUriFilter {
+
+        /**
+         * The priming sequences of the combined regular expression URIs, in ascending order
+         */
+        private final long[] combinedSequences;
+
+        /**
+         * The priming sequence of each regular expression URI given to the multi-pattern matcher
+         */
+        private final long[] patternSequences;
+
+        /**
+         * The multi-pattern matcher for the regular expression URIs
+         */
+        private final MultiPatternMatcher multiPatternMatcher;
+
+        private RegExUriFilter(final String method, final Map<Long,PrimedInvocation> fallbackEntries) {
+            final List<Pattern> patterns = new ArrayList<>();
+            final List<Long> sequenceList = new ArrayList<>();
+            for (final Map.Entry<Long,PrimedInvocation> entry : fallbackEntries.entrySet()) {
+                final Request request = entry.getValue().getRequest();
+                if (method.equals(request.getMethod()) && request.getURI() instanceof RegExMatchable) {
+                    final Pattern pattern = ((RegExMatchable) request.getURI()).getPattern();
+                    if (pattern != null) {
+                        patterns.add(pattern);
+                        sequenceList.add(entry.getKey());
+                    }
+                }
+            }
+            this.multiPatternMatcher = new MultiPatternMatcher(patterns);
+            this.patternSequences = new long[sequenceList.size()];
+            int combinedCount = 0;
+            for (int i = 0; i < patternSequences.length; i++) {
+                patternSequences[i] = sequenceList.get(i);
+                if (multiPatternMatcher.isCombined(i)) {
+                    combinedCount++;
+                }
+            }
+            this.combinedSequences = new long[combinedCount];
+            for (int i = 0, j = 0; i < patternSequences.length; i++) {
+                if (multiPatternMatcher.isCombined(i)) {
+                    combinedSequences[j++] = patternSequences[i];
+                }
+            }
+        }
+
+        /**
+         * Determines the priming sequence below which none of the combined regular expression URIs match
+         * @param uri the URI of the request
+         * @return the priming sequence of the first combined URI to match, or Long.MAX_VALUE if none match
+         */
+        private long threshold(final String uri) {
+            if (combinedSequences.length == 0) {
+                return Long.MIN_VALUE;
+            }
+            final int index = multiPatternMatcher.firstMatch(uri);
+            return index < 0 ? Long.MAX_VALUE : patternSequences[index];
+        }
+
+        /**
+         * Determines whether the invocation with the given priming sequence cannot match the request
+         * @param sequence the priming sequence of the invocation
+         * @param threshold the threshold for the request
+         * @return true if the invocation has a combined regular expression URI that does not match the request
+         */
+        private boolean excludes(final long sequence, final long threshold) {
+            return sequence < threshold && Arrays.binarySearch(combinedSequences, sequence) >= 0;
+        }
+
+    }
+
+}
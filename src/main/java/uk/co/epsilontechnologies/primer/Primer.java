@@ -4,8 +4,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.co.epsilontechnologies.primer.domain.*;
 import uk.co.epsilontechnologies.primer.server.PrimerServer;
+import uk.co.epsilontechnologies.primer.server.ServerConfiguration;
+import uk.co.epsilontechnologies.primer.server.ServerConfigurationBuilder;
+import uk.co.epsilontechnologies.primer.server.SharedServer;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -26,14 +28,22 @@ public class Primer {
      */
     private final PrimerServer primerServer;
 
-    private final List<PrimedInvocation> primedInvocations;
+    /**
+     * The primed invocations, indexed for dispatch
+     */
+    private final PrimedInvocationIndex primedInvocations;
+
+    /**
+     * The handler of the requests issued to the server
+     */
+    private final PrimerRequestHandler requestHandler;
 
     /**
      * Constructs a Primer instance for the given port, without a context path.
-     * @param port the port of the web application being primed
+     * @param port the port of the web application being primed, or zero for a port chosen when the primer starts
      */
     public Primer(final int port) {
-        this("", port, new ArrayList<PrimedInvocation>());
+        this("", port, new PrimedInvocationIndex());
     }
 
     /**
@@ -42,15 +52,61 @@ public class Primer {
      * @param port the port of the web application being primed
      */
     public Primer(final String contextPath, final int port) {
-        this(contextPath, port, new ArrayList<PrimedInvocation>());
+        this(contextPath, port, new PrimedInvocationIndex());
+    }
+
+    /**
+     * Constructs a Primer instance for the given port and context path, whose server has the given configuration
+     * @param contextPath the context path of the web application being primed
+     * @param port the port of the web application being primed
+     * @param configuration the configuration of the thread pool, connector and sockets of the server
+     */
+    public Primer(final String contextPath, final int port, final ServerConfiguration configuration) {
+        this(contextPath, port, configuration, new PrimedInvocationIndex());
+    }
+
+    /**
+     * Constructs a Primer instance for the given context path, hosted by the given shared server
+     * @param sharedServer the shared server hosting the web application being primed
+     * @param contextPath the context path of the web application being primed, by which its requests are routed
+     */
+    public Primer(final SharedServer sharedServer, final String contextPath) {
+        this(sharedServer, null, contextPath);
+    }
+
+    /**
+     * Constructs a Primer instance for the given host and context path, hosted by the given shared server
+     * @param sharedServer the shared server hosting the web application being primed
+     * @param host the host name of the web application being primed, by which its requests are routed
+     * @param contextPath the context path of the web application being primed
+     */
+    public Primer(final SharedServer sharedServer, final String host, final String contextPath) {
+        this(sharedServer, host, contextPath, new PrimedInvocationIndex());
+    }
+
+    Primer(final SharedServer sharedServer, final String host, final String contextPath, final PrimedInvocationIndex primedInvocations) {
+        this(sharedServer, host, contextPath, new PrimerRequestHandler(contextPath, primedInvocations), primedInvocations);
+    }
+
+    private Primer(final SharedServer sharedServer, final String host, final String contextPath, final PrimerRequestHandler requestHandler, final PrimedInvocationIndex primedInvocations) {
+        this(host != null ? sharedServer.routeHost(host, requestHandler) : sharedServer.routeContextPath(contextPath, requestHandler), requestHandler, primedInvocations);
     }
 
-    Primer(final String contextPath, final int port, final List<PrimedInvocation> primedInvocations) {
-        this(new PrimerServer(port, new PrimerRequestHandler(contextPath, primedInvocations)), primedInvocations);
+    Primer(final String contextPath, final int port, final PrimedInvocationIndex primedInvocations) {
+        this(contextPath, port, ServerConfigurationBuilder.configuration().build(), primedInvocations);
     }
 
-    Primer(final PrimerServer primerServer, final List<PrimedInvocation> primedInvocations) {
+    Primer(final String contextPath, final int port, final ServerConfiguration configuration, final PrimedInvocationIndex primedInvocations) {
+        this(port, configuration, new PrimerRequestHandler(contextPath, primedInvocations), primedInvocations);
+    }
+
+    private Primer(final int port, final ServerConfiguration configuration, final PrimerRequestHandler requestHandler, final PrimedInvocationIndex primedInvocations) {
+        this(new PrimerServer(port, requestHandler, configuration), requestHandler, primedInvocations);
+    }
+
+    Primer(final PrimerServer primerServer, final PrimerRequestHandler requestHandler, final PrimedInvocationIndex primedInvocations) {
         this.primerServer = primerServer;
+        this.requestHandler = requestHandler;
         this.primedInvocations = primedInvocations;
     }
 
@@ -73,6 +129,51 @@ public class Primer {
         this.primerServer.join();
     }
 
+    /**
+     * Getter for the port of the primer server instance - once started, the port to which it is bound, which is chosen
+     * when it starts if the primer was constructed for port zero
+     * @return the port of the primer server instance
+     */
+    public int getPort() {
+        return this.primerServer.getPort();
+    }
+
+    /**
+     * Throttles every response issued by this primer that is not otherwise paced
+     * @param throttle the throttle to apply, or null to stop throttling responses
+     */
+    public void throttle(final Throttle throttle) {
+        this.requestHandler.setDefaultThrottle(throttle);
+    }
+
+    /**
+     * Exposes the metrics of this primer in the Prometheus text format, on GET requests to the given path - the hits on
+     * each stub, counted by the method and URI that it is primed for and kept once it is exhausted or reset, the
+     * requests that were not primed, and histograms of the time taken to match each request and to write its response.
+     * The metrics are recorded whether or not they are exposed.
+     * @param path the path, relative to the context path, on which to expose the metrics, or null to stop exposing them
+     */
+    public void exposeMetrics(final String path) {
+        this.requestHandler.setMetricsPath(path);
+    }
+
+    /**
+     * Records every request received by this primer to the given journal, so that the requests issued by the system
+     * under test can be inspected. The journal holds the most recent requests in memory that is allocated up front.
+     * @param journal the journal to record to, or null to stop recording requests
+     */
+    public void journal(final RequestJournal journal) {
+        this.requestHandler.setJournal(journal);
+    }
+
+    /**
+     * Getter for the journal to which every request received by this primer is recorded
+     * @return the journal, or null if requests are not recorded
+     */
+    public RequestJournal getJournal() {
+        return this.requestHandler.getJournal();
+    }
+
     /**
      * Clears the primed invocations
      */
@@ -259,15 +360,7 @@ public class Primer {
      * @responses the responses to prime
      */
     void prime(final Request request, final Response... responses) {
-        for (final PrimedInvocation primedInvocation : primedInvocations) {
-            if (primedInvocation.getRequest().equals(request)) {
-                for (final Response response : responses) {
-                    primedInvocation.getResponses().add(response);
-                }
-                return;
-            }
-        }
-        primedInvocations.add(new PrimedInvocation(request, responses));
+        primedInvocations.prime(request, responses);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package uk.co.epsilontechnologies.primer;
+
+import uk.co.epsilontechnologies.primer.domain.PrimedInvocation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of a Primer instance - the hits on each stub, the requests that were not primed, and the latency of
+ * matching requests and of writing their responses - rendered in the Prometheus text format.
+ * Every counter is striped, so that recording adds no contention between request threads.
+ *
+ * The hits on each stub are counted by its identity - the method and URI that it is primed for - rather than by the
+ * primed invocation, so a stub keeps a single series however often it is primed, and its count is still rendered once
+ * it has been exhausted or reset.
+ *
+ * @author Shane Gibson
+ */
+class PrimerMetrics {
+
+    /**
+     * The content type of the Prometheus text format
+     */
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * The number of requests dispatched to each stub, by method and then by URI
+     */
+    private final ConcurrentNavigableMap<String,ConcurrentNavigableMap<String,LongAdder>> stubHits = new ConcurrentSkipListMap<>();
+
+    /**
+     * The number of requests dispatched to any primed invocation
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * The number of requests that matched no primed invocation
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * The time from receiving each request to deciding which primed invocation, if any, it matches
+     */
+    private final LatencyHistogram matchLatency = new LatencyHistogram();
+
+    /**
+     * The time taken to write each response, or to hand it off if it is written asynchronously
+     */
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+
+    /**
+     * Records a request that matched a primed invocation
+     * @param primedInvocation the primed invocation that the request was dispatched to
+     * @param matchNanos the time taken to match the request, in nanoseconds
+     */
+    void recordHit(final PrimedInvocation primedInvocation, final long matchNanos) {
+        stubHits(String.valueOf(primedInvocation.getRequest().getMethod()), String.valueOf(primedInvocation.getRequest().getURI())).increment();
+        hits.increment();
+        matchLatency.record(matchNanos);
+    }
+
+    /**
+     * Records a request that matched no primed invocation
+     * @param matchNanos the time taken to determine that the request was not primed, in nanoseconds
+     */
+    void recordMiss(final long matchNanos) {
+        misses.increment();
+        matchLatency.record(matchNanos);
+    }
+
+    /**
+     * Records the writing of a response
+     * @param writeNanos the time taken to write the response, in nanoseconds
+     */
+    void recordWrite(final long writeNanos) {
+        writeLatency.record(writeNanos);
+    }
+
+    /**
+     * Renders the metrics in the Prometheus text format
+     * @param contextPath the context path of the Primer instance, by which its metrics are labelled
+     * @param stubs the number of primed invocations that remain primed
+     * @return the metrics in the Prometheus text format
+     */
+    String render(final String contextPath, final int stubs) {
+        final String context = "context=\"" + escape(contextPath) + "\"";
+        final StringBuilder text = new StringBuilder(1024 + stubHits.size() * 96);
+
+        header(text, "primer_stub_hits_total", "counter", "Requests dispatched to each stub, by the method and URI that it is primed for");
+        for (final Map.Entry<String,ConcurrentNavigableMap<String,LongAdder>> method : stubHits.entrySet()) {
+            for (final Map.Entry<String,LongAdder> uri : method.getValue().entrySet()) {
+                text.append("primer_stub_hits_total{").append(context)
+                        .append(",method=\"").append(escape(method.getKey()))
+                        .append("\",uri=\"").append(escape(uri.getKey()))
+                        .append("\"} ").append(uri.getValue().sum()).append('\n');
+            }
+        }
+
+        header(text, "primer_hits_total", "counter", "Requests dispatched to any primed invocation");
+        text.append("primer_hits_total{").append(context).append("} ").append(hits.sum()).append('\n');
+
+        header(text, "primer_misses_total", "counter", "Requests that matched no primed invocation");
+        text.append("primer_misses_total{").append(context).append("} ").append(misses.sum()).append('\n');
+
+        header(text, "primer_stubs", "gauge", "Primed invocations that remain primed");
+        text.append("primer_stubs{").append(context).append("} ").append(stubs).append('\n');
+
+        header(text, "primer_match_duration_seconds", "histogram", "Time from receiving a request to deciding which primed invocation it matches");
+        matchLatency.appendTo("primer_match_duration_seconds", context, text);
+
+        header(text, "primer_write_duration_seconds", "histogram", "Time taken to write a response, or to hand it off if it is written asynchronously");
+        writeLatency.appendTo("primer_write_duration_seconds", context, text);
+
+        return text.toString();
+    }
+
+    /**
+     * Finds the counter of the hits on the stub of the given identity, adding it on the first hit
+     * @param method the method that the stub is primed for
+     * @param uri the URI that the stub is primed for
+     * @return the counter of the hits on the stub
+     */
+    private LongAdder stubHits(final String method, final String uri) {
+        ConcurrentNavigableMap<String,LongAdder> uris = stubHits.get(method);
+        if (uris == null) {
+            final ConcurrentNavigableMap<String,LongAdder> added = stubHits.putIfAbsent(method, new ConcurrentSkipListMap<String,LongAdder>());
+            uris = added != null ? added : stubHits.get(method);
+        }
+        LongAdder counter = uris.get(uri);
+        if (counter == null) {
+            final LongAdder added = uris.putIfAbsent(uri, new LongAdder());
+            counter = added != null ? added : uris.get(uri);
+        }
+        return counter;
+    }
+
+    private static void header(final StringBuilder text, final String name, final String type, final String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Escapes the given label value, as the Prometheus text format requires
+     * @param value the label value
+     * @return the escaped label value
+     */
+    static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+}
@@ -3,18 +3,22 @@ package uk.co.epsilontechnologies.primer;
 import org.eclipse.jetty.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.co.epsilontechnologies.primer.domain.AsyncResponse;
 import uk.co.epsilontechnologies.primer.domain.HttpServletRequestWrapper;
+import uk.co.epsilontechnologies.primer.domain.Matchable;
+import uk.co.epsilontechnologies.primer.domain.PathTemplateMatchable;
 import uk.co.epsilontechnologies.primer.domain.PrimedInvocation;
 import uk.co.epsilontechnologies.primer.domain.Response;
+import uk.co.epsilontechnologies.primer.domain.Throttle;
+import uk.co.epsilontechnologies.primer.domain.ThrottledResponse;
 import uk.co.epsilontechnologies.primer.matcher.RequestMatcher;
 import uk.co.epsilontechnologies.primer.server.RequestHandler;
 import uk.co.epsilontechnologies.primer.server.ResponseHandler;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Handler implementation for each HTTP request
@@ -37,30 +41,103 @@ class PrimerRequestHandler implements RequestHandler {
     private final RequestMatcher requestMatcher;
 
     /**
-     * The primed requests and corresponding responses
+     * The primed requests and corresponding responses, indexed for dispatch
      */
-    private final List<PrimedInvocation> primedInvocations;
+    private final PrimedInvocationIndex primedInvocations;
+
+    /**
+     * The match decisions made for previous requests
+     */
+    private final MatchDecisionCache matchDecisionCache;
+
+    /**
+     * The context path of the requests being handled, by which the metrics are labelled
+     */
+    private final String contextPath;
+
+    /**
+     * The hits, misses and latencies of the requests handled
+     */
+    private final PrimerMetrics metrics;
+
+    /**
+     * The throttle applied to every response that is not otherwise paced, or null if responses are not throttled
+     */
+    private volatile Throttle defaultThrottle;
+
+    /**
+     * The path, relative to the context path, on which the metrics are exposed, or null if they are not exposed
+     */
+    private volatile String metricsPath;
+
+    /**
+     * The journal to which every request is recorded, or null if requests are not recorded
+     */
+    private volatile RequestJournal journal;
 
     /**
      * Constructs the primed handler for the given context path
      * @param contextPath the context path of the request being handled
+     * @param primedInvocations the primed invocations to dispatch to
      */
-    public PrimerRequestHandler(final String contextPath, final List<PrimedInvocation> primedInvocations) {
-        this(new ResponseHandler(), new RequestMatcher(contextPath), primedInvocations);
+    public PrimerRequestHandler(final String contextPath, final PrimedInvocationIndex primedInvocations) {
+        this(contextPath, new ResponseHandler(), new RequestMatcher(contextPath), primedInvocations, new MatchDecisionCache(), new PrimerMetrics());
     }
 
     /**
      * Constructs the primed handler for the given context path
+     * @param contextPath the context path of the request being handled
      * @param responseHandler the response handler to use
      * @param requestMatcher the request matcher to use
+     * @param primedInvocations the primed invocations to dispatch to
+     * @param matchDecisionCache the cache of match decisions to use
+     * @param metrics the metrics to record to
      */
     private PrimerRequestHandler(
+            final String contextPath,
             final ResponseHandler responseHandler,
             final RequestMatcher requestMatcher,
-            final List<PrimedInvocation> primedInvocations) {
+            final PrimedInvocationIndex primedInvocations,
+            final MatchDecisionCache matchDecisionCache,
+            final PrimerMetrics metrics) {
+        this.contextPath = contextPath;
         this.responseHandler = responseHandler;
         this.requestMatcher = requestMatcher;
         this.primedInvocations = primedInvocations;
+        this.matchDecisionCache = matchDecisionCache;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the throttle applied to every response that is not otherwise paced
+     * @param defaultThrottle the throttle, or null if responses should not be throttled
+     */
+    void setDefaultThrottle(final Throttle defaultThrottle) {
+        this.defaultThrottle = defaultThrottle;
+    }
+
+    /**
+     * Sets the path on which the metrics are exposed
+     * @param metricsPath the path, relative to the context path, or null if the metrics should not be exposed
+     */
+    void setMetricsPath(final String metricsPath) {
+        this.metricsPath = metricsPath;
+    }
+
+    /**
+     * Sets the journal to which every request is recorded
+     * @param journal the journal, or null if requests should not be recorded
+     */
+    void setJournal(final RequestJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Getter for the journal to which every request is recorded
+     * @return the journal, or null if requests are not recorded
+     */
+    RequestJournal getJournal() {
+        return journal;
     }
 
     /**
@@ -75,50 +152,163 @@ class PrimerRequestHandler implements RequestHandler {
             final HttpServletRequest httpServletRequest,
             final HttpServletResponse httpServletResponse) {
 
-        final HttpServletRequestWrapper requestWrapper = new HttpServletRequestWrapper(httpServletRequest);
+        handle(new HttpServletRequestWrapper(httpServletRequest), httpServletResponse);
+
+    }
+
+    /**
+     * Handles the given HTTP Servlet Request and HTTP Servlet Response, once the request body has been read.
+     * The request is matched and responded to as it would be had the body been read on demand, and the async context
+     * is completed by the response, once it has been issued.
+     * @param httpServletRequest the HTTP servlet request that has been issued
+     * @param httpServletResponse the HTTP servlet response being returned
+     * @param asyncContext the async context that was started to read the request body
+     * @param body the request body
+     */
+    @Override
+    public void handle(
+            final HttpServletRequest httpServletRequest,
+            final HttpServletResponse httpServletResponse,
+            final AsyncContext asyncContext,
+            final byte[] body) {
+
+        handle(new HttpServletRequestWrapper(httpServletRequest, body, asyncContext), httpServletResponse);
+
+    }
 
-        if (!checkPrimedInvocations(new ArrayList(primedInvocations), requestWrapper, httpServletResponse)) {
+    /**
+     * Issues the response of the primed invocation that matches the given request, or a not primed response if none do.
+     * A GET request to the metrics path, if they are exposed, is answered with the metrics instead. Any other request is
+     * recorded to the journal, if there is one, before it is matched.
+     * @param requestWrapper the request wrapper
+     * @param httpServletResponse the HTTP servlet response being returned
+     */
+    private void handle(
+            final HttpServletRequestWrapper requestWrapper,
+            final HttpServletResponse httpServletResponse) {
+
+        final long start = System.nanoTime();
+
+        final String uri = this.requestMatcher.resolveUri(requestWrapper);
+
+        final String metricsPath = this.metricsPath;
+        if (metricsPath != null && metricsPath.equals(uri) && "GET".equals(requestWrapper.getMethod())) {
+            this.responseHandler.respond(new MetricsResponse(), requestWrapper, httpServletResponse);
+            return;
+        }
+
+        final RequestJournal journal = this.journal;
+        if (journal != null) {
+            journal.record(requestWrapper);
+        }
+
+        if (!checkPrimedInvocations(uri, start, requestWrapper, httpServletResponse)) {
             LOGGER.error("PRIMER :-- Request Not Primed. [PrimedInvocations:" + primedInvocations + "]");
-            this.responseHandler.respond(new NotPrimedResponse(), httpServletResponse);
+            final long matched = System.nanoTime();
+            this.metrics.recordMiss(matched - start);
+            this.responseHandler.respond(new NotPrimedResponse(), requestWrapper, httpServletResponse);
+            this.metrics.recordWrite(System.nanoTime() - matched);
         }
 
     }
 
     /**
-     * Recursive function to check whether the given request matches one of the primed invocations
-     * If a match is found, the corresponding response is issued
-     * @param primedInvocationsToCheck the primed invocations to check
+     * Checks whether the given request matches one of the candidate primed invocations for its method and URI.
+     * A decision cached for an identical request is reused while the primed invocations are unchanged. Otherwise the
+     * candidates are checked in the order in which they were primed, and the decision is cached. If a match is found,
+     * the corresponding response is issued
+     * @param uri the URI of the request, relative to the context path
+     * @param start the time, in nanoseconds, at which the request was received
      * @param requestWrapper the request wrapper
      * @param httpServletResponse the HTTP servlet response
      * @return true if one of the primed invocations match the request, false otherwise
      */
     private boolean checkPrimedInvocations(
-            final List<PrimedInvocation> primedInvocationsToCheck,
+            final String uri,
+            final long start,
             final HttpServletRequestWrapper requestWrapper,
             final HttpServletResponse httpServletResponse) {
 
-        if (!primedInvocationsToCheck.isEmpty()) {
+        // the generation is read before the candidates, so that a decision is never cached against a later generation
+        final long generation = primedInvocations.generation();
+        final MatchDecisionCache.Fingerprint fingerprint = matchDecisionCache.fingerprint(requestWrapper, uri, primedInvocations);
 
-            final PrimedInvocation primedInvocationToCheck = primedInvocationsToCheck.remove(0);
+        if (fingerprint != null) {
+            final MatchDecisionCache.Decision decision = matchDecisionCache.get(fingerprint, generation);
+            if (decision != null) {
+                if (decision.getPrimedInvocation() == null) {
+                    return false;
+                }
+                if (respond(decision.getPrimedInvocation(), uri, start, requestWrapper, httpServletResponse)) {
+                    return true;
+                }
+                // exhausted by a concurrent request - fall back to matching the candidates
+            }
+        }
 
-            if (this.requestMatcher.match(primedInvocationToCheck.getRequest(), requestWrapper)) {
+        PrimedInvocation matchedInvocation = null;
 
-                final Response response = primedInvocationToCheck.getResponses().remove(0);
+        for (final PrimedInvocation primedInvocationToCheck : primedInvocations.candidates(requestWrapper.getMethod(), uri)) {
 
-                if (primedInvocationToCheck.getResponses().isEmpty()) {
-                    primedInvocations.remove(primedInvocationToCheck);
-                }
+            if (this.requestMatcher.match(primedInvocationToCheck.getRequest(), requestWrapper)
+                    && respond(primedInvocationToCheck, uri, start, requestWrapper, httpServletResponse)) {
+                matchedInvocation = primedInvocationToCheck;
+                break;
+            }
 
-                this.responseHandler.respond(response, httpServletResponse);
+        }
 
-                return true;
-            }
+        if (fingerprint != null) {
+            matchDecisionCache.put(fingerprint, generation, matchedInvocation);
+        }
 
-            return checkPrimedInvocations(primedInvocationsToCheck, requestWrapper, httpServletResponse);
+        return matchedInvocation != null;
+    }
 
+    /**
+     * Issues the next response of the given primed invocation, which has matched the request
+     * @param primedInvocation the primed invocation that matched the request
+     * @param uri the URI of the request, relative to the context path
+     * @param start the time, in nanoseconds, at which the request was received
+     * @param requestWrapper the request wrapper
+     * @param httpServletResponse the HTTP servlet response
+     * @return true if the response was issued, false if the invocation has been exhausted by a concurrent request
+     */
+    private boolean respond(
+            final PrimedInvocation primedInvocation,
+            final String uri,
+            final long start,
+            final HttpServletRequestWrapper requestWrapper,
+            final HttpServletResponse httpServletResponse) {
+
+        final Response response = primedInvocation.nextResponse();
+
+        if (response == null) {
+            return false;
+        }
+
+        if (primedInvocation.isExhausted()) {
+            primedInvocations.remove(primedInvocation);
         }
 
-        return false;
+        final Matchable primedUri = primedInvocation.getRequest().getURI();
+        if (primedUri instanceof PathTemplateMatchable) {
+            requestWrapper.setPathVariables(((PathTemplateMatchable) primedUri).extract(uri));
+        }
+
+        final long matched = System.nanoTime();
+        this.metrics.recordHit(primedInvocation, matched - start);
+
+        final Throttle throttle = this.defaultThrottle;
+        if (throttle != null && !(response instanceof AsyncResponse)) {
+            this.responseHandler.respond(new ThrottledResponse(response, throttle), requestWrapper, httpServletResponse);
+        } else {
+            this.responseHandler.respond(response, requestWrapper, httpServletResponse);
+        }
+
+        this.metrics.recordWrite(System.nanoTime() - matched);
+
+        return true;
     }
 
     private class NotPrimedResponse implements Response {
@@ -132,4 +322,16 @@ class PrimerRequestHandler implements RequestHandler {
 
     }
 
+    private class MetricsResponse implements Response {
+
+        @Override
+        public void populate(HttpServletResponse httpServletResponse) throws IOException {
+            httpServletResponse.setStatus(HttpStatus.OK_200);
+            httpServletResponse.setContentType(PrimerMetrics.CONTENT_TYPE);
+            httpServletResponse.getWriter().write(metrics.render(contextPath, primedInvocations.size()));
+            httpServletResponse.flushBuffer();
+        }
+
+    }
+
 }
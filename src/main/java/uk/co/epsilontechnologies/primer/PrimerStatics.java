@@ -3,6 +3,9 @@ package uk.co.epsilontechnologies.primer;
 import uk.co.epsilontechnologies.primer.domain.Matchable;
 import uk.co.epsilontechnologies.primer.domain.Pair;
 import uk.co.epsilontechnologies.primer.domain.PrimedRequest;
+import uk.co.epsilontechnologies.primer.server.ServerConfiguration;
+import uk.co.epsilontechnologies.primer.server.ServerConfigurationBuilder;
+import uk.co.epsilontechnologies.primer.server.SharedServer;
 
 import java.lang.reflect.Field;
 import java.util.Arrays;
@@ -52,7 +55,7 @@ public final class PrimerStatics {
                 final Primable primableAnnotation = field.getAnnotation(Primable.class);
                 try {
                     field.setAccessible(true);
-                    field.set(testClass, new Primer(primableAnnotation.contextPath(), primableAnnotation.port()));
+                    field.set(testClass, newPrimer(primableAnnotation));
                 } catch (final IllegalAccessException e) {
                     throw new RuntimeException("Unable to initialize annotated primers", e);
                 }
@@ -60,6 +63,55 @@ public final class PrimerStatics {
         }
     }
 
+    /**
+     * Constructs the primer instance given by the @Primable annotation
+     * @param primableAnnotation the annotation of the primer instance
+     * @return the primer instance
+     */
+    private static Primer newPrimer(final Primable primableAnnotation) {
+        final Primer primer;
+        if (!primableAnnotation.shared()) {
+            primer = new Primer(primableAnnotation.contextPath(), primableAnnotation.port(), configuration(primableAnnotation));
+        } else {
+            final SharedServer sharedServer = SharedServer.on(primableAnnotation.port(), configuration(primableAnnotation));
+            primer = new Primer(sharedServer, primableAnnotation.host().isEmpty() ? null : primableAnnotation.host(), primableAnnotation.contextPath());
+        }
+        if (!primableAnnotation.metricsPath().isEmpty()) {
+            primer.exposeMetrics(primableAnnotation.metricsPath());
+        }
+        if (primableAnnotation.journalCapacity() > 0) {
+            primer.journal(RequestJournal.journal(primableAnnotation.journalCapacity(), primableAnnotation.journalMaxBodyBytes(), primableAnnotation.journalOffHeap()));
+        }
+        return primer;
+    }
+
+    /**
+     * Builds the server configuration given by the @Primable annotation
+     * @param primableAnnotation the annotation of the primer instance
+     * @return the server configuration
+     */
+    private static ServerConfiguration configuration(final Primable primableAnnotation) {
+        final ServerConfigurationBuilder configuration = ServerConfigurationBuilder.configuration()
+                .withMinThreads(primableAnnotation.minThreads())
+                .withMaxThreads(primableAnnotation.maxThreads())
+                .withQueueSize(primableAnnotation.queueSize())
+                .withAcceptors(primableAnnotation.acceptors())
+                .withSelectors(primableAnnotation.selectors())
+                .withAcceptQueueSize(primableAnnotation.acceptQueueSize())
+                .withIdleTimeout(primableAnnotation.idleTimeout())
+                .withTcpNoDelay(primableAnnotation.tcpNoDelay())
+                .withOutputBufferSize(primableAnnotation.outputBufferSize())
+                .withVirtualThreads(primableAnnotation.virtualThreads())
+                .withHttp2(primableAnnotation.http2())
+                .withMaxConcurrentStreams(primableAnnotation.maxConcurrentStreams())
+                .withInitialStreamWindow(primableAnnotation.initialStreamWindow())
+                .withInitialSessionWindow(primableAnnotation.initialSessionWindow());
+        if (primableAnnotation.tlsPort() != ServerConfiguration.DEFAULT) {
+            configuration.withTls(primableAnnotation.tlsPort(), primableAnnotation.keyStorePath(), primableAnnotation.keyStorePassword());
+        }
+        return configuration.build();
+    }
+
     public static Pair<String> pair(final String key, final String value) {
         return new Pair(key, value);
     }
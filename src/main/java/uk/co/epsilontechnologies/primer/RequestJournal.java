@@ -0,0 +1,310 @@
+package uk.co.epsilontechnologies.primer;
+
+import uk.co.epsilontechnologies.primer.domain.HttpServletRequestWrapper;
+import uk.co.epsilontechnologies.primer.domain.Pair;
+import uk.co.epsilontechnologies.primer.domain.RecordedRequest;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded journal of the requests received by a Primer, holding the most recent requests in a ring of slots that are
+ * allocated when the journal is constructed - so that its memory stays fixed however long the Primer runs.
+ * The method, URI, query string and headers of each request are held, along with its body up to a limit. No more of
+ * the body than the limit is read to record it, the rest being left to be read if a matcher requires it. The bodies
+ * are held in a single buffer, which may be allocated off the heap.
+ *
+ * Recording is lock-free - each request claims the next sequence, then its slot, without waiting. A request whose slot
+ * is still being written by a request a full ring earlier, or is being copied by a reader, is dropped and counted
+ * rather than waited for.
+ *
+ * @author Shane Gibson
+ */
+public class RequestJournal {
+
+    /**
+     * The default limit in bytes of the body held for each request
+     */
+    public static final int DEFAULT_MAX_BODY_BYTES = 4096;
+
+    /**
+     * The maximum number of headers held for each request
+     */
+    static final int MAX_HEADERS = 64;
+
+    /**
+     * The state of a slot that holds no request
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * The state of a slot that is being written or read
+     */
+    private static final long BUSY = -2L;
+
+    /**
+     * Statically constructs a journal of the given capacity, holding bodies on the heap up to the default limit
+     * @param capacity the number of requests to hold, rounded up to a power of two
+     * @return the request journal
+     */
+    public static RequestJournal journal(final int capacity) {
+        return new RequestJournal(capacity, DEFAULT_MAX_BODY_BYTES, false);
+    }
+
+    /**
+     * Statically constructs a journal of the given capacity
+     * @param capacity the number of requests to hold, rounded up to a power of two
+     * @param maxBodyBytes the limit in bytes of the body held for each request, beyond which it is truncated
+     * @param offHeap whether the bodies are held in a direct buffer, off the heap
+     * @return the request journal
+     * @throws IllegalArgumentException the capacity is not positive, the limit is negative, or the bodies of every
+     * request exceed the largest buffer that can be allocated
+     */
+    public static RequestJournal journal(final int capacity, final int maxBodyBytes, final boolean offHeap) {
+        return new RequestJournal(capacity, maxBodyBytes, offHeap);
+    }
+
+    /**
+     * The mask that maps a sequence to its slot
+     */
+    private final int mask;
+
+    /**
+     * The limit in bytes of the body held for each request
+     */
+    private final int maxBodyBytes;
+
+    /**
+     * The slots of the ring
+     */
+    private final Slot[] slots;
+
+    /**
+     * The state of each slot - the sequence of the request it holds, or EMPTY or BUSY
+     */
+    private final AtomicLongArray states;
+
+    /**
+     * The sequence to assign to the next request recorded
+     */
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * The number of requests dropped without being recorded
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    RequestJournal(final int capacity, final int maxBodyBytes, final boolean offHeap) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Journal capacity must be between 1 and 2^30: " + capacity);
+        }
+        if (maxBodyBytes < 0) {
+            throw new IllegalArgumentException("Journal body limit must not be negative: " + maxBodyBytes);
+        }
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        if ((long) size * maxBodyBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal bodies exceed the largest buffer: " + size + " x " + maxBodyBytes + " bytes");
+        }
+        this.mask = size - 1;
+        this.maxBodyBytes = maxBodyBytes;
+        this.slots = new Slot[size];
+        this.states = new AtomicLongArray(size);
+        final ByteBuffer bodies = offHeap ? ByteBuffer.allocateDirect(size * maxBodyBytes) : ByteBuffer.allocate(size * maxBodyBytes);
+        for (int i = 0; i < size; i++) {
+            // positioned as a Buffer, whose methods return Buffer on every runtime from Java 8
+            ((Buffer) bodies).limit((i + 1) * maxBodyBytes).position(i * maxBodyBytes);
+            this.slots[i] = new Slot(bodies.slice());
+            this.states.set(i, EMPTY);
+        }
+    }
+
+    /**
+     * Records the given request, overwriting the oldest request held once the journal is full
+     * @param requestWrapper the request to record
+     */
+    void record(final HttpServletRequestWrapper requestWrapper) {
+        // the body is read before the slot is claimed, so that a slow client never holds a slot - and only as far as
+        // the limit (and a byte beyond it, to tell whether it is truncated), leaving the rest to be read if it is matched
+        final byte[] body = requestWrapper.getBodyPrefix((int) Math.min(maxBodyBytes + 1L, Integer.MAX_VALUE));
+        final int bodyLength = bodyLength(requestWrapper, body);
+        final long timestamp = System.currentTimeMillis();
+
+        final long sequence = nextSequence.getAndIncrement();
+        final int index = (int) (sequence & mask);
+        final long state = states.get(index);
+        if (state == BUSY || state > sequence || !states.compareAndSet(index, state, BUSY)) {
+            dropped.increment();
+            return;
+        }
+
+        boolean recorded = false;
+        try {
+            slots[index].write(requestWrapper, timestamp, body, bodyLength);
+            recorded = true;
+        } finally {
+            states.set(index, recorded ? sequence : EMPTY);
+        }
+    }
+
+    /**
+     * Copies the requests held by the journal
+     * @return the requests held by the journal, in the order in which they were received
+     */
+    public List<RecordedRequest> getRequests() {
+        final long next = nextSequence.get();
+        final List<RecordedRequest> requests = new ArrayList<>((int) Math.min(next, slots.length));
+        for (long sequence = Math.max(0, next - slots.length); sequence < next; sequence++) {
+            final int index = (int) (sequence & mask);
+            // a slot that has moved on, or is being written, no longer holds the request of this sequence
+            if (states.compareAndSet(index, sequence, BUSY)) {
+                try {
+                    requests.add(slots[index].read(sequence));
+                } finally {
+                    states.set(index, sequence);
+                }
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * Getter for the number of requests that have been received, whether or not they are still held
+     * @return the number of requests that have been received
+     */
+    public long getReceived() {
+        return nextSequence.get();
+    }
+
+    /**
+     * Getter for the number of requests that were dropped without being recorded
+     * @return the number of requests that were dropped
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Getter for the number of requests that the journal holds once full
+     * @return the capacity of the journal
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Getter for the limit in bytes of the body held for each request
+     * @return the limit in bytes of the body held for each request
+     */
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * Discards the requests held by the journal. Requests being recorded concurrently may be retained.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            final long state = states.get(i);
+            if (state >= 0 && states.compareAndSet(i, state, BUSY)) {
+                slots[i].clear();
+                states.set(i, EMPTY);
+            }
+        }
+    }
+
+    /**
+     * Determines the length of the body of the given request, of which the given bytes have been read
+     * @param requestWrapper the request
+     * @param body the bytes of the body that have been read
+     * @return the length of the body once it has been read in full, otherwise its declared length, otherwise (for a body
+     * of undeclared length that has been truncated) the number of bytes read, which is beyond the limit
+     */
+    private static int bodyLength(final HttpServletRequestWrapper requestWrapper, final byte[] body) {
+        if (requestWrapper.isBodyRead()) {
+            return body.length;
+        }
+        final long contentLength = requestWrapper.getContentLengthLong();
+        return contentLength >= 0 ? (int) Math.min(contentLength, Integer.MAX_VALUE) : body.length;
+    }
+
+    /**
+     * A slot of the ring, written only by the request that has claimed it
+     */
+    private static class Slot {
+
+        private final String[] headers = new String[MAX_HEADERS * 2];
+
+        private final ByteBuffer body;
+
+        private long timestamp;
+
+        private String method;
+
+        private String uri;
+
+        private String queryString;
+
+        private int headerCount;
+
+        private int bodyLength;
+
+        private Slot(final ByteBuffer body) {
+            this.body = body;
+        }
+
+        private void write(final HttpServletRequestWrapper requestWrapper, final long timestamp, final byte[] body, final int bodyLength) {
+            this.timestamp = timestamp;
+            this.method = requestWrapper.getMethod();
+            this.uri = requestWrapper.getRequestURI();
+            this.queryString = requestWrapper.getQueryString();
+            int count = 0;
+            final Enumeration<String> headerNames = requestWrapper.getHeaderNames();
+            while (headerNames != null && headerNames.hasMoreElements() && count < MAX_HEADERS) {
+                final String name = headerNames.nextElement();
+                final Enumeration<String> values = requestWrapper.getHeaders(name);
+                while (values != null && values.hasMoreElements() && count < MAX_HEADERS) {
+                    headers[count * 2] = name;
+                    headers[count * 2 + 1] = values.nextElement();
+                    count++;
+                }
+            }
+            for (int i = count * 2; i < headerCount * 2; i++) {
+                headers[i] = null;
+            }
+            this.headerCount = count;
+            this.bodyLength = bodyLength;
+            ((Buffer) this.body).clear();
+            this.body.put(body, 0, Math.min(body.length, this.body.capacity()));
+        }
+
+        private RecordedRequest read(final long sequence) {
+            final List<Pair<String>> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                headers.add(new Pair<>(this.headers[i * 2], this.headers[i * 2 + 1]));
+            }
+            final byte[] body = new byte[Math.min(bodyLength, this.body.capacity())];
+            ((Buffer) this.body).clear();
+            this.body.get(body);
+            return new RecordedRequest(sequence, timestamp, method, uri, queryString, headers, body, bodyLength);
+        }
+
+        private void clear() {
+            this.method = null;
+            this.uri = null;
+            this.queryString = null;
+            for (int i = 0; i < headerCount * 2; i++) {
+                headers[i] = null;
+            }
+            this.headerCount = 0;
+            this.bodyLength = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,23 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * A response that is populated asynchronously, so that it does not hold a server thread while it is written.
+ * The response is responsible for completing the async context once it has been populated.
+ *
+ * @author Shane Gibson
+ */
+public interface AsyncResponse extends Response {
+
+    /**
+     * Starts populating the given HTTP servlet response, within the given async context
+     * @param asyncContext the async context of the request, to be completed once the response has been populated
+     * @param httpServletResponse the HTTP servlet response to populate
+     * @throws IOException an IO exception occurred
+     */
+    void populate(AsyncContext asyncContext, HttpServletResponse httpServletResponse) throws IOException;
+
+}
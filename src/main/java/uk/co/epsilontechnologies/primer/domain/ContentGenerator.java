@@ -0,0 +1,19 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+/**
+ * Generates the content of a streaming response on demand, a chunk at a time.
+ * Implementations must be thread-safe, as the same generator serves every response that it is primed for.
+ *
+ * @author Shane Gibson
+ */
+public interface ContentGenerator {
+
+    /**
+     * Generates the content at the given position of the stream into the given chunk
+     * @param position the position of the first byte of the chunk within the stream
+     * @param chunk the chunk to fill
+     * @param length the number of bytes of the chunk to fill
+     */
+    void generate(long position, byte[] chunk, int length);
+
+}
@@ -0,0 +1,140 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution of the delays (in milliseconds) applied to a primed response.
+ * Implementations are thread-safe, drawing from the random number generator of the calling thread.
+ *
+ * @author Shane Gibson
+ */
+public abstract class DelayDistribution {
+
+    /**
+     * Statically constructs a distribution that always delays by the same amount
+     * @param delay the delay in milliseconds
+     * @return the fixed delay distribution
+     */
+    public static DelayDistribution fixed(final long delay) {
+        requireNonNegative(delay, "delay");
+        return new DelayDistribution() {
+            @Override
+            public long nextDelay() {
+                return delay;
+            }
+        };
+    }
+
+    /**
+     * Statically constructs a distribution of delays spread evenly between the given bounds
+     * @param minimum the minimum delay in milliseconds
+     * @param maximum the maximum delay in milliseconds
+     * @return the uniform delay distribution
+     */
+    public static DelayDistribution uniform(final long minimum, final long maximum) {
+        requireNonNegative(minimum, "minimum");
+        if (maximum < minimum) {
+            throw new IllegalArgumentException("Maximum must not be less than minimum: " + maximum + " < " + minimum);
+        }
+        return new DelayDistribution() {
+            @Override
+            public long nextDelay() {
+                return minimum + (long) (ThreadLocalRandom.current().nextDouble() * (maximum - minimum + 1));
+            }
+        };
+    }
+
+    /**
+     * Statically constructs a normal distribution of delays, truncated at zero
+     * @param mean the mean delay in milliseconds
+     * @param standardDeviation the standard deviation of the delay in milliseconds
+     * @return the normal delay distribution
+     */
+    public static DelayDistribution normal(final double mean, final double standardDeviation) {
+        requireNonNegative(standardDeviation, "standardDeviation");
+        return new DelayDistribution() {
+            @Override
+            public long nextDelay() {
+                return Math.max(0, Math.round(mean + standardDeviation * ThreadLocalRandom.current().nextGaussian()));
+            }
+        };
+    }
+
+    /**
+     * Statically constructs a log-normal distribution of delays - the long-tailed shape typical of service latencies
+     * @param median the median delay in milliseconds
+     * @param sigma the standard deviation of the natural logarithm of the delay
+     * @return the log-normal delay distribution
+     */
+    public static DelayDistribution logNormal(final double median, final double sigma) {
+        if (median <= 0) {
+            throw new IllegalArgumentException("Median must be positive: " + median);
+        }
+        requireNonNegative(sigma, "sigma");
+        final double mu = Math.log(median);
+        return new DelayDistribution() {
+            @Override
+            public long nextDelay() {
+                return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+            }
+        };
+    }
+
+    /**
+     * Statically constructs a distribution of delays from recorded percentiles, such as those of a latency histogram.
+     * Delays between the given percentiles are interpolated linearly, and the 0th percentile is taken to be zero
+     * unless it is given.
+     * @param percentiles the delay in milliseconds at each percentile (0 to 100), which must not decrease
+     * @return the percentile delay distribution
+     */
+    public static DelayDistribution percentiles(final Map<Double,Long> percentiles) {
+        final SortedMap<Double,Long> sorted = new TreeMap<>(percentiles);
+        if (sorted.isEmpty() || sorted.firstKey() < 0 || sorted.lastKey() > 100) {
+            throw new IllegalArgumentException("Percentiles must be between 0 and 100: " + percentiles);
+        }
+        if (sorted.firstKey() > 0) {
+            sorted.put(0d, 0L);
+        }
+        final double[] points = new double[sorted.size()];
+        final long[] delays = new long[sorted.size()];
+        int index = 0;
+        for (final Map.Entry<Double,Long> entry : sorted.entrySet()) {
+            if (index > 0 && entry.getValue() < delays[index - 1]) {
+                throw new IllegalArgumentException("Delays must not decrease with percentile: " + percentiles);
+            }
+            points[index] = entry.getKey();
+            delays[index++] = entry.getValue();
+        }
+        return new DelayDistribution() {
+            @Override
+            public long nextDelay() {
+                if (points.length == 1) {
+                    return delays[0];
+                }
+                final double point = ThreadLocalRandom.current().nextDouble() * points[points.length - 1];
+                int upper = 1;
+                while (upper < points.length - 1 && points[upper] < point) {
+                    upper++;
+                }
+                final double fraction = (point - points[upper - 1]) / (points[upper] - points[upper - 1]);
+                return Math.round(delays[upper - 1] + fraction * (delays[upper] - delays[upper - 1]));
+            }
+        };
+    }
+
+    /**
+     * Draws the next delay from the distribution
+     * @return the delay in milliseconds, never negative
+     */
+    public abstract long nextDelay();
+
+    private static void requireNonNegative(final double value, final String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must not be negative: " + value);
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A primed response that is issued after a delay drawn from a delay distribution.
+ *
+ * The request is suspended for the delay, rather than holding a server thread: a timer resumes it once the delay has
+ * elapsed, and the delegate response is then populated on a server thread. Delayed requests in flight therefore cost
+ * a timer each, rather than a thread each.
+ *
+ * @author Shane Gibson
+ */
+public class DelayedResponse implements AsyncResponse {
+
+    /**
+     * Logger to use for error / warn / debug logging
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(DelayedResponse.class);
+
+    /**
+     * The response to issue once the delay has elapsed
+     */
+    private final Response response;
+
+    /**
+     * The distribution from which each delay is drawn
+     */
+    private final DelayDistribution delayDistribution;
+
+    /**
+     * Constructs the delayed response for the given response and delay distribution
+     * @param response the response to issue once the delay has elapsed
+     * @param delayDistribution the distribution from which each delay is drawn
+     */
+    public DelayedResponse(final Response response, final DelayDistribution delayDistribution) {
+        this.response = response;
+        this.delayDistribution = delayDistribution;
+    }
+
+    /**
+     * Getter for the response to issue once the delay has elapsed
+     * @return the delegate response
+     */
+    public Response getResponse() {
+        return response;
+    }
+
+    /**
+     * Getter for the distribution from which each delay is drawn
+     * @return the delay distribution
+     */
+    public DelayDistribution getDelayDistribution() {
+        return delayDistribution;
+    }
+
+    /**
+     * Populates the given Http Servlet Response with the delegate response, after sleeping for the delay.
+     * Used only where the request cannot be suspended.
+     * @param httpServletResponse the HTTP servlet response to populate
+     * @throws IOException the response could not be populated
+     */
+    @Override
+    public void populate(final HttpServletResponse httpServletResponse) throws IOException {
+        try {
+            Thread.sleep(delayDistribution.nextDelay());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        response.populate(httpServletResponse);
+    }
+
+    /**
+     * Suspends the request for the delay, then populates the given Http Servlet Response with the delegate response
+     * @param asyncContext the async context of the request
+     * @param httpServletResponse the HTTP servlet response to populate
+     */
+    @Override
+    public void populate(final AsyncContext asyncContext, final HttpServletResponse httpServletResponse) {
+        ResponseScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                asyncContext.start(new Runnable() {
+                    @Override
+                    public void run() {
+                        resume(asyncContext, httpServletResponse);
+                    }
+                });
+            }
+        }, delayDistribution.nextDelay(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @see Object#toString()
+     * @return the string representation of the response
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+    /**
+     * Populates the response once the delay has elapsed, completing the async context unless the delegate response
+     * is itself asynchronous
+     */
+    private void resume(final AsyncContext asyncContext, final HttpServletResponse httpServletResponse) {
+        try {
+            if (response instanceof AsyncResponse) {
+                ((AsyncResponse) response).populate(asyncContext, httpServletResponse);
+                return;
+            }
+            if (response instanceof RequestAwareResponse && asyncContext.getRequest() instanceof HttpServletRequestWrapper) {
+                ((RequestAwareResponse) response).populate((HttpServletRequestWrapper) asyncContext.getRequest(), httpServletResponse);
+            } else {
+                response.populate(httpServletResponse);
+            }
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.error("PRIMER :-- Failed to issue delayed response", e);
+        }
+        asyncContext.complete();
+    }
+
+}
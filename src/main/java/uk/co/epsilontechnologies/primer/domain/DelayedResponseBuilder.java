@@ -0,0 +1,38 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+/**
+ * Builder for a primed response that is issued after a delay drawn from a delay distribution.
+ *
+ * @author Shane Gibson
+ */
+public class DelayedResponseBuilder implements ResponseBuilder {
+
+    public static DelayedResponseBuilder delayed(final ResponseBuilder responseBuilder, final DelayDistribution delayDistribution) {
+        return new DelayedResponseBuilder(responseBuilder, delayDistribution);
+    }
+
+    public static DelayedResponseBuilder delayed(final ResponseBuilder responseBuilder, final long delay) {
+        return new DelayedResponseBuilder(responseBuilder, DelayDistribution.fixed(delay));
+    }
+
+    /**
+     * The builder of the response to issue once the delay has elapsed
+     */
+    private final ResponseBuilder responseBuilder;
+
+    /**
+     * The distribution from which each delay is drawn
+     */
+    private final DelayDistribution delayDistribution;
+
+    private DelayedResponseBuilder(final ResponseBuilder responseBuilder, final DelayDistribution delayDistribution) {
+        this.responseBuilder = responseBuilder;
+        this.delayDistribution = delayDistribution;
+    }
+
+    @Override
+    public Response build() {
+        return new DelayedResponse(responseBuilder.build(), delayDistribution);
+    }
+
+}
@@ -0,0 +1,364 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.eclipse.jetty.server.HttpOutput;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Instance of a HTTP Response that has been programmed, whose body is the content of a file or classpath resource.
+ * This will be returned if the by the primer if the associated request is matched.
+ *
+ * The content is never held on the heap. A file (including a classpath resource that resolves to a file) is mapped
+ * into memory the first time it is served, and each response hands the mapped buffer to Jetty to write directly.
+ * Content larger than can be mapped in one buffer, or held within an archive, is streamed. When throttled, a file is
+ * sliced a chunk at a time from the mapping rather than captured. The Content-Length is always set from the size of
+ * the content. The content is expected not to change once it has been primed.
+ *
+ * The mapping is held softly, so it is released once the response is no longer primed (when the stubs are reset or
+ * exhausted), or earlier under memory pressure, at which point it is mapped again the next time it is served. As for
+ * any mapped buffer, the memory is unmapped by the garbage collector rather than at the moment it is released.
+ *
+ * @author Shane Gibson
+ */
+public class FileResponse implements Response {
+
+    /**
+     * The HTTP status of the response
+     */
+    private final int status;
+
+    /**
+     * The content type of the response
+     */
+    private final String contentType;
+
+    /**
+     * The file whose content is the body of the response, or null if the body is a classpath resource in an archive
+     */
+    private final Path path;
+
+    /**
+     * The classpath resource whose content is the body of the response, or null if the body is a file
+     */
+    private final URL resource;
+
+    /**
+     * The headers of the response
+     */
+    private final Map<String,String> headers;
+
+    /**
+     * The cookies of the response
+     */
+    private final Map<String,String> cookies;
+
+    /**
+     * The size of each window mapped, a chunk at a time, from a file too large to map in a single buffer
+     */
+    private static final int MAPPED_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The content of the file, mapped into memory the first time that it is served, and held softly
+     */
+    private volatile SoftReference<ByteBuffer> mappedContent = new SoftReference<>(null);
+
+    /**
+     * Constructs the response for the given status, content type, file and headers
+     * @param status the HTTP status of the response
+     * @param contentType the content type of the response
+     * @param file the file whose content is the body of the response
+     * @param headers the headers of the response
+     * @param cookies the cookies of the response
+     * @throws IllegalArgumentException the file cannot be read
+     */
+    public FileResponse(
+            final int status,
+            final String contentType,
+            final File file,
+            final Map<String,String> headers,
+            final Map<String,String> cookies) {
+        if (file == null || !file.isFile() || !file.canRead()) {
+            throw new IllegalArgumentException("Unreadable response file: " + file);
+        }
+        this.status = status;
+        this.contentType = contentType;
+        this.path = file.toPath();
+        this.resource = null;
+        this.headers = headers == null ? Collections.<String,String>emptyMap() : headers;
+        this.cookies = cookies == null ? Collections.<String,String>emptyMap() : cookies;
+    }
+
+    /**
+     * Constructs the response for the given status, content type, classpath resource and headers
+     * @param status the HTTP status of the response
+     * @param contentType the content type of the response
+     * @param resourceName the name of the classpath resource whose content is the body of the response
+     * @param headers the headers of the response
+     * @param cookies the cookies of the response
+     * @throws IllegalArgumentException the classpath resource does not exist
+     */
+    public FileResponse(
+            final int status,
+            final String contentType,
+            final String resourceName,
+            final Map<String,String> headers,
+            final Map<String,String> cookies) {
+        final URL url = resourceName == null ? null : Thread.currentThread().getContextClassLoader().getResource(resourceName);
+        if (url == null) {
+            throw new IllegalArgumentException("Unknown response resource: " + resourceName);
+        }
+        this.status = status;
+        this.contentType = contentType;
+        this.path = toPath(url);
+        this.resource = this.path == null ? url : null;
+        this.headers = headers == null ? Collections.<String,String>emptyMap() : headers;
+        this.cookies = cookies == null ? Collections.<String,String>emptyMap() : cookies;
+    }
+
+    /**
+     * Getter for the HTTP status of the response
+     * @return the HTTP status of the response
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter for the Content-Type of the response
+     * @return the Content-Type of the response
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Getter for the headers of the response
+     * @return the headers of the response
+     */
+    public Map<String,String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Getter for the cookies of the response
+     * @return the cookies of the response
+     */
+    public Map<String,String> getCookies() {
+        return cookies;
+    }
+
+    /**
+     * Populates the given Http Servlet Response with this Response's data, sending the content of the file or
+     * classpath resource as the body.
+     * @param httpServletResponse the HTTP servlet response to populate
+     * @throws IOException the content could not be read or written
+     */
+    @Override
+    public void populate(final HttpServletResponse httpServletResponse) throws IOException {
+        populateHead(httpServletResponse);
+        if (path != null) {
+            sendFile(httpServletResponse);
+        } else {
+            sendResource(httpServletResponse);
+        }
+    }
+
+    /**
+     * Populates the given Http Servlet Response with this Response's status and headers, including the Content-Length,
+     * leaving the body to be read a chunk at a time from the returned source - so that a throttled file is never
+     * captured on the heap. Chunks are sliced from the mapped content, or from windows of it if the file is too large
+     * to map in a single buffer.
+     * @param httpServletResponse the HTTP servlet response to populate
+     * @return the source of the body, or null (leaving the response untouched) if the body is a classpath resource in
+     * an archive, which can only be streamed
+     * @throws IOException the file could not be mapped
+     */
+    PacedWriter.ChunkSource populateChunked(final HttpServletResponse httpServletResponse) throws IOException {
+        if (path == null) {
+            return null;
+        }
+        final ByteBuffer content = mappedContent();
+        final long size = content != null ? content.remaining() : Files.size(path);
+        populateHead(httpServletResponse);
+        httpServletResponse.setContentLengthLong(size);
+        return content != null ? chunkSource(content) : chunkSource(path, size, MAPPED_WINDOW_SIZE);
+    }
+
+    /**
+     * @see Object#toString()
+     * @return the string representation of the response
+     */
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("status", status)
+                .append("contentType", contentType)
+                .append("body", path != null ? path : resource)
+                .append("headers", headers)
+                .append("cookies", cookies)
+                .toString();
+    }
+
+    private void populateHead(final HttpServletResponse httpServletResponse) {
+        for (final Map.Entry<String,String> header : headers.entrySet()) {
+            httpServletResponse.addHeader(header.getKey(), header.getValue());
+        }
+        for (final Map.Entry<String,String> cookie : cookies.entrySet()) {
+            httpServletResponse.addCookie(new Cookie(cookie.getKey(), cookie.getValue()));
+        }
+        httpServletResponse.setStatus(status);
+        httpServletResponse.setContentType(contentType);
+    }
+
+    private void sendFile(final HttpServletResponse httpServletResponse) throws IOException {
+        final ByteBuffer content = mappedContent();
+        final ServletOutputStream outputStream;
+        if (content != null) {
+            httpServletResponse.setContentLengthLong(content.remaining());
+            outputStream = httpServletResponse.getOutputStream();
+            if (outputStream instanceof HttpOutput) {
+                ((HttpOutput) outputStream).sendContent(content);
+                return;
+            }
+        } else {
+            httpServletResponse.setContentLengthLong(Files.size(path));
+            outputStream = httpServletResponse.getOutputStream();
+            if (outputStream instanceof HttpOutput) {
+                try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    ((HttpOutput) outputStream).sendContent(channel);
+                }
+                return;
+            }
+        }
+        Files.copy(path, outputStream);
+        httpServletResponse.flushBuffer();
+    }
+
+    private void sendResource(final HttpServletResponse httpServletResponse) throws IOException {
+        final URLConnection connection = resource.openConnection();
+        final long contentLength = connection.getContentLengthLong();
+        if (contentLength >= 0) {
+            httpServletResponse.setContentLengthLong(contentLength);
+        }
+        try (final InputStream inputStream = connection.getInputStream()) {
+            final ServletOutputStream outputStream = httpServletResponse.getOutputStream();
+            if (outputStream instanceof HttpOutput) {
+                ((HttpOutput) outputStream).sendContent(inputStream);
+                return;
+            }
+            IOUtils.copy(inputStream, outputStream);
+        }
+        httpServletResponse.flushBuffer();
+    }
+
+    /**
+     * Maps the content of the file into memory, the first time that it is required or once the mapping has been released
+     * @return a view of the mapped content, or null if the file is too large to map in a single buffer
+     * @throws IOException the file could not be mapped
+     */
+    private ByteBuffer mappedContent() throws IOException {
+        ByteBuffer content = mappedContent.get();
+        if (content == null) {
+            try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    return null;
+                }
+                content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mappedContent = new SoftReference<>(content);
+        }
+        // each response consumes its own view, leaving the mapped buffer untouched
+        return content.asReadOnlyBuffer();
+    }
+
+    /**
+     * Creates the source of chunks sliced from the given mapped content
+     * @param content a view of the mapped content, consumed by the source
+     * @return the source of the chunks
+     */
+    private static PacedWriter.ChunkSource chunkSource(final ByteBuffer content) {
+        return new PacedWriter.ChunkSource() {
+            @Override
+            public int read(final long position, final byte[] chunk) {
+                if (position >= content.limit()) {
+                    return -1;
+                }
+                ((Buffer) content).position((int) position);
+                final int length = Math.min(chunk.length, content.remaining());
+                content.get(chunk, 0, length);
+                return length;
+            }
+        };
+    }
+
+    /**
+     * Creates the source of chunks sliced from windows of the given file, each window mapped as the chunks reach it -
+     * for a file too large to map in a single buffer. The channel is closed as soon as each window is mapped, so no
+     * file is left open if the response is abandoned.
+     * @param path the file
+     * @param size the size of the file
+     * @param windowSize the size of each mapped window
+     * @return the source of the chunks
+     */
+    static PacedWriter.ChunkSource chunkSource(final Path path, final long size, final int windowSize) {
+        return new PacedWriter.ChunkSource() {
+
+            private ByteBuffer window;
+
+            private long windowStart;
+
+            @Override
+            public int read(final long position, final byte[] chunk) {
+                if (position >= size) {
+                    return -1;
+                }
+                if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+                    try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+                        windowStart = position;
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                ((Buffer) window).position((int) (position - windowStart));
+                final int length = Math.min(chunk.length, window.remaining());
+                window.get(chunk, 0, length);
+                return length;
+            }
+
+        };
+    }
+
+    private static Path toPath(final URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return Paths.get(url.toURI());
+        } catch (final URISyntaxException e) {
+            return null;
+        }
+    }
+
+}
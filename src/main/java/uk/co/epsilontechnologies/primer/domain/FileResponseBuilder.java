@@ -0,0 +1,97 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builder for a HTTP Response whose body is the content of a file or classpath resource.
+ * This will be returned if the by the primer if the associated request is matched.
+ *
+ * @author Shane Gibson
+ */
+public class FileResponseBuilder implements ResponseBuilder {
+
+    public static FileResponseBuilder file(final int status, final String contentType, final File file) {
+        return new FileResponseBuilder(status, contentType, file, null);
+    }
+
+    public static FileResponseBuilder file(final int status, final String contentType, final String path) {
+        return new FileResponseBuilder(status, contentType, new File(path), null);
+    }
+
+    public static FileResponseBuilder resource(final int status, final String contentType, final String resourceName) {
+        return new FileResponseBuilder(status, contentType, null, resourceName);
+    }
+
+    /**
+     * The HTTP status of the response
+     */
+    private final int status;
+
+    /**
+     * The content type of the response
+     */
+    private final String contentType;
+
+    /**
+     * The file whose content is the body of the response
+     */
+    private final File file;
+
+    /**
+     * The name of the classpath resource whose content is the body of the response
+     */
+    private final String resourceName;
+
+    /**
+     * The headers of the response
+     */
+    private final Map<String,String> headers = new HashMap<>();
+
+    /**
+     * The cookies of the response
+     */
+    private final Map<String,String> cookies = new HashMap<>();
+
+    private FileResponseBuilder(final int status, final String contentType, final File file, final String resourceName) {
+        this.status = status;
+        this.contentType = contentType;
+        this.file = file;
+        this.resourceName = resourceName;
+    }
+
+    public FileResponseBuilder withHeader(final String name, final String value) {
+        this.headers.put(name, value);
+        return this;
+    }
+
+    public FileResponseBuilder withCookie(final String name, final String value) {
+        this.cookies.put(name, value);
+        return this;
+    }
+
+    public FileResponseBuilder withHeaders(final List<Pair<String>> headers) {
+        for (final Pair<String> pair : headers) {
+            this.headers.put(pair.getKey(), pair.getValue());
+        }
+        return this;
+    }
+
+    public FileResponseBuilder withCookies(final List<Pair<String>> cookies) {
+        for (final Pair<String> pair : cookies) {
+            this.cookies.put(pair.getKey(), pair.getValue());
+        }
+        return this;
+    }
+
+    @Override
+    public Response build() {
+        if (file != null) {
+            return new FileResponse(status, contentType, file, new HashMap<>(headers), new HashMap<>(cookies));
+        }
+        return new FileResponse(status, contentType, resourceName, new HashMap<>(headers), new HashMap<>(cookies));
+    }
+
+}
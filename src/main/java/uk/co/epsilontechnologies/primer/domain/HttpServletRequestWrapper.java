@@ -2,75 +2,279 @@ package uk.co.epsilontechnologies.primer.domain;
 
 import org.apache.commons.io.IOUtils;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
- * Wrapper for the HTTP Servlet Request, streaming the request content into a local cache.
+ * Wrapper for the HTTP Servlet Request, caching the request content the first time that it is inspected.
  * This enables multiple inspections of the request body and also exposes convenient access to Parameters and Headers.
+ * The views of the Parameters, Headers and Cookies are likewise built once, the first time that they are inspected.
+ * Requests that are never inspected beyond their method, URI, headers and cookies never read their content at all.
+ * Requests whose content has already been read without blocking are wrapped together with that content and with the
+ * async context that was started to read it.
  *
  * @author Shane Gibson
  */
 public class HttpServletRequestWrapper extends javax.servlet.http.HttpServletRequestWrapper {
 
     /**
-     * The request body as a String
+     * The charset used to decode the request body when the request does not declare one
      */
-    private final String body;
+    private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * The content type of form submissions, whose content the container would otherwise consume as parameters
+     */
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+    /**
+     * The request body as bytes, read on demand
+     */
+    private byte[] bodyBytes;
+
+    /**
+     * The start of the request body, read ahead of the rest of it, or null if none has been read ahead
+     */
+    private byte[] bodyPrefix;
+
+    /**
+     * The request body as a String, decoded on demand
+     */
+    private String body;
+
+    /**
+     * The async context that was started to read the request body, or null if the request is synchronous
+     */
+    private final AsyncContext asyncContext;
+
+    /**
+     * The parameters of the request, holding the first value of each - built on demand
+     */
+    private Map<String,String> parameters;
+
+    /**
+     * The parameters of the request, holding every value of each - built on demand
+     */
+    private Map<String,List<String>> parameterValues;
+
+    /**
+     * The headers of the request, holding the first value of each - built on demand
+     */
+    private Map<String,String> headers;
+
+    /**
+     * The headers of the request, holding every value of each - built on demand
+     */
+    private Map<String,List<String>> headerValues;
+
+    /**
+     * The cookies of the request - built on demand
+     */
+    private Map<String,String> cookies;
+
+    /**
+     * The path variables captured by the primed request that matched this request
+     */
+    private Map<String,String> pathVariables = Collections.emptyMap();
 
     /**
      * Constructs the HttpServletRequestWrapper for the given HttpServletRequest
      * @param httpServletRequest the request to wrap
      */
     public HttpServletRequestWrapper(final HttpServletRequest httpServletRequest) {
+        this(httpServletRequest, null, null);
+    }
+
+    /**
+     * Constructs the HttpServletRequestWrapper for the given HttpServletRequest, whose body has already been read
+     * @param httpServletRequest the request to wrap
+     * @param bodyBytes the request content that has already been read, or null if it should be read on demand
+     * @param asyncContext the async context that was started to read the request content, or null if none was started
+     */
+    public HttpServletRequestWrapper(final HttpServletRequest httpServletRequest, final byte[] bodyBytes, final AsyncContext asyncContext) {
         super(httpServletRequest);
+        this.bodyBytes = bodyBytes;
+        this.asyncContext = asyncContext;
+    }
+
+    /**
+     * Exposes the request content as bytes, reading it from the request the first time that it is required
+     * @return the request content
+     */
+    public byte[] getBodyBytes() {
+        if (bodyBytes == null) {
+            try {
+                final byte[] rest = IOUtils.toByteArray(super.getInputStream());
+                if (bodyPrefix == null) {
+                    bodyBytes = rest;
+                } else {
+                    bodyBytes = Arrays.copyOf(bodyPrefix, bodyPrefix.length + rest.length);
+                    System.arraycopy(rest, 0, bodyBytes, bodyPrefix.length, rest.length);
+                    bodyPrefix = null;
+                }
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return bodyBytes;
+    }
+
+    /**
+     * Exposes the start of the request content, reading no more than the given number of bytes of it from the request.
+     * The rest remains to be read on demand, so the content is still exposed in full by getBodyBytes.
+     * @param limit the number of bytes of the request content required
+     * @return the request content, if it has been read in full (as it is once its end is found within the limit),
+     * otherwise its first bytes up to the limit
+     */
+    public byte[] getBodyPrefix(final int limit) {
+        if (bodyBytes != null || bodyPrefix != null && bodyPrefix.length >= limit) {
+            return bodyBytes != null ? bodyBytes : bodyPrefix;
+        }
         try {
-            this.body = IOUtils.toString(httpServletRequest.getInputStream());
+            // a body of declared length needs no more room than that length, and a byte to find its end
+            final long contentLength = super.getContentLengthLong();
+            final int size = contentLength >= 0 && contentLength < limit ? (int) contentLength + 1 : limit;
+            final int start = bodyPrefix == null ? 0 : bodyPrefix.length;
+            final byte[] prefix = bodyPrefix == null ? new byte[size] : Arrays.copyOf(bodyPrefix, size);
+            final InputStream inputStream = super.getInputStream();
+            int length = start;
+            int read = 0;
+            while (length < size && (read = inputStream.read(prefix, length, size - length)) >= 0) {
+                length += read;
+            }
+            if (read < 0) {
+                // the end of the content has been reached, so it has been read in full
+                bodyBytes = Arrays.copyOf(prefix, length);
+                bodyPrefix = null;
+                return bodyBytes;
+            }
+            bodyPrefix = prefix;
+            return bodyPrefix;
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Exposes the request content as a string
+     * Determines whether the request content has already been read - by a matcher, or before the request was handled
+     * @return true if the request content has been read, false if it would be read on demand
+     */
+    public boolean isBodyRead() {
+        return bodyBytes != null;
+    }
+
+    /**
+     * Exposes the request content as a string, decoded with the charset of the Content-Type (or UTF-8 if none is given)
      * @return the request content
      */
     public String getBody() {
+        if (body == null) {
+            body = new String(getBodyBytes(), getBodyCharset());
+        }
         return body;
     }
 
     /**
-     * Exposes the request parameters as a map of key / value pairs
+     * Determines the charset of the request content
+     * @return the charset given by the Content-Type of the request, or UTF-8 if none (or an unsupported charset) is given
+     */
+    public Charset getBodyCharset() {
+        final String characterEncoding = super.getCharacterEncoding();
+        if (characterEncoding != null) {
+            try {
+                return Charset.forName(characterEncoding);
+            } catch (final IllegalCharsetNameException | UnsupportedCharsetException e) {
+                return DEFAULT_CHARSET;
+            }
+        }
+        return DEFAULT_CHARSET;
+    }
+
+    /**
+     * Exposes the request parameters as a map of key / value pairs, holding the first value of each parameter
      * @return the parameters as a map of key / value pairs
      */
     public Map<String, String> getParametersAsMap() {
-        final Enumeration<String> parameterNames = super.getParameterNames();
-        final Map<String,String> result = new HashMap<>();
-        while (parameterNames.hasMoreElements()) {
-            final String name = parameterNames.nextElement();
-            final String value = getParameter(name);
-            result.put(name, value);
+        if (parameters == null) {
+            parameters = firstValues(getParameterValuesAsMap(), new HashMap<String,String>());
         }
-        return result;
+        return parameters;
     }
 
     /**
-     * Exposes the headers as a map of key / value pairs
+     * Exposes the request parameters as a map of key / values pairs, holding every value of each parameter
+     * @return the parameters as a map of key / values pairs
+     */
+    public Map<String, List<String>> getParameterValuesAsMap() {
+        if (parameterValues == null) {
+            if (super.getContentType() != null && super.getContentType().startsWith(FORM_CONTENT_TYPE)) {
+                // capture the form content before the container consumes it as parameters, so it remains available to match
+                getBodyBytes();
+            }
+            final Map<String,List<String>> result = new HashMap<>();
+            final Enumeration<String> parameterNames = super.getParameterNames();
+            while (parameterNames.hasMoreElements()) {
+                final String name = parameterNames.nextElement();
+                final String[] values = super.getParameterValues(name);
+                result.put(name, values == null ? Collections.<String>emptyList() : Collections.unmodifiableList(Arrays.asList(values)));
+            }
+            parameterValues = Collections.unmodifiableMap(result);
+        }
+        return parameterValues;
+    }
+
+    /**
+     * Exposes the headers as a map of key / value pairs, holding the first value of each header.
+     * Header names are looked up regardless of case.
      * @return the headers as a map of key / value pairs
      */
     public Map<String, String> getHeadersAsMap() {
-        final Enumeration<String> headerNames = super.getHeaderNames();
-        final Map<String,String> result = new HashMap<>();
-        while (headerNames.hasMoreElements()) {
-            final String name = headerNames.nextElement();
-            final String value = getHeader(name);
-            result.put(name, value);
+        if (headers == null) {
+            headers = firstValues(getHeaderValuesAsMap(), new TreeMap<String,String>(String.CASE_INSENSITIVE_ORDER));
+        }
+        return headers;
+    }
+
+    /**
+     * Exposes the headers as a map of key / values pairs, holding every value of each header.
+     * Header names are looked up regardless of case.
+     * @return the headers as a map of key / values pairs
+     */
+    public Map<String, List<String>> getHeaderValuesAsMap() {
+        if (headerValues == null) {
+            final Map<String,List<String>> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            final Enumeration<String> headerNames = super.getHeaderNames();
+            while (headerNames != null && headerNames.hasMoreElements()) {
+                final String name = headerNames.nextElement();
+                final List<String> values = new ArrayList<>();
+                final Enumeration<String> headerEnumeration = super.getHeaders(name);
+                while (headerEnumeration != null && headerEnumeration.hasMoreElements()) {
+                    values.add(headerEnumeration.nextElement());
+                }
+                if (values.isEmpty() && super.getHeader(name) != null) {
+                    values.add(super.getHeader(name));
+                }
+                result.put(name, Collections.unmodifiableList(values));
+            }
+            headerValues = Collections.unmodifiableMap(result);
         }
-        return result;
+        return headerValues;
     }
 
     /**
@@ -78,13 +282,72 @@ public class HttpServletRequestWrapper extends javax.servlet.http.HttpServletReq
      * @return the cookies as a map of key / value pairs
      */
     public Map<String, String> getCookiesAsMap() {
-        final Map<String,String> result = new HashMap<>();
-        if (super.getCookies() != null) {
-            for (final Cookie cookie : super.getCookies()) {
-                result.put(cookie.getName(), cookie.getValue());
+        if (cookies == null) {
+            final Map<String,String> result = new HashMap<>();
+            if (super.getCookies() != null) {
+                for (final Cookie cookie : super.getCookies()) {
+                    result.put(cookie.getName(), cookie.getValue());
+                }
             }
+            cookies = Collections.unmodifiableMap(result);
+        }
+        return cookies;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#isAsyncStarted()
+     * @return true if the async context was started to read the request body, or has since been started
+     */
+    @Override
+    public boolean isAsyncStarted() {
+        return asyncContext != null || super.isAsyncStarted();
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getAsyncContext()
+     * @return the async context that was started to read the request body, if any, otherwise that of the request
+     */
+    @Override
+    public AsyncContext getAsyncContext() {
+        return asyncContext != null ? asyncContext : super.getAsyncContext();
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#startAsync(javax.servlet.ServletRequest, javax.servlet.ServletResponse)
+     * @return the async context that was started to read the request body, if any, otherwise a newly started one
+     */
+    @Override
+    public AsyncContext startAsync(final ServletRequest servletRequest, final ServletResponse servletResponse) {
+        return asyncContext != null ? asyncContext : super.startAsync(servletRequest, servletResponse);
+    }
+
+    /**
+     * Exposes the path variables captured by the path template of the primed request that matched this request
+     * @return the path variables as a map of name / value pairs
+     */
+    public Map<String, String> getPathVariables() {
+        return pathVariables;
+    }
+
+    /**
+     * Sets the path variables captured by the path template of the primed request that matched this request
+     * @param pathVariables the path variables as a map of name / value pairs
+     */
+    public void setPathVariables(final Map<String, String> pathVariables) {
+        this.pathVariables = pathVariables;
+    }
+
+    /**
+     * Populates the given map with the first value of each entry of the given multi-valued map
+     * @param values the multi-valued map
+     * @param result the map to populate
+     * @return the populated map, unmodifiable
+     */
+    private static Map<String,String> firstValues(final Map<String,List<String>> values, final Map<String,String> result) {
+        for (final Map.Entry<String,List<String>> entry : values.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().isEmpty() ? null : entry.getValue().get(0));
         }
-        return result;
+        return Collections.unmodifiableMap(result);
     }
 
 }
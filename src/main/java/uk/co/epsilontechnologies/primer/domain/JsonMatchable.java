@@ -1,19 +1,37 @@
 package uk.co.epsilontechnologies.primer.domain;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Matchable implementation for JSON content. Determines if the request JSON matches the primed JSON structure.
+ * The primed JSON is parsed once, when it is primed. Each request is then compared against it token by token as it
+ * is streamed, stopping at the first token that differs rather than building a tree for the whole request.
  */
 public class JsonMatchable implements Matchable {
 
+    /**
+     * The object mapper used to parse the primed JSON - shared, as it is thread-safe once configured
+     */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * The factory used to stream the request JSON - shared, as it is thread-safe once configured
+     */
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+
     /**
      * Statically constructs a JSON Matcher for the given primed JSON structure.
-     * @param json
-     * @return
+     * @param json the primed JSON structure
+     * @return the JSON matchable for the given JSON structure
+     * @throws IllegalArgumentException the JSON structure is not valid
      */
     public static Matchable json(final String json) {
         return new JsonMatchable(json);
@@ -24,29 +42,115 @@ public class JsonMatchable implements Matchable {
      */
     private final String primedString;
 
+    /**
+     * The primed JSON structure, parsed when it is primed
+     */
+    private final JsonNode primedJson;
+
     /**
      * Constructor for JSON Matchable
      * @param primedString the primed json string
+     * @throws IllegalArgumentException the primed string is not valid JSON
      */
     JsonMatchable(final String primedString) {
         this.primedString = primedString;
+        try {
+            this.primedJson = OBJECT_MAPPER.readTree(primedString);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Invalid primed JSON: " + primedString, e);
+        }
+        if (this.primedJson == null) {
+            throw new IllegalArgumentException("Invalid primed JSON: " + primedString);
+        }
     }
 
     /**
      * Determines if the given request string matches the primed JSON structure for this instance.
+     * Object fields may appear in any order, but each only once, while array elements must appear in the primed order.
      * @param requestString the request string to match
      * @return true if the JSON structures match, false otherwise.
      */
     @Override
     public boolean match(final String requestString) {
-        try {
-            final ObjectMapper objectMapper = new ObjectMapper();
-            final JsonNode primedRequestJson = objectMapper.readTree(primedString);
-            final JsonNode requestJson = objectMapper.readTree(requestString);
-            return requestJson.equals(primedRequestJson);
+        if (requestString == null) {
+            return false;
+        }
+        try (final JsonParser parser = JSON_FACTORY.createParser(requestString)) {
+            return parser.nextToken() != null && match(primedJson, parser);
         } catch (final IOException e) {
             return false;
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * @see Object#toString()
+     * @return the primed JSON structure
+     */
+    @Override
+    public String toString() {
+        return primedString;
+    }
+
+    /**
+     * Matches the value at the current token of the parser against the given primed node.
+     * On success, the parser is left at the last token of the value.
+     * @param primed the primed node
+     * @param parser the parser of the request JSON
+     * @return true if the value matches the primed node, false otherwise
+     * @throws IOException the request JSON could not be parsed
+     */
+    private static boolean match(final JsonNode primed, final JsonParser parser) throws IOException {
+        switch (parser.getCurrentToken()) {
+            case START_OBJECT:
+                if (!primed.isObject()) {
+                    return false;
+                }
+                // the names seen are tracked, so that a repeated field cannot stand in for a missing one
+                final Set<String> fields = new HashSet<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final JsonNode primedField = primed.get(parser.getCurrentName());
+                    if (primedField == null || !fields.add(parser.getCurrentName())) {
+                        return false;
+                    }
+                    parser.nextToken();
+                    if (!match(primedField, parser)) {
+                        return false;
+                    }
+                }
+                return fields.size() == primed.size();
+            case START_ARRAY:
+                if (!primed.isArray()) {
+                    return false;
+                }
+                int elements = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (elements >= primed.size() || !match(primed.get(elements), parser)) {
+                        return false;
+                    }
+                    elements++;
+                }
+                return elements == primed.size();
+            case VALUE_STRING:
+                return primed.isTextual() && primed.textValue().equals(parser.getText());
+            case VALUE_NUMBER_INT:
+                switch (parser.getNumberType()) {
+                    case INT:
+                        return primed.isInt() && primed.intValue() == parser.getIntValue();
+                    case LONG:
+                        return primed.isLong() && primed.longValue() == parser.getLongValue();
+                    default:
+                        return primed.isBigInteger() && primed.bigIntegerValue().equals(parser.getBigIntegerValue());
+                }
+            case VALUE_NUMBER_FLOAT:
+                return primed.isDouble() && Double.compare(primed.doubleValue(), parser.getDoubleValue()) == 0;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return primed.isBoolean() && primed.booleanValue() == parser.getBooleanValue();
+            case VALUE_NULL:
+                return primed.isNull();
+            default:
+                return false;
+        }
+    }
+
+}
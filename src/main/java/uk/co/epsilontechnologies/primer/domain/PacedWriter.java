@@ -0,0 +1,193 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the body of a single response a chunk at a time, without blocking: each chunk is written only when the
+ * client is ready for it, and (if the response is throttled) only once the throttle allows. Pauses are left to the
+ * shared response scheduler, so paced responses hold no thread while they wait - and once a pause has elapsed, the
+ * chunks are read and written on a server thread rather than the scheduler's. The async context is completed once
+ * the whole body has been written.
+ *
+ * @author Shane Gibson
+ */
+class PacedWriter implements WriteListener {
+
+    /**
+     * The async context of the request
+     */
+    private final AsyncContext asyncContext;
+
+    /**
+     * The output stream of the response
+     */
+    private final ServletOutputStream outputStream;
+
+    /**
+     * The source of the chunks of the body
+     */
+    private final ChunkSource chunkSource;
+
+    /**
+     * The throttle of the response, or null if it is written as quickly as the client reads it
+     */
+    private final Throttle throttle;
+
+    /**
+     * The chunk into which the body is read, reused for each write
+     */
+    private final byte[] chunk;
+
+    /**
+     * The number of bytes written so far
+     */
+    private long written;
+
+    /**
+     * The time at which the first chunk was written
+     */
+    private long startNanos;
+
+    /**
+     * Whether the writer is paused by the throttle, awaiting the scheduler
+     */
+    private boolean paused;
+
+    /**
+     * Constructs the paced writer for the given response
+     * @param asyncContext the async context of the request
+     * @param outputStream the output stream of the response
+     * @param chunkSource the source of the chunks of the body
+     * @param chunkSize the size of each chunk
+     * @param throttle the throttle of the response, or null if it is not throttled
+     */
+    PacedWriter(
+            final AsyncContext asyncContext,
+            final ServletOutputStream outputStream,
+            final ChunkSource chunkSource,
+            final int chunkSize,
+            final Throttle throttle) {
+        this.asyncContext = asyncContext;
+        this.outputStream = outputStream;
+        this.chunkSource = chunkSource;
+        this.throttle = throttle;
+        this.chunk = new byte[throttle == null ? chunkSize : throttle.getChunkSize()];
+    }
+
+    /**
+     * Writes the whole of the given body, blocking - and, if throttled, pausing the calling thread - as it does so.
+     * Used only where the request cannot be handled asynchronously.
+     * @param outputStream the output stream of the response
+     * @param chunkSource the source of the chunks of the body
+     * @param chunkSize the size of each chunk
+     * @param throttle the throttle of the response, or null if it is not throttled
+     * @throws IOException the body could not be written
+     */
+    static void write(
+            final ServletOutputStream outputStream,
+            final ChunkSource chunkSource,
+            final int chunkSize,
+            final Throttle throttle) throws IOException {
+        final byte[] chunk = new byte[throttle == null ? chunkSize : throttle.getChunkSize()];
+        final long startNanos = System.nanoTime();
+        long written = 0;
+        int length;
+        while ((length = chunkSource.read(written, chunk)) >= 0) {
+            outputStream.write(chunk, 0, length);
+            written += length;
+            if (throttle != null) {
+                outputStream.flush();
+                try {
+                    TimeUnit.NANOSECONDS.sleep(throttle.nextDelay(startNanos, written, System.nanoTime()));
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        writeChunks();
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        asyncContext.complete();
+    }
+
+    /**
+     * Writes chunks for as long as the client is ready and the throttle allows.
+     * Invoked both by the container, when the client becomes ready, and on a server thread once a pause has elapsed.
+     */
+    private synchronized void writeChunks() throws IOException {
+        // the previous write must have completed before the chunk is reused, or the response is completed
+        while (!paused && outputStream.isReady()) {
+            final int length = chunkSource.read(written, chunk);
+            if (length < 0) {
+                asyncContext.complete();
+                return;
+            }
+            if (written == 0) {
+                startNanos = System.nanoTime();
+            }
+            outputStream.write(chunk, 0, length);
+            written += length;
+            if (throttle != null) {
+                final long delay = throttle.nextDelay(startNanos, written, System.nanoTime());
+                if (delay > 0) {
+                    // flush what has been written, so that the client receives it during the pause
+                    if (outputStream.isReady()) {
+                        outputStream.flush();
+                    }
+                    paused = true;
+                    // the scheduler only hands back to a server thread, so that reading and writing the chunks
+                    // never holds up the other responses that it paces
+                    ResponseScheduler.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            asyncContext.start(new Runnable() {
+                                @Override
+                                public void run() {
+                                    resume();
+                                }
+                            });
+                        }
+                    }, delay, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+
+    private void resume() {
+        synchronized (this) {
+            paused = false;
+        }
+        try {
+            writeChunks();
+        } catch (final IOException | RuntimeException e) {
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * The source of the chunks of a body
+     */
+    interface ChunkSource {
+
+        /**
+         * Reads the chunk at the given position of the body
+         * @param position the position of the chunk within the body
+         * @param chunk the chunk to fill
+         * @return the number of bytes read into the chunk, or -1 at the end of the body
+         */
+        int read(long position, byte[] chunk);
+
+    }
+
+}
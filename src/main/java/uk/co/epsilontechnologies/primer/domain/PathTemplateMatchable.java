@@ -0,0 +1,140 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Path template implementation of the matchable interface, for URIs such as '/accounts/{id}/transactions/{txId}'.
+ * Each '{name}' segment matches exactly one non-empty path segment of the request, and is captured as a path variable.
+ * All other segments must match the request literally.
+ *
+ * @author Shane Gibson
+ */
+public class PathTemplateMatchable implements Matchable {
+
+    /**
+     * Convenience static method for constructing a PathTemplateMatchable
+     * @param template the path template to use
+     * @return the PathTemplateMatchable for the given template
+     */
+    public static Matchable path(final String template) {
+        return new PathTemplateMatchable(template);
+    }
+
+    /**
+     * The primed path template
+     */
+    private final String template;
+
+    /**
+     * The segments of the path template, with null for each variable segment
+     */
+    private final String[] segments;
+
+    /**
+     * The names of the variables of the path template, indexed by segment (null for literal segments)
+     */
+    private final String[] variableNames;
+
+    /**
+     * Constructor for the path template matchable
+     * @param template the path template that is being primed
+     * @throws IllegalArgumentException the template is not a valid path template
+     */
+    PathTemplateMatchable(final String template) {
+        if (template == null) {
+            throw new IllegalArgumentException("Path template must not be null");
+        }
+        this.template = template;
+        this.segments = split(template);
+        this.variableNames = new String[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            final String segment = segments[i];
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                final String name = segment.substring(1, segment.length() - 1);
+                if (name.isEmpty() || name.contains("{") || name.contains("}")) {
+                    throw new IllegalArgumentException("Invalid path template variable '" + segment + "' in '" + template + "'");
+                }
+                this.variableNames[i] = name;
+                this.segments[i] = null;
+            } else if (segment.contains("{") || segment.contains("}")) {
+                throw new IllegalArgumentException("Path template variables must span a whole segment: '" + template + "'");
+            }
+        }
+    }
+
+    /**
+     * Getter for the segments of the path template
+     * @return the segments of the template, with null for each variable segment
+     */
+    public List<String> getSegments() {
+        return Collections.unmodifiableList(Arrays.asList(segments));
+    }
+
+    /**
+     * Matches the primed path template against the given request string
+     * @see Matchable#match(String)
+     * @param requestString the request string to check
+     * @return true if the request path matches the template, false otherwise
+     */
+    @Override
+    public boolean match(final String requestString) {
+        return requestString != null && matchSegments(split(requestString));
+    }
+
+    /**
+     * Extracts the path variables of the given request string
+     * @param requestString the request string to extract the variables from
+     * @return the path variables keyed by name, or null if the request string does not match the template
+     */
+    public Map<String,String> extract(final String requestString) {
+        if (requestString == null) {
+            return null;
+        }
+        final String[] requestSegments = split(requestString);
+        if (!matchSegments(requestSegments)) {
+            return null;
+        }
+        final Map<String,String> result = new LinkedHashMap<>();
+        for (int i = 0; i < variableNames.length; i++) {
+            if (variableNames[i] != null) {
+                result.put(variableNames[i], requestSegments[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see Object#toString()
+     * @return the path template
+     */
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    private boolean matchSegments(final String[] requestSegments) {
+        if (requestSegments.length != segments.length) {
+            return false;
+        }
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i] == null ? requestSegments[i].isEmpty() : !segments[i].equals(requestSegments[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits the given path into its segments, retaining any leading and trailing empty segments
+     * @param path the path to split
+     * @return the segments of the path
+     */
+    public static String[] split(final String path) {
+        return path.split("/", -1);
+    }
+
+}
@@ -2,12 +2,17 @@ package uk.co.epsilontechnologies.primer.domain;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Representation of a primed HTTP Request and it's corresponding Responses (in sequence).
+ * The responses may be consumed concurrently - each primed response is issued to exactly one caller.
  *
  * @author Shane Gibson
  */
@@ -19,9 +24,16 @@ public class PrimedInvocation {
     private final Request request;
 
     /**
-     * The sequential list of responses that have been primed
+     * The sequential queue of responses that have been primed
      */
-    private final List<Response> responses = new LinkedList<>();
+    private final Queue<Response> responses = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of responses that remain to be claimed, or -1 once the invocation has been exhausted.
+     * Responses are always queued before they are counted, so a successful claim is always backed by a queued response.
+     * Appending and exhausting are guarded by this invocation, so that responses are never queued once it is exhausted.
+     */
+    private final AtomicInteger remaining = new AtomicInteger();
 
     /**
      * Constructs the primed invocation for the given request and sequential list of responses
@@ -31,6 +43,7 @@ public class PrimedInvocation {
     public PrimedInvocation(final Request request, final Response... responses) {
         this.request = request;
         this.responses.addAll(Arrays.asList(responses));
+        this.remaining.set(responses.length);
     }
 
     /**
@@ -42,11 +55,61 @@ public class PrimedInvocation {
     }
 
     /**
-     * Getter for the sequential list of responses
-     * @return the responses that have been primed
+     * Getter for the sequential responses that have not yet been issued
+     * @return a read-only snapshot of the responses that have been primed
      */
     public List<Response> getResponses() {
-        return responses;
+        return Collections.unmodifiableList(new ArrayList<>(responses));
+    }
+
+    /**
+     * Appends the given responses to the sequence of this invocation
+     * @param responses the responses to append
+     * @return true if the responses were appended, false if this invocation has already been exhausted
+     */
+    public synchronized boolean addResponses(final Response... responses) {
+        if (remaining.get() < 0) {
+            return false;
+        }
+        // the invocation cannot be exhausted while this lock is held, so the responses are never queued in vain
+        this.responses.addAll(Arrays.asList(responses));
+        remaining.addAndGet(responses.length);
+        return true;
+    }
+
+    /**
+     * Atomically claims the next response in the sequence.
+     * If the last response is claimed, this invocation is marked as exhausted.
+     * @return the next response, or null if the invocation has been exhausted by another caller
+     */
+    public Response nextResponse() {
+        while (true) {
+            final int current = remaining.get();
+            if (current <= 0) {
+                return null;
+            }
+            if (remaining.compareAndSet(current, current - 1)) {
+                if (current == 1) {
+                    exhaust();
+                }
+                return responses.poll();
+            }
+        }
+    }
+
+    /**
+     * Marks this invocation as exhausted, unless responses have since been appended
+     */
+    private synchronized void exhaust() {
+        remaining.compareAndSet(0, -1);
+    }
+
+    /**
+     * Determines whether all of the responses for this invocation have been issued
+     * @return true if the invocation has been exhausted, false otherwise
+     */
+    public boolean isExhausted() {
+        return remaining.get() < 0;
     }
 
     /**
@@ -0,0 +1,193 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Representation of an HTTP Request as it was received by a Primer, copied from its request journal.
+ * The body is held up to the limit of the journal - the length of the body as it was received is retained, so that a
+ * truncated body can be recognised.
+ *
+ * @author Shane Gibson
+ */
+public class RecordedRequest {
+
+    /**
+     * The sequence in which the request was received
+     */
+    private final long sequence;
+
+    /**
+     * The time at which the request was received, in milliseconds since the epoch
+     */
+    private final long timestamp;
+
+    /**
+     * The HTTP method of the request
+     */
+    private final String method;
+
+    /**
+     * The URI of the request, including the context path
+     */
+    private final String uri;
+
+    /**
+     * The query string of the request, or null if it has none
+     */
+    private final String queryString;
+
+    /**
+     * The headers of the request, in the order in which they were received
+     */
+    private final List<Pair<String>> headers;
+
+    /**
+     * The body of the request, up to the limit of the journal
+     */
+    private final byte[] body;
+
+    /**
+     * The length of the body of the request, as it was received
+     */
+    private final int bodyLength;
+
+    /**
+     * Constructs the recorded request for the given attributes
+     * @param sequence the sequence in which the request was received
+     * @param timestamp the time at which the request was received, in milliseconds since the epoch
+     * @param method the HTTP method of the request
+     * @param uri the URI of the request, including the context path
+     * @param queryString the query string of the request, or null if it has none
+     * @param headers the headers of the request, in the order in which they were received
+     * @param body the body of the request, up to the limit of the journal
+     * @param bodyLength the length of the body of the request, as it was received
+     */
+    public RecordedRequest(
+            final long sequence,
+            final long timestamp,
+            final String method,
+            final String uri,
+            final String queryString,
+            final List<Pair<String>> headers,
+            final byte[] body,
+            final int bodyLength) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.method = method;
+        this.uri = uri;
+        this.queryString = queryString;
+        this.headers = Collections.unmodifiableList(headers);
+        this.body = body;
+        this.bodyLength = bodyLength;
+    }
+
+    /**
+     * Getter for the sequence in which the request was received
+     * @return the sequence in which the request was received
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Getter for the time at which the request was received
+     * @return the time at which the request was received, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Getter for the HTTP method of the request
+     * @return the HTTP method of the request
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Getter for the URI of the request
+     * @return the URI of the request, including the context path
+     */
+    public String getURI() {
+        return uri;
+    }
+
+    /**
+     * Getter for the query string of the request
+     * @return the query string of the request, or null if it has none
+     */
+    public String getQueryString() {
+        return queryString;
+    }
+
+    /**
+     * Getter for the headers of the request
+     * @return a read-only list of the headers of the request, in the order in which they were received
+     */
+    public List<Pair<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Getter for the first value of the given header, regardless of the case of its name
+     * @param name the name of the header
+     * @return the first value of the header, or null if the request has no such header
+     */
+    public String getHeader(final String name) {
+        for (final Pair<String> header : headers) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Getter for the body of the request, up to the limit of the journal
+     * @return a copy of the body of the request
+     */
+    public byte[] getBody() {
+        return body.clone();
+    }
+
+    /**
+     * Getter for the body of the request, up to the limit of the journal, decoded with the given charset
+     * @param charset the charset of the body
+     * @return the body of the request
+     */
+    public String getBody(final Charset charset) {
+        return new String(body, charset);
+    }
+
+    /**
+     * Getter for the length of the body of the request, as it was received
+     * @return the length of the body of the request, as it was received - or, for a truncated body whose length was
+     * not declared, the number of bytes read to find that it was truncated
+     */
+    public int getBodyLength() {
+        return bodyLength;
+    }
+
+    /**
+     * Determines whether the body of the request was truncated to the limit of the journal
+     * @return true if the body was truncated, false otherwise
+     */
+    public boolean isTruncated() {
+        return bodyLength > body.length;
+    }
+
+    /**
+     * @see Object#toString()
+     * @return the string representation of the recorded request
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+}
@@ -1,6 +1,7 @@
 package uk.co.epsilontechnologies.primer.domain;
 
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * Regular Expression implementation of the matchable interface.
@@ -12,6 +13,7 @@ public class RegExMatchable implements Matchable {
      * Convenience static method for constructing a RegExMatchable
      * @param regex the regular expression to use
      * @return the RegExMatchable for the given regex string
+     * @throws PatternSyntaxException the regular expression is not valid
      */
     public static Matchable regex(final String regex) {
         return new RegExMatchable(regex);
@@ -22,12 +24,27 @@ public class RegExMatchable implements Matchable {
      */
     private final String primedString;
 
+    /**
+     * The regular expression, compiled when it is primed
+     */
+    private final Pattern pattern;
+
     /**
      * Constructor for the RegEx Matcher
      * @param primedString the regular expression that is being primed
+     * @throws PatternSyntaxException the regular expression is not valid
      */
     RegExMatchable(String primedString) {
         this.primedString = primedString;
+        this.pattern = primedString != null ? Pattern.compile(primedString) : null;
+    }
+
+    /**
+     * Getter for the compiled regular expression
+     * @return the compiled regular expression, or null if no regular expression was primed
+     */
+    public Pattern getPattern() {
+        return pattern;
     }
 
     /**
@@ -38,7 +55,16 @@ public class RegExMatchable implements Matchable {
      */
     @Override
     public boolean match(final String requestString) {
-        return primedString != null && Pattern.matches(primedString, requestString);
+        return pattern != null && requestString != null && pattern.matcher(requestString).matches();
+    }
+
+    /**
+     * @see Object#toString()
+     * @return the regular expression
+     */
+    @Override
+    public String toString() {
+        return primedString;
     }
 
 }
@@ -0,0 +1,22 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * A response that is populated with access to the request that it was matched against, such as the path variables
+ * captured by a path template.
+ *
+ * @author Shane Gibson
+ */
+public interface RequestAwareResponse extends Response {
+
+    /**
+     * Populates the given HTTP servlet response for the given request
+     * @param requestWrapper the request that was matched
+     * @param httpServletResponse the HTTP servlet response to populate
+     * @throws IOException an IO exception occurred
+     */
+    void populate(HttpServletRequestWrapper requestWrapper, HttpServletResponse httpServletResponse) throws IOException;
+
+}
@@ -0,0 +1,54 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The timer shared by every response that is delayed or paced.
+ * Scheduled tasks only resume suspended requests or issue non-blocking writes, so a single daemon thread suffices
+ * however many requests are waiting.
+ *
+ * @author Shane Gibson
+ */
+final class ResponseScheduler {
+
+    /**
+     * The shared scheduler
+     */
+    private static final ScheduledExecutorService SCHEDULER = newScheduler();
+
+    /**
+     * Hidden constructor
+     */
+    private ResponseScheduler() {
+        super();
+    }
+
+    /**
+     * Schedules the given task to run once the given delay has elapsed
+     * @param task the task to run
+     * @param delay the delay
+     * @param unit the unit of the delay
+     */
+    static void schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        SCHEDULER.schedule(task, delay, unit);
+    }
+
+    private static ScheduledExecutorService newScheduler() {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "primer-scheduler-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+}
@@ -2,21 +2,47 @@ package uk.co.epsilontechnologies.primer.domain;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
-import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.eclipse.jetty.http.MimeTypes;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
  * Instance of a HTTP Response that has been programmed.
  * This will be returned if the by the primer if the associated request is matched.
  *
+ * The body is encoded once, when the response is primed, using the charset that the servlet writer would use - that of
+ * the content type, else the charset assumed or inferred for the content type (UTF-8 for JSON, for instance), else
+ * ISO-8859-1. As for the writer, only an inferred or default charset is added to the content type. The headers and
+ * cookies are likewise resolved once, so that populating a response sets each of them and writes the encoded body in
+ * a single write.
+ *
  * @author Shane Gibson
  */
 public class SimpleResponse implements Response {
 
+    /**
+     * The charset used to encode the body when neither the content type nor its mime type gives one
+     */
+    private static final Charset DEFAULT_CHARSET = Charset.forName("ISO-8859-1");
+
+    /**
+     * The fields derived from the others when the response is primed, which are excluded from its equality and its
+     * string representation
+     */
+    private static final List<String> DERIVED_FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "charset", "charsetSet", "encodedBody", "headerNames", "headerValues", "cookieNames", "cookieValues"));
+
     /**
      * The HTTP status of the response
      */
@@ -42,6 +68,42 @@ public class SimpleResponse implements Response {
      */
     private final Map<String,String> cookies;
 
+    /**
+     * The charset of the body, as the servlet writer would determine it
+     */
+    private final Charset charset;
+
+    /**
+     * Whether the charset is set on the response, as the servlet writer would - only where it was inferred for the
+     * mime type or defaulted, rather than given by the content type or assumed for the mime type
+     */
+    private final boolean charsetSet;
+
+    /**
+     * The body of the response, encoded in its charset
+     */
+    private final byte[] encodedBody;
+
+    /**
+     * The names of the headers of the response, in the same order as their values
+     */
+    private final String[] headerNames;
+
+    /**
+     * The values of the headers of the response, in the same order as their names
+     */
+    private final String[] headerValues;
+
+    /**
+     * The names of the cookies of the response, in the same order as their values
+     */
+    private final String[] cookieNames;
+
+    /**
+     * The values of the cookies of the response, in the same order as their names
+     */
+    private final String[] cookieValues;
+
     /**
      * Constructs the response for the given status, content type, body and headers
      * @param status the HTTP status of the response
@@ -61,6 +123,27 @@ public class SimpleResponse implements Response {
         this.headers = headers;
         this.contentType = contentType;
         this.cookies = cookies;
+        final Charset givenCharset = charsetOf(contentType);
+        final String mimeType = contentType == null ? null : contentType.split(";")[0].trim().toLowerCase(Locale.ENGLISH);
+        final String assumedCharset = mimeType == null ? null : MimeTypes.getCharsetAssumedFromContentType(mimeType);
+        final String inferredCharset = mimeType == null ? null : MimeTypes.getCharsetInferredFromContentType(mimeType);
+        if (givenCharset != null) {
+            this.charset = givenCharset;
+            this.charsetSet = false;
+        } else if (assumedCharset != null) {
+            this.charset = Charset.forName(assumedCharset);
+            this.charsetSet = false;
+        } else {
+            this.charset = inferredCharset != null ? Charset.forName(inferredCharset) : DEFAULT_CHARSET;
+            this.charsetSet = true;
+        }
+        this.encodedBody = body == null ? null : body.getBytes(charset);
+        final Map<String,String> headerMap = headers == null ? Collections.<String,String>emptyMap() : headers;
+        this.headerNames = headerMap.keySet().toArray(new String[headerMap.size()]);
+        this.headerValues = valuesOf(headerMap, headerNames);
+        final Map<String,String> cookieMap = cookies == null ? Collections.<String,String>emptyMap() : cookies;
+        this.cookieNames = cookieMap.keySet().toArray(new String[cookieMap.size()]);
+        this.cookieValues = valuesOf(cookieMap, cookieNames);
     }
 
     /**
@@ -111,27 +194,60 @@ public class SimpleResponse implements Response {
      */
     @Override
     public void populate(final HttpServletResponse httpServletResponse) throws IOException {
-        for (final String key : this.getHeaders().keySet()) {
-            httpServletResponse.addHeader(key, this.getHeaders().get(key));
+        for (int i = 0; i < headerNames.length; i++) {
+            httpServletResponse.addHeader(headerNames[i], headerValues[i]);
         }
-        for (final String key : this.getCookies().keySet()) {
-            httpServletResponse.addCookie(new Cookie(key, this.getCookies().get(key)));
+        for (int i = 0; i < cookieNames.length; i++) {
+            httpServletResponse.addCookie(new Cookie(cookieNames[i], cookieValues[i]));
         }
         httpServletResponse.setStatus(this.getStatus());
         httpServletResponse.setContentType(this.getContentType());
-        if (this.getBody() != null) {
-            httpServletResponse.getWriter().write(this.getBody());
+        if (encodedBody != null) {
+            if (charsetSet) {
+                httpServletResponse.setCharacterEncoding(charset.name());
+            }
+            httpServletResponse.setContentLength(encodedBody.length);
+            httpServletResponse.getOutputStream().write(encodedBody);
         }
         httpServletResponse.flushBuffer();
     }
 
+    /**
+     * Determines the charset given by the given content type
+     * @param contentType the content type
+     * @return the charset of the content type, or null if none (or an unsupported charset) is given
+     */
+    private static Charset charsetOf(final String contentType) {
+        if (contentType != null) {
+            for (final String parameter : contentType.split(";")) {
+                final String trimmed = parameter.trim();
+                if (trimmed.toLowerCase(Locale.ENGLISH).startsWith("charset=")) {
+                    try {
+                        return Charset.forName(trimmed.substring("charset=".length()).replace("\"", ""));
+                    } catch (final IllegalCharsetNameException | UnsupportedCharsetException e) {
+                        break;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String[] valuesOf(final Map<String,String> map, final String[] keys) {
+        final String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = map.get(keys[i]);
+        }
+        return values;
+    }
+
     /**
      * @see Object#toString()
      * @return the string representation of the response
      */
     @Override
     public String toString() {
-        return ToStringBuilder.reflectionToString(this);
+        return ReflectionToStringBuilder.toStringExclude(this, DERIVED_FIELDS);
     }
 
     /**
@@ -140,7 +256,7 @@ public class SimpleResponse implements Response {
      */
     @Override
     public boolean equals(final Object o) {
-        return EqualsBuilder.reflectionEquals(this, o);
+        return EqualsBuilder.reflectionEquals(this, o, DERIVED_FIELDS);
     }
 
     /**
@@ -149,7 +265,7 @@ public class SimpleResponse implements Response {
      */
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this);
+        return HashCodeBuilder.reflectionHashCode(this, DERIVED_FIELDS);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,207 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Instance of a HTTP Response that has been programmed, whose body is generated as it is streamed.
+ * This will be returned if the by the primer if the associated request is matched.
+ *
+ * The body is produced a chunk at a time by a content generator, so it is never materialized in memory, and may be
+ * of any length (or endless). The chunks are written by a servlet write listener, only as quickly as the client
+ * consumes them (and, if throttled, no more quickly than the throttle allows), so neither a slow client nor a
+ * throttled response holds a server thread.
+ *
+ * @author Shane Gibson
+ */
+public class StreamingResponse implements AsyncResponse {
+
+    /**
+     * The length of an endless stream
+     */
+    public static final long ENDLESS = -1;
+
+    /**
+     * The HTTP status of the response
+     */
+    private final int status;
+
+    /**
+     * The content type of the response
+     */
+    private final String contentType;
+
+    /**
+     * The generator of the body of the response
+     */
+    private final ContentGenerator contentGenerator;
+
+    /**
+     * The length of the body of the response, or ENDLESS if the body never ends
+     */
+    private final long length;
+
+    /**
+     * The size of each chunk of the body that is generated and written
+     */
+    private final int chunkSize;
+
+    /**
+     * The throttle of the response, or null if it is written as quickly as the client reads it
+     */
+    private final Throttle throttle;
+
+    /**
+     * The headers of the response
+     */
+    private final Map<String,String> headers;
+
+    /**
+     * The cookies of the response
+     */
+    private final Map<String,String> cookies;
+
+    /**
+     * Constructs the response for the given status, content type, body and headers
+     * @param status the HTTP status of the response
+     * @param contentType the content type of the response
+     * @param contentGenerator the generator of the body of the response
+     * @param length the length of the body of the response, or ENDLESS if the body never ends
+     * @param chunkSize the size of each chunk of the body that is generated and written
+     * @param throttle the throttle of the response, or null if it is written as quickly as the client reads it
+     * @param headers the headers of the response
+     * @param cookies the cookies of the response
+     * @throws IllegalArgumentException the length or chunk size is not valid
+     */
+    public StreamingResponse(
+            final int status,
+            final String contentType,
+            final ContentGenerator contentGenerator,
+            final long length,
+            final int chunkSize,
+            final Throttle throttle,
+            final Map<String,String> headers,
+            final Map<String,String> cookies) {
+        if (contentGenerator == null) {
+            throw new IllegalArgumentException("Content generator is required");
+        }
+        if (length < 0 && length != ENDLESS) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        this.status = status;
+        this.contentType = contentType;
+        this.contentGenerator = contentGenerator;
+        this.length = length;
+        this.chunkSize = chunkSize;
+        this.throttle = throttle;
+        this.headers = headers == null ? Collections.<String,String>emptyMap() : headers;
+        this.cookies = cookies == null ? Collections.<String,String>emptyMap() : cookies;
+    }
+
+    /**
+     * Getter for the HTTP status of the response
+     * @return the HTTP status of the response
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter for the Content-Type of the response
+     * @return the Content-Type of the response
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Getter for the length of the body of the response
+     * @return the length of the body of the response, or ENDLESS if the body never ends
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Getter for the size of each chunk of the body that is generated and written
+     * @return the chunk size
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Populates the given Http Servlet Response with this Response's data, writing the whole body before returning.
+     * Used only where the request cannot be handled asynchronously, in which case a throttle pauses the thread.
+     * @param httpServletResponse the HTTP servlet response to populate
+     * @throws IOException the body could not be written
+     */
+    @Override
+    public void populate(final HttpServletResponse httpServletResponse) throws IOException {
+        populateHeaders(httpServletResponse);
+        PacedWriter.write(httpServletResponse.getOutputStream(), chunkSource(), chunkSize, throttle);
+        httpServletResponse.flushBuffer();
+    }
+
+    /**
+     * Populates the given Http Servlet Response with this Response's data, writing each chunk of the body when the
+     * client is ready for it, and completing the async context once the whole body has been written.
+     * @param asyncContext the async context of the request
+     * @param httpServletResponse the HTTP servlet response to populate
+     * @throws IOException the response could not be populated
+     */
+    @Override
+    public void populate(final AsyncContext asyncContext, final HttpServletResponse httpServletResponse) throws IOException {
+        populateHeaders(httpServletResponse);
+        final ServletOutputStream outputStream = httpServletResponse.getOutputStream();
+        outputStream.setWriteListener(new PacedWriter(asyncContext, outputStream, chunkSource(), chunkSize, throttle));
+    }
+
+    /**
+     * @see Object#toString()
+     * @return the string representation of the response
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+    private void populateHeaders(final HttpServletResponse httpServletResponse) {
+        for (final Map.Entry<String,String> header : headers.entrySet()) {
+            httpServletResponse.addHeader(header.getKey(), header.getValue());
+        }
+        for (final Map.Entry<String,String> cookie : cookies.entrySet()) {
+            httpServletResponse.addCookie(new Cookie(cookie.getKey(), cookie.getValue()));
+        }
+        httpServletResponse.setStatus(status);
+        httpServletResponse.setContentType(contentType);
+        if (length != ENDLESS) {
+            httpServletResponse.setContentLengthLong(length);
+        }
+    }
+
+    private PacedWriter.ChunkSource chunkSource() {
+        return new PacedWriter.ChunkSource() {
+            @Override
+            public int read(final long position, final byte[] chunk) {
+                if (length != ENDLESS && position >= length) {
+                    return -1;
+                }
+                final int chunkLength = length == ENDLESS ? chunk.length : (int) Math.min(chunk.length, length - position);
+                contentGenerator.generate(position, chunk, chunkLength);
+                return chunkLength;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,215 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builder for a HTTP Response whose body is generated as it is streamed.
+ * The body is generated from a repeating pattern, a seeded pseudo-random sequence or a custom generator, and is of
+ * zero bytes unless configured otherwise.
+ *
+ * @author Shane Gibson
+ */
+public class StreamingResponseBuilder implements ResponseBuilder {
+
+    /**
+     * The default size of each chunk of the body
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    public static StreamingResponseBuilder stream(final int status, final String contentType) {
+        return new StreamingResponseBuilder(status, contentType);
+    }
+
+    public static StreamingResponseBuilder stream(final int status, final String contentType, final long length) {
+        return new StreamingResponseBuilder(status, contentType).withLength(length);
+    }
+
+    /**
+     * The HTTP status of the response
+     */
+    private final int status;
+
+    /**
+     * The content type of the response
+     */
+    private final String contentType;
+
+    /**
+     * The generator of the body of the response
+     */
+    private ContentGenerator contentGenerator = new PatternGenerator(new byte[] { 0 });
+
+    /**
+     * The length of the body of the response
+     */
+    private long length;
+
+    /**
+     * The size of each chunk of the body
+     */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * The throttle of the response
+     */
+    private Throttle throttle;
+
+    /**
+     * The headers of the response
+     */
+    private final Map<String,String> headers = new HashMap<>();
+
+    /**
+     * The cookies of the response
+     */
+    private final Map<String,String> cookies = new HashMap<>();
+
+    private StreamingResponseBuilder(final int status, final String contentType) {
+        this.status = status;
+        this.contentType = contentType;
+    }
+
+    public StreamingResponseBuilder withLength(final long length) {
+        this.length = length;
+        return this;
+    }
+
+    public StreamingResponseBuilder endless() {
+        this.length = StreamingResponse.ENDLESS;
+        return this;
+    }
+
+    public StreamingResponseBuilder withChunkSize(final int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public StreamingResponseBuilder withThrottle(final Throttle throttle) {
+        this.throttle = throttle;
+        return this;
+    }
+
+    public StreamingResponseBuilder withPattern(final byte[] pattern) {
+        this.contentGenerator = new PatternGenerator(pattern);
+        return this;
+    }
+
+    public StreamingResponseBuilder withPattern(final String pattern) {
+        return withPattern(pattern.getBytes(Charset.forName("UTF-8")));
+    }
+
+    public StreamingResponseBuilder withSeed(final long seed) {
+        this.contentGenerator = new SeededGenerator(seed);
+        return this;
+    }
+
+    public StreamingResponseBuilder withGenerator(final ContentGenerator contentGenerator) {
+        this.contentGenerator = contentGenerator;
+        return this;
+    }
+
+    public StreamingResponseBuilder withHeader(final String name, final String value) {
+        this.headers.put(name, value);
+        return this;
+    }
+
+    public StreamingResponseBuilder withCookie(final String name, final String value) {
+        this.cookies.put(name, value);
+        return this;
+    }
+
+    public StreamingResponseBuilder withHeaders(final List<Pair<String>> headers) {
+        for (final Pair<String> pair : headers) {
+            this.headers.put(pair.getKey(), pair.getValue());
+        }
+        return this;
+    }
+
+    public StreamingResponseBuilder withCookies(final List<Pair<String>> cookies) {
+        for (final Pair<String> pair : cookies) {
+            this.cookies.put(pair.getKey(), pair.getValue());
+        }
+        return this;
+    }
+
+    @Override
+    public Response build() {
+        return new StreamingResponse(status, contentType, contentGenerator, length, chunkSize, throttle, new HashMap<>(headers), new HashMap<>(cookies));
+    }
+
+    /**
+     * Generates a body that repeats the given pattern
+     */
+    static class PatternGenerator implements ContentGenerator {
+
+        /**
+         * The pattern to repeat
+         */
+        private final byte[] pattern;
+
+        PatternGenerator(final byte[] pattern) {
+            if (pattern == null || pattern.length == 0) {
+                throw new IllegalArgumentException("Pattern must not be empty");
+            }
+            this.pattern = pattern.clone();
+        }
+
+        @Override
+        public void generate(final long position, final byte[] chunk, final int length) {
+            int offset = (int) (position % pattern.length);
+            int filled = 0;
+            while (filled < length) {
+                final int count = Math.min(pattern.length - offset, length - filled);
+                System.arraycopy(pattern, offset, chunk, filled, count);
+                filled += count;
+                offset = 0;
+            }
+        }
+
+    }
+
+    /**
+     * Generates a pseudo-random body from the given seed. The byte at each position depends only on the seed and the
+     * position, so the same seed always produces the same body, however it is chunked.
+     */
+    static class SeededGenerator implements ContentGenerator {
+
+        /**
+         * The seed of the sequence
+         */
+        private final long seed;
+
+        SeededGenerator(final long seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public void generate(final long position, final byte[] chunk, final int length) {
+            long word = position >>> 3;
+            long value = mix(seed + word);
+            for (int i = 0; i < length; i++) {
+                final long current = position + i;
+                if (current >>> 3 != word) {
+                    word = current >>> 3;
+                    value = mix(seed + word);
+                }
+                chunk[i] = (byte) (value >>> ((current & 7) << 3));
+            }
+        }
+
+        /**
+         * The SplitMix64 finalizer, spreading each word of the sequence across all 64 bits
+         */
+        private static long mix(final long word) {
+            long z = word * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+
+    }
+
+}
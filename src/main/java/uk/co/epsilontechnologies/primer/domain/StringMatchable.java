@@ -16,9 +16,22 @@ public class StringMatchable implements Matchable {
         this.primedString = primedString;
     }
 
+    public String getPrimedString() {
+        return primedString;
+    }
+
     @Override
     public boolean match(final String requestString) {
         return primedString != null && primedString.equals(requestString);
     }
 
+    /**
+     * @see Object#toString()
+     * @return the primed string
+     */
+    @Override
+    public String toString() {
+        return primedString;
+    }
+
 }
\ No newline at end of file
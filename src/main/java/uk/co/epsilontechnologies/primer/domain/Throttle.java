@@ -0,0 +1,111 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pace at which the body of a response is written - either a sustained rate in bytes per second, or a fixed
+ * pause between chunks. The body is written a chunk at a time in either case.
+ *
+ * @author Shane Gibson
+ */
+public final class Throttle {
+
+    /**
+     * The default size of each chunk of a throttled body
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    /**
+     * Statically constructs a throttle that limits the body to the given rate
+     * @param bytesPerSecond the maximum rate at which the body is written
+     * @return the throttle
+     */
+    public static Throttle bytesPerSecond(final long bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid rate: " + bytesPerSecond);
+        }
+        return new Throttle(bytesPerSecond, 0, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Statically constructs a throttle that pauses for the given time between each chunk of the body
+     * @param chunkSize the size of each chunk
+     * @param chunkDelay the pause between each chunk, in milliseconds
+     * @return the throttle
+     */
+    public static Throttle chunkDelay(final int chunkSize, final long chunkDelay) {
+        if (chunkDelay < 0) {
+            throw new IllegalArgumentException("Invalid chunk delay: " + chunkDelay);
+        }
+        return new Throttle(0, TimeUnit.MILLISECONDS.toNanos(chunkDelay), chunkSize);
+    }
+
+    /**
+     * The maximum rate at which the body is written, or zero if the body is paced by chunk delay
+     */
+    private final long bytesPerSecond;
+
+    /**
+     * The pause between each chunk, in nanoseconds, or zero if the body is paced by rate
+     */
+    private final long chunkDelayNanos;
+
+    /**
+     * The size of each chunk
+     */
+    private final int chunkSize;
+
+    private Throttle(final long bytesPerSecond, final long chunkDelayNanos, final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        this.chunkDelayNanos = chunkDelayNanos;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Constructs a copy of this throttle with the given chunk size
+     * @param chunkSize the size of each chunk
+     * @return the throttle
+     */
+    public Throttle withChunkSize(final int chunkSize) {
+        return new Throttle(bytesPerSecond, chunkDelayNanos, chunkSize);
+    }
+
+    /**
+     * Getter for the size of each chunk
+     * @return the size of each chunk
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Determines when the next chunk may be written
+     * @param startNanos the time at which the first chunk was written
+     * @param written the number of bytes written so far
+     * @param nowNanos the current time
+     * @return the time to wait, in nanoseconds, before the next chunk is written
+     */
+    long nextDelay(final long startNanos, final long written, final long nowNanos) {
+        if (bytesPerSecond == 0) {
+            return chunkDelayNanos;
+        }
+        // paced against the start time rather than the previous chunk, so that timer latency does not accumulate
+        final long due = startNanos + (long) (written * (double) TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+        return Math.max(0, due - nowNanos);
+    }
+
+    /**
+     * @see Object#toString()
+     * @return the string representation of the throttle
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+}
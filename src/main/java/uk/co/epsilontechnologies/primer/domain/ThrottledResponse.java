@@ -0,0 +1,229 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * A primed response whose body is trickled out at the pace of a throttle.
+ *
+ * The delegate response is populated as normal, except that its body is captured rather than written - or, for a file
+ * response, read from the file as it is needed. The body is then written a chunk at a time, only when the client is
+ * ready for it and the throttle allows, with the pauses left to the shared response scheduler - so throttled responses
+ * in flight hold no server thread.
+ *
+ * Asynchronous responses write their own bodies, so cannot be throttled this way - streaming responses accept a
+ * throttle directly instead.
+ *
+ * @author Shane Gibson
+ */
+public class ThrottledResponse implements AsyncResponse {
+
+    /**
+     * The response whose body is throttled
+     */
+    private final Response response;
+
+    /**
+     * The throttle of the body
+     */
+    private final Throttle throttle;
+
+    /**
+     * Constructs the throttled response for the given response and throttle
+     * @param response the response whose body is throttled
+     * @param throttle the throttle of the body
+     * @throws IllegalArgumentException the response is asynchronous
+     */
+    public ThrottledResponse(final Response response, final Throttle throttle) {
+        if (response instanceof AsyncResponse) {
+            throw new IllegalArgumentException("Asynchronous responses cannot be throttled: " + response);
+        }
+        this.response = response;
+        this.throttle = throttle;
+    }
+
+    /**
+     * Getter for the response whose body is throttled
+     * @return the delegate response
+     */
+    public Response getResponse() {
+        return response;
+    }
+
+    /**
+     * Getter for the throttle of the body
+     * @return the throttle
+     */
+    public Throttle getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * Populates the given Http Servlet Response with the delegate response, pausing the thread between each chunk.
+     * Used only where the request cannot be handled asynchronously.
+     * @param httpServletResponse the HTTP servlet response to populate
+     * @throws IOException the response could not be populated
+     */
+    @Override
+    public void populate(final HttpServletResponse httpServletResponse) throws IOException {
+        final PacedWriter.ChunkSource source = populateBody(null, httpServletResponse);
+        PacedWriter.write(httpServletResponse.getOutputStream(), source, throttle.getChunkSize(), throttle);
+        httpServletResponse.flushBuffer();
+    }
+
+    /**
+     * Populates the given Http Servlet Response with the delegate response, writing each chunk when the client is
+     * ready for it and the throttle allows, and completing the async context once the whole body has been written.
+     * @param asyncContext the async context of the request
+     * @param httpServletResponse the HTTP servlet response to populate
+     * @throws IOException the response could not be populated
+     */
+    @Override
+    public void populate(final AsyncContext asyncContext, final HttpServletResponse httpServletResponse) throws IOException {
+        final HttpServletRequestWrapper requestWrapper = asyncContext.getRequest() instanceof HttpServletRequestWrapper
+                ? (HttpServletRequestWrapper) asyncContext.getRequest()
+                : null;
+        final PacedWriter.ChunkSource source = populateBody(requestWrapper, httpServletResponse);
+        final ServletOutputStream outputStream = httpServletResponse.getOutputStream();
+        outputStream.setWriteListener(new PacedWriter(asyncContext, outputStream, source, throttle.getChunkSize(), throttle));
+    }
+
+    /**
+     * @see Object#toString()
+     * @return the string representation of the response
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+
+    /**
+     * Populates the given Http Servlet Response with the status and headers of the delegate response, leaving its
+     * body to be written from the returned source. A file response supplies its own source, sliced from the file;
+     * any other body is captured.
+     * @param requestWrapper the request that was matched, or null if it is not available
+     * @param httpServletResponse the HTTP servlet response to populate
+     * @return the source of the body
+     * @throws IOException the response could not be populated
+     */
+    private PacedWriter.ChunkSource populateBody(final HttpServletRequestWrapper requestWrapper, final HttpServletResponse httpServletResponse) throws IOException {
+        if (response instanceof FileResponse) {
+            final PacedWriter.ChunkSource source = ((FileResponse) response).populateChunked(httpServletResponse);
+            if (source != null) {
+                return source;
+            }
+        }
+        return chunkSource(capture(requestWrapper, httpServletResponse));
+    }
+
+    /**
+     * Populates the given Http Servlet Response with the delegate response, capturing (rather than writing) its body
+     * @param requestWrapper the request that was matched, or null if it is not available
+     * @param httpServletResponse the HTTP servlet response to populate
+     * @return the captured body
+     * @throws IOException the response could not be populated
+     */
+    private byte[] capture(final HttpServletRequestWrapper requestWrapper, final HttpServletResponse httpServletResponse) throws IOException {
+        final CapturingResponse capturingResponse = new CapturingResponse(httpServletResponse);
+        if (response instanceof RequestAwareResponse && requestWrapper != null) {
+            ((RequestAwareResponse) response).populate(requestWrapper, capturingResponse);
+        } else {
+            response.populate(capturingResponse);
+        }
+        final byte[] body = capturingResponse.getBody();
+        httpServletResponse.setContentLengthLong(body.length);
+        return body;
+    }
+
+    private static PacedWriter.ChunkSource chunkSource(final byte[] body) {
+        return new PacedWriter.ChunkSource() {
+            @Override
+            public int read(final long position, final byte[] chunk) {
+                if (position >= body.length) {
+                    return -1;
+                }
+                final int length = (int) Math.min(chunk.length, body.length - position);
+                System.arraycopy(body, (int) position, chunk, 0, length);
+                return length;
+            }
+        };
+    }
+
+    /**
+     * Response wrapper that passes the status and headers through to the response, but captures the body
+     */
+    private static class CapturingResponse extends HttpServletResponseWrapper {
+
+        /**
+         * The captured body
+         */
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        /**
+         * The output stream that captures the body
+         */
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+            @Override
+            public void setWriteListener(final WriteListener writeListener) {
+                throw new UnsupportedOperationException("The captured body is written synchronously by the delegate response");
+            }
+            @Override
+            public void write(final int b) {
+                body.write(b);
+            }
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                body.write(b, off, len);
+            }
+        };
+
+        /**
+         * The writer that captures the body, created on demand
+         */
+        private PrintWriter writer;
+
+        private CapturingResponse(final HttpServletResponse httpServletResponse) {
+            super(httpServletResponse);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        private byte[] getBody() {
+            flushBuffer();
+            return body.toByteArray();
+        }
+
+    }
+
+}
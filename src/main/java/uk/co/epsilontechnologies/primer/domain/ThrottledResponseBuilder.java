@@ -0,0 +1,34 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+/**
+ * Builder for a primed response whose body is trickled out at the pace of a throttle.
+ *
+ * @author Shane Gibson
+ */
+public class ThrottledResponseBuilder implements ResponseBuilder {
+
+    public static ThrottledResponseBuilder throttled(final ResponseBuilder responseBuilder, final Throttle throttle) {
+        return new ThrottledResponseBuilder(responseBuilder, throttle);
+    }
+
+    /**
+     * The builder of the response whose body is throttled
+     */
+    private final ResponseBuilder responseBuilder;
+
+    /**
+     * The throttle of the body
+     */
+    private final Throttle throttle;
+
+    private ThrottledResponseBuilder(final ResponseBuilder responseBuilder, final Throttle throttle) {
+        this.responseBuilder = responseBuilder;
+        this.throttle = throttle;
+    }
+
+    @Override
+    public Response build() {
+        return new ThrottledResponse(responseBuilder.build(), throttle);
+    }
+
+}
@@ -1,38 +1,246 @@
 package uk.co.epsilontechnologies.primer.domain;
 
-import org.custommonkey.xmlunit.Diff;
-import org.custommonkey.xmlunit.XMLUnit;
-import org.xml.sax.SAXException;
-
-import java.io.IOException;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Matchable implementation for XML content. Determines if the request XML is similar to the primed XML document.
+ * Documents are similar if their elements have the same names, attributes and text, regardless of the order of
+ * sibling elements or attributes and of namespace prefixes. Whitespace is ignored unless configured otherwise.
+ *
+ * The primed document is parsed once, when it is primed. Each request is then compared against it as it is streamed,
+ * stopping at the first difference.
+ *
+ * @author Shane Gibson
+ */
 public class XmlMatchable implements Matchable {
 
+    /**
+     * The configured StAX input factories that are free to create a reader - shared by every thread, rather than held
+     * per thread, so that each is configured once however many (virtual) threads match documents. A factory is only
+     * taken while it creates a reader, so there are never more than the readers created at once.
+     */
+    private static final Queue<XMLInputFactory> INPUT_FACTORIES = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Statically constructs an XML Matcher for the given primed XML document, ignoring whitespace.
+     * @param xml the primed XML document
+     * @return the XML matchable for the given document
+     * @throws IllegalArgumentException the XML document is not valid
+     */
     public static Matchable xml(final String xml) {
-        return new XmlMatchable(xml);
+        return new XmlMatchable(xml, true);
     }
 
     /**
-     * Configures the XMLUnit to ignore whitespace in the XML String
+     * Statically constructs an XML Matcher for the given primed XML document.
+     * @param xml the primed XML document
+     * @param ignoreWhitespace whether to ignore leading, trailing and whitespace-only text
+     * @return the XML matchable for the given document
+     * @throws IllegalArgumentException the XML document is not valid
      */
-    static {
-        XMLUnit.setIgnoreWhitespace(true);
+    public static Matchable xml(final String xml, final boolean ignoreWhitespace) {
+        return new XmlMatchable(xml, ignoreWhitespace);
     }
 
+    /**
+     * The primed XML document
+     */
     private final String primedString;
 
-    XmlMatchable(String primedString) {
+    /**
+     * Whether to ignore leading, trailing and whitespace-only text
+     */
+    private final boolean ignoreWhitespace;
+
+    /**
+     * The root element of the primed XML document, parsed when it is primed
+     */
+    private final Element primedRoot;
+
+    XmlMatchable(final String primedString) {
+        this(primedString, true);
+    }
+
+    XmlMatchable(final String primedString, final boolean ignoreWhitespace) {
         this.primedString = primedString;
+        this.ignoreWhitespace = ignoreWhitespace;
+        try {
+            final XMLStreamReader reader = createReader(primedString);
+            try {
+                this.primedRoot = parse(reader, reader.nextTag());
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid primed XML: " + primedString, e);
+        }
     }
 
     @Override
     public boolean match(final String requestString) {
+        if (requestString == null) {
+            return false;
+        }
         try {
-            final Diff xmlDiff = new Diff(primedString, requestString);
-            return xmlDiff.similar();
-        } catch (final SAXException | IOException e) {
+            final XMLStreamReader reader = createReader(requestString);
+            try {
+                return reader.nextTag() == XMLStreamConstants.START_ELEMENT && match(primedRoot, reader);
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException | RuntimeException e) {
             return false;
         }
     }
 
+    /**
+     * Creates a reader of the given XML document, with a factory taken from those that are free (or configured, if none
+     * are), and returned once the reader has been created
+     * @param xml the XML document
+     * @return the reader of the XML document
+     * @throws XMLStreamException the reader could not be created
+     */
+    private static XMLStreamReader createReader(final String xml) throws XMLStreamException {
+        XMLInputFactory inputFactory = INPUT_FACTORIES.poll();
+        if (inputFactory == null) {
+            inputFactory = XMLInputFactory.newInstance();
+            inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+            inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+            inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        }
+        try {
+            return inputFactory.createXMLStreamReader(new StringReader(xml));
+        } finally {
+            INPUT_FACTORIES.offer(inputFactory);
+        }
+    }
+
+    /**
+     * @see Object#toString()
+     * @return the primed XML document
+     */
+    @Override
+    public String toString() {
+        return primedString;
+    }
+
+    /**
+     * Matches the element at the current start element of the reader against the given primed element.
+     * On success, the reader is left at the corresponding end element.
+     */
+    private boolean match(final Element primed, final XMLStreamReader reader) throws XMLStreamException {
+        if (!primed.name.equals(reader.getName()) || primed.attributes.size() != reader.getAttributeCount()) {
+            return false;
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (!reader.getAttributeValue(i).equals(primed.attributes.get(reader.getAttributeName(i)))) {
+                return false;
+            }
+        }
+        final boolean[] matchedChildren = new boolean[primed.children.size()];
+        int matchedCount = 0;
+        final StringBuilder text = new StringBuilder();
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    final int index = firstUnmatched(primed.children, matchedChildren, reader.getName());
+                    if (index < 0 || !match(primed.children.get(index), reader)) {
+                        return false;
+                    }
+                    matchedChildren[index] = true;
+                    matchedCount++;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    appendText(text, reader.getText());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    return matchedCount == matchedChildren.length && primed.text.equals(text.toString());
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Parses the element at the current start element of the reader, leaving the reader at its end element
+     */
+    private Element parse(final XMLStreamReader reader, final int event) throws XMLStreamException {
+        if (event != XMLStreamConstants.START_ELEMENT) {
+            throw new XMLStreamException("Expected start element");
+        }
+        final QName name = reader.getName();
+        final Map<QName,String> attributes = new HashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            attributes.put(reader.getAttributeName(i), reader.getAttributeValue(i));
+        }
+        final List<Element> children = new ArrayList<>();
+        final StringBuilder text = new StringBuilder();
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    children.add(parse(reader, XMLStreamConstants.START_ELEMENT));
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    appendText(text, reader.getText());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    return new Element(name, attributes, text.toString(), children);
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void appendText(final StringBuilder text, final String value) {
+        text.append(ignoreWhitespace ? value.trim() : value);
+    }
+
+    private static int firstUnmatched(final List<Element> children, final boolean[] matched, final QName name) {
+        for (int i = 0; i < children.size(); i++) {
+            if (!matched[i] && children.get(i).name.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * An element of the primed XML document
+     */
+    private static class Element {
+
+        private final QName name;
+
+        private final Map<QName,String> attributes;
+
+        private final String text;
+
+        private final List<Element> children;
+
+        private Element(final QName name, final Map<QName,String> attributes, final String text, final List<Element> children) {
+            this.name = name;
+            this.attributes = Collections.unmodifiableMap(attributes);
+            this.text = text;
+            this.children = Collections.unmodifiableList(children);
+        }
+
+    }
+
 }
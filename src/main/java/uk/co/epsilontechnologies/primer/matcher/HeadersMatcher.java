@@ -38,9 +38,9 @@ public class HeadersMatcher implements Matcher<Request,HttpServletRequestWrapper
      */
     @Override
     public boolean match(final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
-        final boolean result = mapMatcher.match(primedRequest.getHeaders(), requestWrapper.getHeadersAsMap());
+        final boolean result = mapMatcher.matchAny(primedRequest.getHeaders(), requestWrapper.getHeaderValuesAsMap());
         if (!result) {
-            LOGGER.debug("PRIMER :-- headers do not match: primed '" + primedRequest.getHeaders() + "' but was '" + requestWrapper.getHeadersAsMap() + "'");
+            LOGGER.debug("PRIMER :-- headers do not match: primed '" + primedRequest.getHeaders() + "' but was '" + requestWrapper.getHeaderValuesAsMap() + "'");
         }
         return result;
     }
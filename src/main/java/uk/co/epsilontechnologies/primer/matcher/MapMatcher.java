@@ -2,6 +2,7 @@ package uk.co.epsilontechnologies.primer.matcher;
 
 import uk.co.epsilontechnologies.primer.domain.Matchable;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,4 +28,29 @@ public class MapMatcher implements Matcher<Map<String,Matchable>,Map<String,Stri
         return true;
     }
 
-}
\ No newline at end of file
+    /**
+     * Matches the primed map against the request map, where each request key may have several values
+     * @param primedMap the primed map to match against
+     * @param requestMap the request map to match, holding every value of each key
+     * @return true if the request map contains all of the primed map keys and any of the corresponding values is equivalent, false otherwise
+     */
+    public boolean matchAny(final Map<String,Matchable> primedMap, final Map<String,List<String>> requestMap) {
+        for (final Map.Entry<String,Matchable> primedEntry : primedMap.entrySet()) {
+            final List<String> requestValues = requestMap.get(primedEntry.getKey());
+            if (requestValues == null || !matchAny(primedEntry.getValue(), requestValues)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchAny(final Matchable primedValue, final List<String> requestValues) {
+        for (final String requestValue : requestValues) {
+            if (primedValue.match(requestValue)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
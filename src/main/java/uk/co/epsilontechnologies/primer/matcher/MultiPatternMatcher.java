@@ -0,0 +1,126 @@
+package uk.co.epsilontechnologies.primer.matcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Tests a string against many regular expressions in a single pass, by combining them into one alternation.
+ * Each pattern is wrapped in its own capturing group, so the group that participated in a match identifies the first
+ * pattern (in the order given) that matches the whole string.
+ *
+ * Patterns that cannot safely be combined - those that use back references (which would be renumbered by the
+ * combination), quoting or comments (which could swallow the combining syntax), or compile flags - are excluded, and
+ * reported as uncombined so that callers can test them individually.
+ *
+ * @author Shane Gibson
+ */
+public class MultiPatternMatcher {
+
+    /**
+     * Detects back references, quoting and comments, none of which can safely be combined into an alternation
+     */
+    private static final Pattern UNCOMBINABLE = Pattern.compile("(?<!\\\\)(?:\\\\\\\\)*\\\\(?:[1-9]|k<|Q)|\\(\\?[a-zA-Z-]*x");
+
+    /**
+     * The combined pattern, or null if no patterns could be combined
+     */
+    private final Pattern combined;
+
+    /**
+     * The group of the combined pattern that corresponds to each combined pattern
+     */
+    private final int[] groups;
+
+    /**
+     * The index (within the given patterns) of each combined pattern
+     */
+    private final int[] indexes;
+
+    /**
+     * Whether each of the given patterns was combined
+     */
+    private final boolean[] combinedPatterns;
+
+    /**
+     * Constructs the multi-pattern matcher for the given patterns
+     * @param patterns the patterns to combine, in order of precedence
+     */
+    public MultiPatternMatcher(final List<Pattern> patterns) {
+        final StringBuilder alternation = new StringBuilder();
+        final List<Integer> groupList = new ArrayList<>();
+        final List<Integer> indexList = new ArrayList<>();
+        this.combinedPatterns = new boolean[patterns.size()];
+        int group = 1;
+        for (int i = 0; i < patterns.size(); i++) {
+            final Pattern pattern = patterns.get(i);
+            if (pattern.flags() != 0 || UNCOMBINABLE.matcher(pattern.pattern()).find()) {
+                continue;
+            }
+            if (alternation.length() > 0) {
+                alternation.append('|');
+            }
+            alternation.append('(').append(pattern.pattern()).append(')');
+            groupList.add(group);
+            indexList.add(i);
+            group += 1 + pattern.matcher("").groupCount();
+        }
+        Pattern compiled = null;
+        if (!groupList.isEmpty()) {
+            try {
+                compiled = Pattern.compile(alternation.toString());
+            } catch (final PatternSyntaxException e) {
+                // e.g. duplicate named groups across patterns - leave every pattern uncombined
+                groupList.clear();
+                indexList.clear();
+            }
+        }
+        this.combined = compiled;
+        this.groups = toArray(groupList);
+        this.indexes = toArray(indexList);
+        for (final int index : indexes) {
+            this.combinedPatterns[index] = true;
+        }
+    }
+
+    /**
+     * Determines whether the pattern at the given index was combined
+     * @param index the index of the pattern
+     * @return true if the pattern was combined, false if it must be tested individually
+     */
+    public boolean isCombined(final int index) {
+        return combinedPatterns[index];
+    }
+
+    /**
+     * Finds the first combined pattern that matches the whole of the given string
+     * @param input the string to match
+     * @return the index of the first matching pattern, or -1 if none of the combined patterns match
+     */
+    public int firstMatch(final String input) {
+        if (combined == null || input == null) {
+            return -1;
+        }
+        final Matcher matcher = combined.matcher(input);
+        if (!matcher.matches()) {
+            return -1;
+        }
+        for (int i = 0; i < groups.length; i++) {
+            if (matcher.start(groups[i]) >= 0) {
+                return indexes[i];
+            }
+        }
+        return -1;
+    }
+
+    private static int[] toArray(final List<Integer> list) {
+        final int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+}
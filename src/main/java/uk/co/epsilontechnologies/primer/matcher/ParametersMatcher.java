@@ -38,9 +38,9 @@ public class ParametersMatcher implements Matcher<Request,HttpServletRequestWrap
      */
     @Override
     public boolean match(final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
-        final boolean result = mapMatcher.match(primedRequest.getParameters(), requestWrapper.getParametersAsMap());
+        final boolean result = mapMatcher.matchAny(primedRequest.getParameters(), requestWrapper.getParameterValuesAsMap());
         if (!result) {
-            LOGGER.debug("PRIMER :-- parameters do not match: primed '" + primedRequest.getParameters() + "' but was '" + requestWrapper.getParametersAsMap() + "'");
+            LOGGER.debug("PRIMER :-- parameters do not match: primed '" + primedRequest.getParameters() + "' but was '" + requestWrapper.getParameterValuesAsMap() + "'");
         }
         return result;
     }
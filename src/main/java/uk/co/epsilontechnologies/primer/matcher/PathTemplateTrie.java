@@ -0,0 +1,220 @@
+package uk.co.epsilontechnologies.primer.matcher;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Radix trie of path templates, keyed on path segments.
+ * Runs of literal segments are compressed onto a single edge, while each variable segment is its own edge that
+ * matches any non-empty request segment. Looking up a request path therefore costs in proportion to the depth of the
+ * path rather than the number of templates that have been added.
+ *
+ * Values are held against the sequence in which they were added, so that lookups return them in that order.
+ * Lookups are lock-free and may run concurrently with additions and removals, which are serialized. Removals prune the
+ * nodes that they leave empty, so that the trie does not grow as templates are repeatedly added and removed.
+ *
+ * @param <T> the type of the values held against each template
+ *
+ * @author Shane Gibson
+ */
+public class PathTemplateTrie<T> {
+
+    /**
+     * The root node of the trie
+     */
+    private final Node<T> root = new Node<>();
+
+    /**
+     * Adds the given value against the given template segments
+     * @param segments the segments of the template, with null for each variable segment
+     * @param sequence the sequence in which the value was added
+     * @param value the value to add
+     */
+    public synchronized void add(final List<String> segments, final long sequence, final T value) {
+        node(segments.toArray(new String[segments.size()]), 0, root).values.put(sequence, value);
+    }
+
+    /**
+     * Removes the value with the given sequence from the given template segments
+     * @param segments the segments of the template, with null for each variable segment
+     * @param sequence the sequence of the value to remove
+     */
+    public synchronized void remove(final List<String> segments, final long sequence) {
+        remove(segments.toArray(new String[segments.size()]), 0, root, sequence);
+    }
+
+    /**
+     * Looks up all of the values whose templates match the given request path segments
+     * @param requestSegments the segments of the request path
+     * @return the matching values, ordered by the sequence in which they were added
+     */
+    public NavigableMap<Long,T> lookup(final String[] requestSegments) {
+        final NavigableMap<Long,T> result = new TreeMap<>();
+        collect(root, requestSegments, 0, result);
+        return result;
+    }
+
+    private void collect(final Node<T> node, final String[] requestSegments, final int index, final Map<Long,T> result) {
+        if (index == requestSegments.length) {
+            result.putAll(node.values);
+            return;
+        }
+        final Edge<T> literalEdge = node.literalEdges.get(requestSegments[index]);
+        if (literalEdge != null && literalEdge.matches(requestSegments, index)) {
+            collect(literalEdge.target, requestSegments, index + literalEdge.segments.length, result);
+        }
+        final Node<T> variableNode = node.variableNode;
+        if (variableNode != null && !requestSegments[index].isEmpty()) {
+            collect(variableNode, requestSegments, index + 1, result);
+        }
+    }
+
+    /**
+     * Counts the nodes of the trie, including the root
+     * @return the number of nodes
+     */
+    synchronized int nodes() {
+        return count(root);
+    }
+
+    private int count(final Node<T> node) {
+        int count = 1;
+        for (final Edge<T> edge : node.literalEdges.values()) {
+            count += count(edge.target);
+        }
+        final Node<T> variableNode = node.variableNode;
+        return variableNode != null ? count + count(variableNode) : count;
+    }
+
+    /**
+     * Removes the value from the node for the given template segments, if there is one. On the way back up, the nodes
+     * that are left empty are pruned, and an edge whose target is left with a single literal continuation is merged
+     * with it, so that the trie is as compressed as if the template had never been added
+     * @return true if the given node is left empty
+     */
+    private boolean remove(final String[] segments, final int index, final Node<T> node, final long sequence) {
+        if (index == segments.length) {
+            node.values.remove(sequence);
+        } else if (segments[index] == null) {
+            final Node<T> variableNode = node.variableNode;
+            if (variableNode != null && remove(segments, index + 1, variableNode, sequence)) {
+                node.variableNode = null;
+            }
+        } else {
+            final Edge<T> edge = node.literalEdges.get(segments[index]);
+            if (edge != null && edge.matches(segments, index)) {
+                if (remove(segments, index + edge.segments.length, edge.target, sequence)) {
+                    node.literalEdges.remove(segments[index]);
+                } else {
+                    merge(node, edge);
+                }
+            }
+        }
+        return node.isEmpty();
+    }
+
+    /**
+     * Merges the given edge with the single literal edge of its target, if its target holds nothing else.
+     * The merged edge is published only once it is complete, and leads to the same node as the edges it replaces.
+     */
+    private void merge(final Node<T> node, final Edge<T> edge) {
+        final Node<T> target = edge.target;
+        if (!target.values.isEmpty() || target.variableNode != null || target.literalEdges.size() != 1) {
+            return;
+        }
+        final Edge<T> next = target.literalEdges.values().iterator().next();
+        final String[] merged = Arrays.copyOf(edge.segments, edge.segments.length + next.segments.length);
+        System.arraycopy(next.segments, 0, merged, edge.segments.length, next.segments.length);
+        node.literalEdges.put(merged[0], new Edge<>(merged, next.target));
+    }
+
+    /**
+     * Finds (or creates) the node for the given template segments, splitting compressed edges where required
+     */
+    private Node<T> node(final String[] segments, final int index, final Node<T> node) {
+        if (index == segments.length) {
+            return node;
+        }
+        if (segments[index] == null) {
+            if (node.variableNode == null) {
+                node.variableNode = new Node<>();
+            }
+            return node(segments, index + 1, node.variableNode);
+        }
+        final Edge<T> edge = node.literalEdges.get(segments[index]);
+        if (edge == null) {
+            int end = index;
+            while (end < segments.length && segments[end] != null) {
+                end++;
+            }
+            final Node<T> target = new Node<>();
+            node.literalEdges.put(segments[index], new Edge<>(Arrays.copyOfRange(segments, index, end), target));
+            return node(segments, end, target);
+        }
+        int common = 0;
+        while (common < edge.segments.length && index + common < segments.length && edge.segments[common].equals(segments[index + common])) {
+            common++;
+        }
+        if (common == edge.segments.length) {
+            return node(segments, index + common, edge.target);
+        }
+        // split the edge at the common prefix - the new edge is published only once it is complete
+        final Node<T> split = new Node<>();
+        final String[] remainder = Arrays.copyOfRange(edge.segments, common, edge.segments.length);
+        split.literalEdges.put(remainder[0], new Edge<>(remainder, edge.target));
+        node.literalEdges.put(segments[index], new Edge<>(Arrays.copyOfRange(edge.segments, 0, common), split));
+        return node(segments, index + common, split);
+    }
+
+    /**
+     * A node of the trie, holding the values for the templates that end at this node
+     */
+    private static class Node<T> {
+
+        private final ConcurrentMap<String,Edge<T>> literalEdges = new ConcurrentHashMap<>();
+
+        private volatile Node<T> variableNode;
+
+        private final ConcurrentSkipListMap<Long,T> values = new ConcurrentSkipListMap<>();
+
+        private boolean isEmpty() {
+            return values.isEmpty() && literalEdges.isEmpty() && variableNode == null;
+        }
+
+    }
+
+    /**
+     * A compressed edge of one or more literal segments
+     */
+    private static class Edge<T> {
+
+        private final String[] segments;
+
+        private final Node<T> target;
+
+        private Edge(final String[] segments, final Node<T> target) {
+            this.segments = segments;
+            this.target = target;
+        }
+
+        private boolean matches(final String[] requestSegments, final int index) {
+            if (index + segments.length > requestSegments.length) {
+                return false;
+            }
+            for (int i = 0; i < segments.length; i++) {
+                if (!segments[i].equals(requestSegments[index + i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
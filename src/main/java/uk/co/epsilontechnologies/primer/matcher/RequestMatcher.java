@@ -3,42 +3,51 @@ package uk.co.epsilontechnologies.primer.matcher;
 import uk.co.epsilontechnologies.primer.domain.HttpServletRequestWrapper;
 import uk.co.epsilontechnologies.primer.domain.Request;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Matches the HTTP Servlet Request against the attributes of the given primed Request.
+ * The attribute matchers are evaluated cheapest and most selective first. Each starts with an estimated cost, and the
+ * order adapts to the rejection rate observed for each matcher on a sample of the requests. The body matcher (which
+ * may parse the body) is always evaluated last, once every cheaper check has passed - the candidates are prefiltered on
+ * method and URI, so those matchers rarely reject, and their pooled statistics must not promote the body ahead of them.
  *
  * @author Shane Gibson
  */
 public class RequestMatcher implements Matcher<Request,HttpServletRequestWrapper> {
 
     /**
-     * The matcher to use for comparing request body
+     * One in this many matches is sampled to gather statistics for the attribute matchers
      */
-    private final BodyMatcher bodyMatcher;
+    private static final int SAMPLE_RATE = 16;
 
     /**
-     * The matcher to use for comparing request parameters
+     * The attribute matchers are re-ordered after this many sampled matches
      */
-    private final ParametersMatcher parametersMatcher;
+    private static final long REORDER_INTERVAL = 256;
 
     /**
-     * The matcher to use for comparing request headers
+     * The matcher to use for comparing request uri
      */
-    private final HeadersMatcher headersMatcher;
+    private final UriMatcher uriMatcher;
 
     /**
-     * The matcher to use for comparing request cookies
+     * The matcher to use for comparing request body, which is evaluated after every other attribute matcher
      */
-    private final CookiesMatcher cookiesMatcher;
+    private final BodyMatcher bodyMatcher;
 
     /**
-     * The matcher to use for comparing request method
+     * The attribute matchers other than the body matcher, in the order in which they are currently evaluated
      */
-    private final MethodMatcher methodMatcher;
+    private volatile MatcherStatistics[] order;
 
     /**
-     * The matcher to use for comparing request uri
+     * The number of sampled matches
      */
-    private final UriMatcher uriMatcher;
+    private final AtomicLong sampledMatches = new AtomicLong();
 
     /**
      * Constructs the request matcher for the given context, using the regular expression string matcher, map matcher and body matcher lookup
@@ -70,12 +79,15 @@ public class RequestMatcher implements Matcher<Request,HttpServletRequestWrapper
             final HeadersMatcher headersMatcher,
             final CookiesMatcher cookiesMatcher,
             final MethodMatcher methodMatcher) {
-        this.bodyMatcher = bodyMatcher;
         this.uriMatcher = uriMatcher;
-        this.parametersMatcher = parametersMatcher;
-        this.headersMatcher = headersMatcher;
-        this.cookiesMatcher = cookiesMatcher;
-        this.methodMatcher = methodMatcher;
+        this.bodyMatcher = bodyMatcher;
+        this.order = new MatcherStatistics[] {
+                new MatcherStatistics(methodMatcher, 1),
+                new MatcherStatistics(uriMatcher, 2),
+                new MatcherStatistics(headersMatcher, 4),
+                new MatcherStatistics(cookiesMatcher, 4),
+                new MatcherStatistics(parametersMatcher, 8)
+        };
     }
 
     /**
@@ -86,13 +98,94 @@ public class RequestMatcher implements Matcher<Request,HttpServletRequestWrapper
      */
     @Override
     public boolean match(final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
-        return
-                bodyMatcher.match(primedRequest, requestWrapper) &&
-                uriMatcher.match(primedRequest, requestWrapper) &&
-                methodMatcher.match(primedRequest, requestWrapper) &&
-                parametersMatcher.match(primedRequest, requestWrapper) &&
-                headersMatcher.match(primedRequest, requestWrapper) &&
-                cookiesMatcher.match(primedRequest, requestWrapper);
+        final MatcherStatistics[] matchers = this.order;
+        if (ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0) {
+            return sampledMatch(matchers, primedRequest, requestWrapper);
+        }
+        for (final MatcherStatistics matcher : matchers) {
+            if (!matcher.matcher.match(primedRequest, requestWrapper)) {
+                return false;
+            }
+        }
+        return bodyMatcher.match(primedRequest, requestWrapper);
+    }
+
+    /**
+     * Matches the request, recording the outcome of each attribute matcher that is evaluated
+     */
+    private boolean sampledMatch(final MatcherStatistics[] matchers, final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
+        boolean result = true;
+        for (final MatcherStatistics matcher : matchers) {
+            if (!matcher.match(primedRequest, requestWrapper)) {
+                result = false;
+                break;
+            }
+        }
+        if (sampledMatches.incrementAndGet() % REORDER_INTERVAL == 0) {
+            reorder();
+        }
+        return result && bodyMatcher.match(primedRequest, requestWrapper);
+    }
+
+    /**
+     * Re-orders the attribute matchers other than the body matcher by ascending cost per rejection
+     */
+    private void reorder() {
+        final MatcherStatistics[] matchers = this.order.clone();
+        Arrays.sort(matchers, new Comparator<MatcherStatistics>() {
+            @Override
+            public int compare(final MatcherStatistics left, final MatcherStatistics right) {
+                return Double.compare(left.score(), right.score());
+            }
+        });
+        this.order = matchers;
+    }
+
+    /**
+     * Resolves the URI of the given HTTP servlet request, relative to the context path
+     * @param requestWrapper the HTTP servlet request
+     * @return the request URI without the context path
+     */
+    public String resolveUri(final HttpServletRequestWrapper requestWrapper) {
+        return uriMatcher.resolveUri(requestWrapper);
+    }
+
+    /**
+     * An attribute matcher, along with its estimated cost and observed rejection rate
+     */
+    private static class MatcherStatistics {
+
+        private final Matcher<Request,HttpServletRequestWrapper> matcher;
+
+        private final int cost;
+
+        private final AtomicLong evaluations = new AtomicLong();
+
+        private final AtomicLong rejections = new AtomicLong();
+
+        private MatcherStatistics(final Matcher<Request,HttpServletRequestWrapper> matcher, final int cost) {
+            this.matcher = matcher;
+            this.cost = cost;
+        }
+
+        private boolean match(final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
+            final boolean result = matcher.match(primedRequest, requestWrapper);
+            evaluations.incrementAndGet();
+            if (!result) {
+                rejections.incrementAndGet();
+            }
+            return result;
+        }
+
+        /**
+         * The expected cost of rejecting a request with this matcher - lower scores are evaluated first
+         * @return the estimated cost divided by the (smoothed) observed rejection rate
+         */
+        private double score() {
+            final double rejectionRate = (rejections.get() + 1.0) / (evaluations.get() + 2.0);
+            return cost / rejectionRate;
+        }
+
     }
 
-}
\ No newline at end of file
+}
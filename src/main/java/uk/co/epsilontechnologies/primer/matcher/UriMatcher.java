@@ -5,6 +5,8 @@ import org.slf4j.LoggerFactory;
 import uk.co.epsilontechnologies.primer.domain.HttpServletRequestWrapper;
 import uk.co.epsilontechnologies.primer.domain.Request;
 
+import java.util.regex.Pattern;
+
 /**
  * Implementation for matching the URI of the primed request against actual requests
  *
@@ -22,12 +24,18 @@ public class UriMatcher implements Matcher<Request,HttpServletRequestWrapper> {
      */
     private final String contextPath;
 
+    /**
+     * The compiled context path, stripped from the request URI before matching
+     */
+    private final Pattern contextPathPattern;
+
     /**
      * Constructor for the URI matcher
      * @param contextPath the context path for the primer server
      */
     public UriMatcher(final String contextPath) {
         this.contextPath = contextPath;
+        this.contextPathPattern = Pattern.compile(contextPath);
     }
 
     /**
@@ -38,11 +46,20 @@ public class UriMatcher implements Matcher<Request,HttpServletRequestWrapper> {
      */
     @Override
     public boolean match(final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
-        final boolean result = primedRequest.getURI().match(requestWrapper.getRequestURI().replaceFirst(contextPath, ""));
+        final boolean result = primedRequest.getURI().match(resolveUri(requestWrapper));
         if (!result) {
             LOGGER.debug("PRIMER :-- uri does not match: primed '" + contextPath + primedRequest.getURI() + "' but was '" + requestWrapper.getRequestURI() + "'");
         }
         return result;
     }
 
-}
\ No newline at end of file
+    /**
+     * Resolves the URI of the request, relative to the context path of the primer server
+     * @param requestWrapper the actual request
+     * @return the request URI without the context path
+     */
+    public String resolveUri(final HttpServletRequestWrapper requestWrapper) {
+        return contextPathPattern.matcher(requestWrapper.getRequestURI()).replaceFirst("");
+    }
+
+}
@@ -0,0 +1,114 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Reads the body of a request without blocking, as the container signals that more of it is available.
+ * The body is accumulated in a buffer (sized to the declared content length, where there is one) and handed to the
+ * callback once it has been read in full, so that no thread is held while a slow client sends it.
+ *
+ * @author Shane Gibson
+ */
+class BodyReader implements ReadListener {
+
+    /**
+     * The initial capacity of the buffer for a body whose length is not declared
+     */
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The largest initial capacity of the buffer, however long the declared body is
+     */
+    private static final int MAX_INITIAL_CAPACITY = 1024 * 1024;
+
+    /**
+     * The input stream of the request
+     */
+    private final ServletInputStream inputStream;
+
+    /**
+     * The buffer in which the body is accumulated
+     */
+    private final ByteArrayOutputStream body;
+
+    /**
+     * The chunk into which each read is made
+     */
+    private final byte[] chunk = new byte[DEFAULT_CAPACITY];
+
+    /**
+     * The callback to notify once the body has been read, or has failed to be read
+     */
+    private final Callback callback;
+
+    /**
+     * Constructs the body reader for the given input stream
+     * @param inputStream the input stream of the request
+     * @param contentLength the declared length of the body, or -1 if it is not declared
+     * @param callback the callback to notify once the body has been read, or has failed to be read
+     */
+    BodyReader(final ServletInputStream inputStream, final long contentLength, final Callback callback) {
+        this.inputStream = inputStream;
+        this.body = new ByteArrayOutputStream(contentLength > 0 ? (int) Math.min(contentLength, MAX_INITIAL_CAPACITY) : DEFAULT_CAPACITY);
+        this.callback = callback;
+    }
+
+    /**
+     * Reads as much of the body as is available without blocking
+     * @throws IOException the body could not be read
+     */
+    @Override
+    public void onDataAvailable() throws IOException {
+        while (inputStream.isReady()) {
+            final int read = inputStream.read(chunk);
+            if (read < 0) {
+                return;
+            }
+            body.write(chunk, 0, read);
+        }
+    }
+
+    /**
+     * Hands the body, now read in full, to the callback
+     */
+    @Override
+    public void onAllDataRead() {
+        try {
+            callback.onBody(body.toByteArray());
+        } catch (final RuntimeException e) {
+            callback.onError(e);
+        }
+    }
+
+    /**
+     * Notifies the callback that the body could not be read
+     * @param throwable the cause of the failure
+     */
+    @Override
+    public void onError(final Throwable throwable) {
+        callback.onError(throwable);
+    }
+
+    /**
+     * Notified once the body of the request has been read, or has failed to be read
+     */
+    interface Callback {
+
+        /**
+         * Notified once the body has been read in full
+         * @param body the body of the request
+         */
+        void onBody(byte[] body);
+
+        /**
+         * Notified if the body could not be read, or could not be handled once read
+         * @param throwable the cause of the failure
+         */
+        void onError(Throwable throwable);
+
+    }
+
+}
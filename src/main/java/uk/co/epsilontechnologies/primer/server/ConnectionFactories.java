@@ -0,0 +1,103 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
+import org.eclipse.jetty.http2.HTTP2Cipher;
+import org.eclipse.jetty.http2.server.AbstractHTTP2ServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.SecureRequestCustomizer;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+import static uk.co.epsilontechnologies.primer.server.ServerConfiguration.DEFAULT;
+
+/**
+ * Constructs the connection factories of HTTP/2 and TLS. These are kept apart from the Primer Server so that their
+ * classes are only loaded, and their cost only paid when the server starts, if they are configured.
+ *
+ * @author Shane Gibson
+ */
+final class ConnectionFactories {
+
+    /**
+     * The ALPN protocol name of HTTP/1.1
+     */
+    private static final String HTTP_1_1 = "http/1.1";
+
+    /**
+     * The ALPN protocol name of HTTP/2 over TLS
+     */
+    private static final String HTTP_2 = "h2";
+
+    private ConnectionFactories() {
+        super();
+    }
+
+    /**
+     * Constructs the connection factories of cleartext connections offering HTTP/1.1 and h2c
+     * @param httpConfiguration the HTTP configuration of the server
+     * @param configuration the configuration of the server
+     * @return the connection factories, in the order in which they are layered
+     */
+    static ConnectionFactory[] h2c(final HttpConfiguration httpConfiguration, final ServerConfiguration configuration) {
+        return new ConnectionFactory[] {
+                new HttpConnectionFactory(httpConfiguration),
+                configure(new HTTP2CServerConnectionFactory(httpConfiguration), configuration)
+        };
+    }
+
+    /**
+     * Constructs the connection factories of connections over TLS offering HTTP/1.1, and h2 negotiated by ALPN if
+     * HTTP/2 is configured
+     * @param httpConfiguration the HTTP configuration of the server
+     * @param configuration the configuration of the server
+     * @return the connection factories, in the order in which they are layered
+     */
+    static ConnectionFactory[] tls(final HttpConfiguration httpConfiguration, final ServerConfiguration configuration) {
+        final HttpConfiguration httpsConfiguration = new HttpConfiguration(httpConfiguration);
+        // the stub presents whichever certificate it is given, whatever host name the client asked for
+        httpsConfiguration.addCustomizer(new SecureRequestCustomizer(false));
+        final SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+        sslContextFactory.setKeyStorePath(configuration.getKeyStorePath());
+        sslContextFactory.setKeyStorePassword(configuration.getKeyStorePassword());
+        if (!configuration.isHttp2()) {
+            return new ConnectionFactory[] {
+                    new SslConnectionFactory(sslContextFactory, HTTP_1_1),
+                    new HttpConnectionFactory(httpsConfiguration)
+            };
+        }
+        sslContextFactory.setCipherComparator(HTTP2Cipher.COMPARATOR);
+        final ALPNServerConnectionFactory alpnConnectionFactory = new ALPNServerConnectionFactory(HTTP_2, HTTP_1_1);
+        alpnConnectionFactory.setDefaultProtocol(HTTP_1_1);
+        return new ConnectionFactory[] {
+                new SslConnectionFactory(sslContextFactory, alpnConnectionFactory.getProtocol()),
+                alpnConnectionFactory,
+                configure(new HTTP2ServerConnectionFactory(httpsConfiguration), configuration),
+                new HttpConnectionFactory(httpsConfiguration)
+        };
+    }
+
+    /**
+     * Applies the configured stream and flow control settings to the given HTTP/2 connection factory, leaving any
+     * setting that is not configured at its default
+     * @param connectionFactory the HTTP/2 connection factory
+     * @param configuration the configuration of the server
+     * @return the configured connection factory
+     */
+    private static AbstractHTTP2ServerConnectionFactory configure(final AbstractHTTP2ServerConnectionFactory connectionFactory, final ServerConfiguration configuration) {
+        if (configuration.getMaxConcurrentStreams() != DEFAULT) {
+            connectionFactory.setMaxConcurrentStreams(configuration.getMaxConcurrentStreams());
+        }
+        if (configuration.getInitialStreamWindow() != DEFAULT) {
+            connectionFactory.setInitialStreamRecvWindow(configuration.getInitialStreamWindow());
+        }
+        if (configuration.getInitialSessionWindow() != DEFAULT) {
+            connectionFactory.setInitialSessionRecvWindow(configuration.getInitialSessionWindow());
+        }
+        return connectionFactory;
+    }
+
+}
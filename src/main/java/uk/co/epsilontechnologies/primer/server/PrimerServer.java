@@ -1,12 +1,31 @@
 package uk.co.epsilontechnologies.primer.server;
 
+import org.eclipse.jetty.http.DateGenerator;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static uk.co.epsilontechnologies.primer.server.ServerConfiguration.DEFAULT;
 
 /**
  * Wrapper of the Jetty HTTP Server.
@@ -16,24 +35,204 @@ import java.io.IOException;
 public class PrimerServer {
 
     /**
-     * The Jetty HTTP Server
+     * Logger to use for error / warn / debug logging
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrimerServer.class);
+
+    /**
+     * The maximum number of threads in the pool, unless configured otherwise
+     */
+    private static final int DEFAULT_MAX_THREADS = 200;
+
+    /**
+     * The minimum number of threads in the pool, unless configured otherwise
+     */
+    private static final int DEFAULT_MIN_THREADS = 8;
+
+    /**
+     * The time in milliseconds for which a thread above the minimum may be idle before it is stopped
+     */
+    private static final int DEFAULT_THREAD_IDLE_TIMEOUT = 60000;
+
+    /**
+     * Whether the components of the response path that are slow to initialize have been warmed up in this JVM
+     */
+    private static final AtomicBoolean WARMED_UP = new AtomicBoolean();
+
+    /**
+     * The port on which the server should operate, or zero for a port chosen when the server starts
+     */
+    private final int port;
+
+    /**
+     * The server-agnostic request handler
+     */
+    private final RequestHandler requestHandler;
+
+    /**
+     * The configuration of the thread pool, connector and sockets of the server
+     */
+    private final ServerConfiguration configuration;
+
+    /**
+     * The executor on which requests are handled, or null if they are handled on the threads of the server
+     */
+    private final Executor handlerExecutor;
+
+    /**
+     * The Jetty HTTP Server - constructed when the server is first started, then reused for each restart
      */
-    private final Server server;
+    private Server server;
 
     /**
      * Constructs a server for the given port and request handler
-     * @param port the port on which the server should operate
+     * @param port the port on which the server should operate, or zero for a port chosen when the server starts
      * @param requestHandler the request handler to use
      */
     public PrimerServer(final int port, final RequestHandler requestHandler) {
-        this.server = new Server(port);
-        this.server.setHandler(new ServerRequestHandler(requestHandler));
+        this(port, requestHandler, ServerConfigurationBuilder.configuration().build());
+    }
+
+    /**
+     * Constructs a server for the given port, request handler and configuration.
+     * The Jetty server itself is not constructed until the server is first started.
+     * @param port the port on which the server should operate, or zero for a port chosen when the server starts
+     * @param requestHandler the request handler to use
+     * @param configuration the configuration of the thread pool, connector and sockets of the server
+     * @throws UnsupportedOperationException virtual threads are configured, but the Java runtime does not provide them
+     */
+    public PrimerServer(final int port, final RequestHandler requestHandler, final ServerConfiguration configuration) {
+        this.port = port;
+        this.requestHandler = requestHandler;
+        this.configuration = configuration;
+        this.handlerExecutor = configuration.isVirtualThreads() ? VirtualThreads.newExecutor() : null;
+    }
+
+    /**
+     * Constructs a server that is hosted by a shared server, rather than running a server of its own
+     */
+    PrimerServer() {
+        this.port = 0;
+        this.requestHandler = null;
+        this.configuration = null;
+        this.handlerExecutor = null;
+    }
+
+    /**
+     * Constructs the Jetty server
+     * @return the Jetty server
+     */
+    private Server newServer() {
+        final Server server = new Server(newThreadPool(configuration));
+        server.setConnectors(newConnectors(server, port, configuration));
+        // the root context provides the async context with the means to dispatch tasks onto the server threads
+        final ContextHandler contextHandler = new ContextHandler("/");
+        contextHandler.setHandler(new ServerRequestHandler(requestHandler, handlerExecutor));
+        server.setHandler(contextHandler);
+        return server;
+    }
+
+    /**
+     * Warms up the components of the response path that are slow to initialize on first use, once per JVM, alongside
+     * the start of the server rather than within the first request
+     */
+    private static void warmUp() {
+        if (WARMED_UP.compareAndSet(false, true)) {
+            final Thread warmUp = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    // the Date header loads the calendar data of the default locale when first formatted
+                    DateGenerator.formatDate(System.currentTimeMillis());
+                }
+            }, "primer-warm-up");
+            warmUp.setDaemon(true);
+            warmUp.start();
+        }
+    }
+
+    /**
+     * Constructs the thread pool of the server, leaving any setting that is not configured at its default
+     * @param configuration the configuration of the server
+     * @return the thread pool
+     */
+    private static QueuedThreadPool newThreadPool(final ServerConfiguration configuration) {
+        final int maxThreads = configuration.getMaxThreads() != DEFAULT ? configuration.getMaxThreads() : DEFAULT_MAX_THREADS;
+        final int minThreads = configuration.getMinThreads() != DEFAULT ? configuration.getMinThreads() : Math.min(DEFAULT_MIN_THREADS, maxThreads);
+        final QueuedThreadPool threadPool = new QueuedThreadPool(
+                maxThreads,
+                minThreads,
+                DEFAULT_THREAD_IDLE_TIMEOUT,
+                configuration.getQueueSize() != DEFAULT ? new BlockingArrayQueue<Runnable>(configuration.getQueueSize()) : null);
+        threadPool.setName("primer");
+        return threadPool;
+    }
+
+    /**
+     * Constructs the connectors of the server - for cleartext connections on the given port, and for connections over
+     * TLS if configured - each offering HTTP/1.1, and HTTP/2 if configured
+     * @param server the server to which the connectors belong
+     * @param port the port on which cleartext connections should be accepted
+     * @param configuration the configuration of the server
+     * @return the connectors
+     */
+    private static Connector[] newConnectors(final Server server, final int port, final ServerConfiguration configuration) {
+        final HttpConfiguration httpConfiguration = new HttpConfiguration();
+        if (configuration.getOutputBufferSize() != DEFAULT) {
+            httpConfiguration.setOutputBufferSize(configuration.getOutputBufferSize());
+        }
+        // the classes of HTTP/2 and TLS are only loaded if they are configured
+        final ServerConnector cleartextConnector = configuration.isHttp2()
+                ? newConnector(server, port, configuration, ConnectionFactories.h2c(httpConfiguration, configuration))
+                : newConnector(server, port, configuration, new HttpConnectionFactory(httpConfiguration));
+        if (configuration.getTlsPort() == DEFAULT) {
+            return new Connector[] { cleartextConnector };
+        }
+        final Connector tlsConnector = newConnector(server, configuration.getTlsPort(), configuration, ConnectionFactories.tls(httpConfiguration, configuration));
+        return new Connector[] { cleartextConnector, tlsConnector };
+    }
+
+    /**
+     * Constructs a connector of the server, leaving any setting that is not configured at its default
+     * @param server the server to which the connector belongs
+     * @param port the port on which the connector should accept connections
+     * @param configuration the configuration of the server
+     * @param connectionFactories the factories of the connections accepted, in the order in which they are layered
+     * @return the connector
+     */
+    private static ServerConnector newConnector(final Server server, final int port, final ServerConfiguration configuration, final ConnectionFactory... connectionFactories) {
+        final boolean tcpNoDelay = configuration.isTcpNoDelay();
+        // zero acceptors or selectors leaves the server to choose the number from the available processors
+        final int acceptors = configuration.getAcceptors() != DEFAULT ? configuration.getAcceptors() : 0;
+        final int selectors = configuration.getSelectors() != DEFAULT ? configuration.getSelectors() : 0;
+        final ServerConnector connector = new ServerConnector(server, null, null, null, acceptors, selectors, connectionFactories) {
+            @Override
+            protected void configure(final Socket socket) {
+                super.configure(socket);
+                try {
+                    socket.setTcpNoDelay(tcpNoDelay);
+                } catch (final SocketException e) {
+                    LOGGER.warn("PRIMER :-- Unable to configure TCP_NODELAY", e);
+                }
+            }
+        };
+        connector.setPort(port);
+        if (configuration.getAcceptQueueSize() != DEFAULT) {
+            connector.setAcceptQueueSize(configuration.getAcceptQueueSize());
+        }
+        if (configuration.getIdleTimeout() != DEFAULT) {
+            connector.setIdleTimeout(configuration.getIdleTimeout());
+        }
+        return connector;
     }
 
     /**
      * Start the server
      */
-    public void start() {
+    public synchronized void start() {
+        if (this.server == null) {
+            warmUp();
+            this.server = newServer();
+        }
         try {
             this.server.start();
         } catch (final Exception e) {
@@ -41,10 +240,25 @@ public class PrimerServer {
         }
     }
 
+    /**
+     * Getter for the port on which the server operates - once started, the port to which it is bound, which is chosen
+     * when the server starts if it was constructed for port zero
+     * @return the port of the server
+     */
+    public synchronized int getPort() {
+        if (this.server != null && this.server.isStarted()) {
+            return ((ServerConnector) this.server.getConnectors()[0]).getLocalPort();
+        }
+        return this.port;
+    }
+
     /**
      * Stop the server
      */
-    public void stop() {
+    public synchronized void stop() {
+        if (this.server == null) {
+            return;
+        }
         try {
             this.server.stop();
         } catch (final Exception e) {
@@ -53,8 +267,15 @@ public class PrimerServer {
     }
 
     public void join() {
+        final Server server;
+        synchronized (this) {
+            server = this.server;
+        }
+        if (server == null) {
+            return;
+        }
         try {
-            this.server.join();
+            server.join();
         } catch (final Exception e) {
             throw new RuntimeException(e);
         }
@@ -70,16 +291,26 @@ public class PrimerServer {
          */
         private final RequestHandler requestHandler;
 
+        /**
+         * The executor on which requests are handled, or null if they are handled on the threads of the server
+         */
+        private final Executor handlerExecutor;
+
         /**
          * Constructs a server request handler for the given server-agnostic request handler
          * @param requestHandler the request handler to wrap
+         * @param handlerExecutor the executor on which requests are handled, or null to handle them on the server threads
          */
-        public ServerRequestHandler(final RequestHandler requestHandler) {
+        public ServerRequestHandler(final RequestHandler requestHandler, final Executor handlerExecutor) {
             this.requestHandler = requestHandler;
+            this.handlerExecutor = handlerExecutor;
         }
 
         /**
-         * Handler implementation for any HTTP request
+         * Handler implementation for any HTTP request.
+         * Requests with a body have it read without blocking, and are handled once it has been read in full, so that
+         * slow clients do not hold a server thread while they send it. Requests without a body are handled directly,
+         * unless requests are handled on an executor of their own, to which every request is then handed.
          *
          * @see AbstractHandler#handle(String, org.eclipse.jetty.server.Request, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
          *
@@ -96,7 +327,88 @@ public class PrimerServer {
                 final org.eclipse.jetty.server.Request baseRequest,
                 final HttpServletRequest httpServletRequest,
                 final HttpServletResponse httpServletResponse) throws IOException, ServletException {
-            this.requestHandler.handle(httpServletRequest, httpServletResponse);
+            baseRequest.setHandled(true);
+            final boolean hasBody = hasBody(httpServletRequest);
+            if ((hasBody || handlerExecutor != null) && httpServletRequest.isAsyncSupported()) {
+                final AsyncContext asyncContext = httpServletRequest.startAsync(httpServletRequest, httpServletResponse);
+                // a stalled upload is ended by the idle timeout of the connection rather than of the async context
+                asyncContext.setTimeout(0);
+                if (hasBody) {
+                    final ServletInputStream inputStream = httpServletRequest.getInputStream();
+                    inputStream.setReadListener(new BodyReader(inputStream, httpServletRequest.getContentLengthLong(), new BodyReader.Callback() {
+                        @Override
+                        public void onBody(final byte[] body) {
+                            dispatch(httpServletRequest, httpServletResponse, asyncContext, body);
+                        }
+                        @Override
+                        public void onError(final Throwable throwable) {
+                            fail(httpServletResponse, asyncContext, throwable);
+                        }
+                    }));
+                } else {
+                    dispatch(httpServletRequest, httpServletResponse, asyncContext, new byte[0]);
+                }
+            } else {
+                this.requestHandler.handle(httpServletRequest, httpServletResponse);
+            }
+        }
+
+        /**
+         * Handles the given request, whose body has been read, on the executor for requests if there is one
+         * @param httpServletRequest the HTTP servlet request
+         * @param httpServletResponse the HTTP servlet response
+         * @param asyncContext the async context of the request
+         * @param body the request body
+         */
+        private void dispatch(
+                final HttpServletRequest httpServletRequest,
+                final HttpServletResponse httpServletResponse,
+                final AsyncContext asyncContext,
+                final byte[] body) {
+            final Runnable handler = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        requestHandler.handle(httpServletRequest, httpServletResponse, asyncContext, body);
+                    } catch (final RuntimeException e) {
+                        fail(httpServletResponse, asyncContext, e);
+                    }
+                }
+            };
+            if (handlerExecutor != null) {
+                handlerExecutor.execute(handler);
+            } else {
+                handler.run();
+            }
+        }
+
+        /**
+         * Fails the given request, whose body could not be read or handled
+         * @param httpServletResponse the HTTP servlet response
+         * @param asyncContext the async context of the request
+         * @param throwable the cause of the failure
+         */
+        private void fail(final HttpServletResponse httpServletResponse, final AsyncContext asyncContext, final Throwable throwable) {
+            LOGGER.warn("PRIMER :-- Failed to handle request", throwable);
+            if (!httpServletResponse.isCommitted()) {
+                httpServletResponse.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+            asyncContext.complete();
+        }
+
+        /**
+         * Determines whether the given request may have a body: one of a declared length, or chunked, or - beyond
+         * HTTP/1.x, where a body need not declare its length at all - one of an undeclared length, which is then left
+         * to the non-blocking read to find
+         * @param httpServletRequest the HTTP servlet request
+         * @return true if the request may have a body, false otherwise
+         */
+        private boolean hasBody(final HttpServletRequest httpServletRequest) {
+            final long contentLength = httpServletRequest.getContentLengthLong();
+            final String protocol = httpServletRequest.getProtocol();
+            return contentLength > 0
+                    || httpServletRequest.getHeader("Transfer-Encoding") != null
+                    || contentLength < 0 && (protocol == null || !protocol.startsWith("HTTP/1."));
         }
 
     }
@@ -0,0 +1,73 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Wrapper for a HTTP Servlet Request whose body has already been read without blocking, which replays that body to
+ * any handler that reads the request's input stream or reader.
+ *
+ * @author Shane Gibson
+ */
+class ReadBodyRequest extends HttpServletRequestWrapper {
+
+    /**
+     * The charset in which the body is read, when the request does not declare one
+     */
+    private static final String DEFAULT_CHARSET = "ISO-8859-1";
+
+    /**
+     * The stream that replays the body
+     */
+    private final ServletInputStream inputStream;
+
+    /**
+     * Constructs the wrapper for the given request, whose body has already been read
+     * @param httpServletRequest the request to wrap
+     * @param body the body that has been read
+     */
+    ReadBodyRequest(final HttpServletRequest httpServletRequest, final byte[] body) {
+        super(httpServletRequest);
+        final ByteArrayInputStream content = new ByteArrayInputStream(body);
+        this.inputStream = new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return content.available() == 0;
+            }
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+            @Override
+            public void setReadListener(final ReadListener readListener) {
+                throw new IllegalStateException("The body has already been read");
+            }
+            @Override
+            public int read() {
+                return content.read();
+            }
+            @Override
+            public int read(final byte[] b, final int off, final int len) {
+                return content.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        final String characterEncoding = getCharacterEncoding();
+        return new BufferedReader(new InputStreamReader(inputStream, characterEncoding != null ? characterEncoding : DEFAULT_CHARSET));
+    }
+
+}
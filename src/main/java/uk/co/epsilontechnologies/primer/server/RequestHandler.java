@@ -1,5 +1,6 @@
 package uk.co.epsilontechnologies.primer.server;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -17,4 +18,22 @@ public interface RequestHandler {
      */
     void handle(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse);
 
+    /**
+     * Handles the HTTP Servlet Request and Response, once the request body has been read without blocking.
+     * The async context that was started to read the body must be completed once the response has been issued.
+     * By default, the request is handled as any other, with its body replayed from what has been read, and the async
+     * context is then completed.
+     * @param httpServletRequest the HTTP servlet request to handle
+     * @param httpServletResponse the HTTP servlet response to issue
+     * @param asyncContext the async context that was started to read the request body
+     * @param body the request body
+     */
+    default void handle(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, AsyncContext asyncContext, byte[] body) {
+        try {
+            handle(new ReadBodyRequest(httpServletRequest, body), httpServletResponse);
+        } finally {
+            asyncContext.complete();
+        }
+    }
+
 }
\ No newline at end of file
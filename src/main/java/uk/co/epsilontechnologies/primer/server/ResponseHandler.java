@@ -1,7 +1,11 @@
 package uk.co.epsilontechnologies.primer.server;
 
+import uk.co.epsilontechnologies.primer.domain.AsyncResponse;
+import uk.co.epsilontechnologies.primer.domain.HttpServletRequestWrapper;
+import uk.co.epsilontechnologies.primer.domain.RequestAwareResponse;
 import uk.co.epsilontechnologies.primer.domain.Response;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
@@ -25,4 +29,33 @@ public class ResponseHandler {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Marshals the given response into the HTTP Servlet Response, for the request that it was matched against.
+     * Asynchronous responses are populated within the async context of the request, which is started if required.
+     * Synchronous responses to a request that is already asynchronous complete its async context once populated.
+     * @param response the response to issue
+     * @param requestWrapper the request that was matched
+     * @param httpServletResponse the HTTP servlet response to write to
+     */
+    public void respond(final Response response, final HttpServletRequestWrapper requestWrapper, final HttpServletResponse httpServletResponse) {
+        try {
+            if (response instanceof AsyncResponse) {
+                final AsyncContext asyncContext = requestWrapper.isAsyncStarted() ? requestWrapper.getAsyncContext() : requestWrapper.startAsync(requestWrapper, httpServletResponse);
+                asyncContext.setTimeout(0);
+                ((AsyncResponse) response).populate(asyncContext, httpServletResponse);
+            } else {
+                if (response instanceof RequestAwareResponse) {
+                    ((RequestAwareResponse) response).populate(requestWrapper, httpServletResponse);
+                } else {
+                    response.populate(httpServletResponse);
+                }
+                if (requestWrapper.isAsyncStarted()) {
+                    requestWrapper.getAsyncContext().complete();
+                }
+            }
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
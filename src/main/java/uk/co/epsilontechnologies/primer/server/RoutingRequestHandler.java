@@ -0,0 +1,146 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Routes each request to the request handler registered for its Host, or failing that for its context path.
+ * Routes are held in hash maps, so that the cost of routing a request depends on the depth of its path rather than on
+ * the number of routes. A request is routed to the handler of the longest registered context path that prefixes it.
+ *
+ * @author Shane Gibson
+ */
+class RoutingRequestHandler implements RequestHandler {
+
+    /**
+     * The request handlers routed by host name (in lower case, without a port)
+     */
+    private final ConcurrentMap<String,RequestHandler> hostRoutes = new ConcurrentHashMap<>();
+
+    /**
+     * The request handlers routed by context path
+     */
+    private final ConcurrentMap<String,RequestHandler> contextPathRoutes = new ConcurrentHashMap<>();
+
+    /**
+     * Routes requests for the given host to the given request handler
+     * @param host the host name
+     * @param requestHandler the request handler
+     * @throws IllegalStateException requests for the host are already routed
+     */
+    void routeHost(final String host, final RequestHandler requestHandler) {
+        if (hostRoutes.putIfAbsent(normalizeHost(host), requestHandler) != null) {
+            throw new IllegalStateException("Host is already routed: " + host);
+        }
+    }
+
+    /**
+     * Routes requests for the given context path to the given request handler
+     * @param contextPath the context path
+     * @param requestHandler the request handler
+     * @throws IllegalStateException requests for the context path are already routed
+     */
+    void routeContextPath(final String contextPath, final RequestHandler requestHandler) {
+        if (contextPathRoutes.putIfAbsent(normalizeContextPath(contextPath), requestHandler) != null) {
+            throw new IllegalStateException("Context path is already routed: " + contextPath);
+        }
+    }
+
+    /**
+     * Stops routing requests for the given host
+     * @param host the host name
+     */
+    void unrouteHost(final String host) {
+        hostRoutes.remove(normalizeHost(host));
+    }
+
+    /**
+     * Stops routing requests for the given context path
+     * @param contextPath the context path
+     */
+    void unrouteContextPath(final String contextPath) {
+        contextPathRoutes.remove(normalizeContextPath(contextPath));
+    }
+
+    /**
+     * Determines whether any requests are routed
+     * @return true if no requests are routed, false otherwise
+     */
+    boolean isEmpty() {
+        return hostRoutes.isEmpty() && contextPathRoutes.isEmpty();
+    }
+
+    @Override
+    public void handle(final HttpServletRequest httpServletRequest, final HttpServletResponse httpServletResponse) {
+        final RequestHandler requestHandler = route(httpServletRequest);
+        if (requestHandler != null) {
+            requestHandler.handle(httpServletRequest, httpServletResponse);
+        } else {
+            notRouted(httpServletResponse);
+        }
+    }
+
+    @Override
+    public void handle(final HttpServletRequest httpServletRequest, final HttpServletResponse httpServletResponse, final AsyncContext asyncContext, final byte[] body) {
+        final RequestHandler requestHandler = route(httpServletRequest);
+        if (requestHandler != null) {
+            requestHandler.handle(httpServletRequest, httpServletResponse, asyncContext, body);
+        } else {
+            notRouted(httpServletResponse);
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * Finds the request handler for the given request - that of its host, if routed, otherwise that of the longest
+     * routed context path of its URI
+     * @param httpServletRequest the HTTP servlet request
+     * @return the request handler, or null if the request is not routed
+     */
+    RequestHandler route(final HttpServletRequest httpServletRequest) {
+        if (!hostRoutes.isEmpty()) {
+            final String host = httpServletRequest.getHeader("Host");
+            if (host != null) {
+                final RequestHandler requestHandler = hostRoutes.get(normalizeHost(host));
+                if (requestHandler != null) {
+                    return requestHandler;
+                }
+            }
+        }
+        final String uri = httpServletRequest.getRequestURI();
+        if (uri != null) {
+            for (int end = uri.length(); end > 0; end = uri.lastIndexOf('/', end - 1)) {
+                final RequestHandler requestHandler = contextPathRoutes.get(uri.substring(0, end));
+                if (requestHandler != null) {
+                    return requestHandler;
+                }
+            }
+        }
+        return contextPathRoutes.get("");
+    }
+
+    private void notRouted(final HttpServletResponse httpServletResponse) {
+        try {
+            httpServletResponse.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            httpServletResponse.getWriter().write("Request Not Routed");
+            httpServletResponse.flushBuffer();
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String normalizeHost(final String host) {
+        final int portSeparator = host.startsWith("[") ? host.indexOf(':', host.indexOf(']')) : host.indexOf(':');
+        return (portSeparator < 0 ? host : host.substring(0, portSeparator)).trim().toLowerCase(Locale.ENGLISH);
+    }
+
+    private static String normalizeContextPath(final String contextPath) {
+        return contextPath == null || "/".equals(contextPath) ? "" : contextPath.endsWith("/") ? contextPath.substring(0, contextPath.length() - 1) : contextPath;
+    }
+
+}
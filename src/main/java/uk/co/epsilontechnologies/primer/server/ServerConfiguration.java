@@ -0,0 +1,331 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+
+/**
+ * The configuration of the thread pool, connector and sockets of a Primer Server.
+ * Any setting that is not configured is left at the default of the server.
+ *
+ * @author Shane Gibson
+ */
+public class ServerConfiguration {
+
+    /**
+     * The value of a setting that is left at the default of the server
+     */
+    public static final int DEFAULT = -1;
+
+    /**
+     * The minimum number of threads in the pool
+     */
+    private final int minThreads;
+
+    /**
+     * The maximum number of threads in the pool
+     */
+    private final int maxThreads;
+
+    /**
+     * The maximum number of jobs queued for the threads of the pool
+     */
+    private final int queueSize;
+
+    /**
+     * The number of threads that accept connections
+     */
+    private final int acceptors;
+
+    /**
+     * The number of selectors that process the connections that have been accepted
+     */
+    private final int selectors;
+
+    /**
+     * The number of connections that may be pending acceptance by the operating system
+     */
+    private final int acceptQueueSize;
+
+    /**
+     * The time in milliseconds for which a connection may be idle before it is closed
+     */
+    private final long idleTimeout;
+
+    /**
+     * Whether Nagle's algorithm is disabled on each connection
+     */
+    private final boolean tcpNoDelay;
+
+    /**
+     * The size in bytes of the buffer of the response content
+     */
+    private final int outputBufferSize;
+
+    /**
+     * Whether requests are handled on virtual threads, rather than on the threads of the pool
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * Whether HTTP/2 is offered alongside HTTP/1.1 - as h2c on the cleartext port, and as h2 on the TLS port
+     */
+    private final boolean http2;
+
+    /**
+     * The maximum number of concurrent streams of each HTTP/2 connection
+     */
+    private final int maxConcurrentStreams;
+
+    /**
+     * The initial flow control window in bytes of each HTTP/2 stream
+     */
+    private final int initialStreamWindow;
+
+    /**
+     * The initial flow control window in bytes of each HTTP/2 connection
+     */
+    private final int initialSessionWindow;
+
+    /**
+     * The port on which connections are accepted over TLS, or -1 if they are not
+     */
+    private final int tlsPort;
+
+    /**
+     * The path of the key store holding the certificate presented over TLS
+     */
+    private final String keyStorePath;
+
+    /**
+     * The password of the key store holding the certificate presented over TLS
+     */
+    private final String keyStorePassword;
+
+    /**
+     * Constructs the server configuration for the given settings
+     * @param minThreads the minimum number of threads in the pool
+     * @param maxThreads the maximum number of threads in the pool
+     * @param queueSize the maximum number of jobs queued for the threads of the pool
+     * @param acceptors the number of threads that accept connections
+     * @param selectors the number of selectors that process the connections that have been accepted
+     * @param acceptQueueSize the number of connections that may be pending acceptance by the operating system
+     * @param idleTimeout the time in milliseconds for which a connection may be idle before it is closed
+     * @param tcpNoDelay whether Nagle's algorithm is disabled on each connection
+     * @param outputBufferSize the size in bytes of the buffer of the response content
+     * @param virtualThreads whether requests are handled on virtual threads, rather than on the threads of the pool
+     * @param http2 whether HTTP/2 is offered alongside HTTP/1.1
+     * @param maxConcurrentStreams the maximum number of concurrent streams of each HTTP/2 connection
+     * @param initialStreamWindow the initial flow control window in bytes of each HTTP/2 stream
+     * @param initialSessionWindow the initial flow control window in bytes of each HTTP/2 connection
+     * @param tlsPort the port on which connections are accepted over TLS, or -1 if they are not
+     * @param keyStorePath the path of the key store holding the certificate presented over TLS
+     * @param keyStorePassword the password of the key store holding the certificate presented over TLS
+     */
+    ServerConfiguration(
+            final int minThreads,
+            final int maxThreads,
+            final int queueSize,
+            final int acceptors,
+            final int selectors,
+            final int acceptQueueSize,
+            final long idleTimeout,
+            final boolean tcpNoDelay,
+            final int outputBufferSize,
+            final boolean virtualThreads,
+            final boolean http2,
+            final int maxConcurrentStreams,
+            final int initialStreamWindow,
+            final int initialSessionWindow,
+            final int tlsPort,
+            final String keyStorePath,
+            final String keyStorePassword) {
+        if (minThreads != DEFAULT && maxThreads != DEFAULT && minThreads > maxThreads) {
+            throw new IllegalArgumentException("Minimum threads must not exceed maximum threads: " + minThreads + " > " + maxThreads);
+        }
+        if (tlsPort != DEFAULT && keyStorePath == null) {
+            throw new IllegalArgumentException("A key store is required to accept connections over TLS");
+        }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.queueSize = queueSize;
+        this.acceptors = acceptors;
+        this.selectors = selectors;
+        this.acceptQueueSize = acceptQueueSize;
+        this.idleTimeout = idleTimeout;
+        this.tcpNoDelay = tcpNoDelay;
+        this.outputBufferSize = outputBufferSize;
+        this.virtualThreads = virtualThreads;
+        this.http2 = http2;
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.initialStreamWindow = initialStreamWindow;
+        this.initialSessionWindow = initialSessionWindow;
+        this.tlsPort = tlsPort;
+        this.keyStorePath = keyStorePath;
+        this.keyStorePassword = keyStorePassword;
+    }
+
+    /**
+     * Getter for the minimum number of threads in the pool
+     * @return the minimum number of threads in the pool
+     */
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    /**
+     * Getter for the maximum number of threads in the pool
+     * @return the maximum number of threads in the pool
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Getter for the maximum number of jobs queued for the threads of the pool
+     * @return the maximum number of jobs queued for the threads of the pool
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Getter for the number of threads that accept connections
+     * @return the number of threads that accept connections
+     */
+    public int getAcceptors() {
+        return acceptors;
+    }
+
+    /**
+     * Getter for the number of selectors that process the connections that have been accepted
+     * @return the number of selectors that process the connections that have been accepted
+     */
+    public int getSelectors() {
+        return selectors;
+    }
+
+    /**
+     * Getter for the number of connections that may be pending acceptance by the operating system
+     * @return the number of connections that may be pending acceptance by the operating system
+     */
+    public int getAcceptQueueSize() {
+        return acceptQueueSize;
+    }
+
+    /**
+     * Getter for the time in milliseconds for which a connection may be idle before it is closed
+     * @return the time in milliseconds for which a connection may be idle before it is closed
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Getter for whether Nagle's algorithm is disabled on each connection
+     * @return whether Nagle's algorithm is disabled on each connection
+     */
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * Getter for the size in bytes of the buffer of the response content
+     * @return the size in bytes of the buffer of the response content
+     */
+    public int getOutputBufferSize() {
+        return outputBufferSize;
+    }
+
+    /**
+     * Getter for whether requests are handled on virtual threads, rather than on the threads of the pool
+     * @return whether requests are handled on virtual threads, rather than on the threads of the pool
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Getter for whether HTTP/2 is offered alongside HTTP/1.1
+     * @return whether HTTP/2 is offered alongside HTTP/1.1
+     */
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    /**
+     * Getter for the maximum number of concurrent streams of each HTTP/2 connection
+     * @return the maximum number of concurrent streams of each HTTP/2 connection
+     */
+    public int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    /**
+     * Getter for the initial flow control window in bytes of each HTTP/2 stream
+     * @return the initial flow control window in bytes of each HTTP/2 stream
+     */
+    public int getInitialStreamWindow() {
+        return initialStreamWindow;
+    }
+
+    /**
+     * Getter for the initial flow control window in bytes of each HTTP/2 connection
+     * @return the initial flow control window in bytes of each HTTP/2 connection
+     */
+    public int getInitialSessionWindow() {
+        return initialSessionWindow;
+    }
+
+    /**
+     * Getter for the port on which connections are accepted over TLS, or -1 if they are not
+     * @return the port on which connections are accepted over TLS, or -1 if they are not
+     */
+    public int getTlsPort() {
+        return tlsPort;
+    }
+
+    /**
+     * Getter for the path of the key store holding the certificate presented over TLS
+     * @return the path of the key store holding the certificate presented over TLS
+     */
+    public String getKeyStorePath() {
+        return keyStorePath;
+    }
+
+    /**
+     * Getter for the password of the key store holding the certificate presented over TLS
+     * @return the password of the key store holding the certificate presented over TLS
+     */
+    public String getKeyStorePassword() {
+        return keyStorePassword;
+    }
+
+    /**
+     * @see Object#toString()
+     * @return the string representation of the server configuration
+     */
+    @Override
+    public String toString() {
+        return ReflectionToStringBuilder.toStringExclude(this, "keyStorePassword");
+    }
+
+    /**
+     * @see Object#equals(Object)
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public boolean equals(final Object o) {
+        return EqualsBuilder.reflectionEquals(this, o);
+    }
+
+    /**
+     * @see Object#hashCode()
+     * @return the hash code for this instance
+     */
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
+
+}
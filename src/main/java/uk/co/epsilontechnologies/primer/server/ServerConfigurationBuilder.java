@@ -0,0 +1,215 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import static uk.co.epsilontechnologies.primer.server.ServerConfiguration.DEFAULT;
+
+/**
+ * Builder implementation for a Server Configuration
+ *
+ * @author Shane Gibson
+ */
+public class ServerConfigurationBuilder {
+
+    /**
+     * Statically constructs a builder for a server configuration, with every setting left at the default of the server
+     * @return the server configuration builder
+     */
+    public static ServerConfigurationBuilder configuration() {
+        return new ServerConfigurationBuilder();
+    }
+
+    /**
+     * The minimum number of threads in the pool
+     */
+    private int minThreads = DEFAULT;
+
+    /**
+     * The maximum number of threads in the pool
+     */
+    private int maxThreads = DEFAULT;
+
+    /**
+     * The maximum number of jobs queued for the threads of the pool
+     */
+    private int queueSize = DEFAULT;
+
+    /**
+     * The number of threads that accept connections
+     */
+    private int acceptors = DEFAULT;
+
+    /**
+     * The number of selectors that process the connections that have been accepted
+     */
+    private int selectors = DEFAULT;
+
+    /**
+     * The number of connections that may be pending acceptance by the operating system
+     */
+    private int acceptQueueSize = DEFAULT;
+
+    /**
+     * The time in milliseconds for which a connection may be idle before it is closed
+     */
+    private long idleTimeout = DEFAULT;
+
+    /**
+     * Whether Nagle's algorithm is disabled on each connection
+     */
+    private boolean tcpNoDelay = true;
+
+    /**
+     * The size in bytes of the buffer of the response content
+     */
+    private int outputBufferSize = DEFAULT;
+
+    /**
+     * Whether requests are handled on virtual threads, rather than on the threads of the pool
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * Whether HTTP/2 is offered alongside HTTP/1.1 - as h2c on the cleartext port, and as h2 on the TLS port
+     */
+    private boolean http2 = false;
+
+    /**
+     * The maximum number of concurrent streams of each HTTP/2 connection
+     */
+    private int maxConcurrentStreams = DEFAULT;
+
+    /**
+     * The initial flow control window in bytes of each HTTP/2 stream
+     */
+    private int initialStreamWindow = DEFAULT;
+
+    /**
+     * The initial flow control window in bytes of each HTTP/2 connection
+     */
+    private int initialSessionWindow = DEFAULT;
+
+    /**
+     * The port on which connections are accepted over TLS, or -1 if they are not
+     */
+    private int tlsPort = DEFAULT;
+
+    /**
+     * The path of the key store holding the certificate presented over TLS
+     */
+    private String keyStorePath;
+
+    /**
+     * The password of the key store holding the certificate presented over TLS
+     */
+    private String keyStorePassword;
+
+    ServerConfigurationBuilder() {
+        super();
+    }
+
+    public ServerConfigurationBuilder withMinThreads(final int minThreads) {
+        this.minThreads = minThreads;
+        return this;
+    }
+
+    public ServerConfigurationBuilder withMaxThreads(final int maxThreads) {
+        this.maxThreads = maxThreads;
+        return this;
+    }
+
+    public ServerConfigurationBuilder withQueueSize(final int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    public ServerConfigurationBuilder withAcceptors(final int acceptors) {
+        this.acceptors = acceptors;
+        return this;
+    }
+
+    public ServerConfigurationBuilder withSelectors(final int selectors) {
+        this.selectors = selectors;
+        return this;
+    }
+
+    public ServerConfigurationBuilder withAcceptQueueSize(final int acceptQueueSize) {
+        this.acceptQueueSize = acceptQueueSize;
+        return this;
+    }
+
+    public ServerConfigurationBuilder withIdleTimeout(final long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    public ServerConfigurationBuilder withTcpNoDelay(final boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    public ServerConfigurationBuilder withOutputBufferSize(final int outputBufferSize) {
+        this.outputBufferSize = outputBufferSize;
+        return this;
+    }
+
+    /**
+     * Handles requests on virtual threads, rather than on the threads of the pool, so that responses which block do
+     * not each hold a thread of the pool. Requires a Java runtime that provides virtual threads.
+     * @param virtualThreads whether requests are handled on virtual threads
+     * @return this builder
+     */
+    public ServerConfigurationBuilder withVirtualThreads(final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * Offers HTTP/2 alongside HTTP/1.1 - as h2c (by prior knowledge or upgrade) on the cleartext port, and as h2
+     * (negotiated by ALPN) on the TLS port, if there is one
+     * @param http2 whether HTTP/2 is offered
+     * @return this builder
+     */
+    public ServerConfigurationBuilder withHttp2(final boolean http2) {
+        this.http2 = http2;
+        return this;
+    }
+
+    public ServerConfigurationBuilder withMaxConcurrentStreams(final int maxConcurrentStreams) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    public ServerConfigurationBuilder withInitialStreamWindow(final int initialStreamWindow) {
+        this.initialStreamWindow = initialStreamWindow;
+        return this;
+    }
+
+    public ServerConfigurationBuilder withInitialSessionWindow(final int initialSessionWindow) {
+        this.initialSessionWindow = initialSessionWindow;
+        return this;
+    }
+
+    /**
+     * Accepts connections over TLS on the given port, in addition to cleartext connections
+     * @param tlsPort the port on which connections are accepted over TLS
+     * @param keyStorePath the path of the key store holding the certificate to present
+     * @param keyStorePassword the password of the key store
+     * @return this builder
+     */
+    public ServerConfigurationBuilder withTls(final int tlsPort, final String keyStorePath, final String keyStorePassword) {
+        this.tlsPort = tlsPort;
+        this.keyStorePath = keyStorePath;
+        this.keyStorePassword = keyStorePassword;
+        return this;
+    }
+
+    /**
+     * Builds the server configuration
+     * @return the server configuration
+     * @throws IllegalArgumentException the minimum threads exceed the maximum threads, or TLS is configured without a key store
+     */
+    public ServerConfiguration build() {
+        return new ServerConfiguration(minThreads, maxThreads, queueSize, acceptors, selectors, acceptQueueSize, idleTimeout, tcpNoDelay, outputBufferSize, virtualThreads,
+                http2, maxConcurrentStreams, initialStreamWindow, initialSessionWindow, tlsPort, keyStorePath, keyStorePassword);
+    }
+
+}
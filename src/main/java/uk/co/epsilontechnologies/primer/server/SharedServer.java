@@ -0,0 +1,212 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A server shared by many Primers on the same port, each routed by its context path or by Host.
+ * The thread pool, selectors and port of the server are paid for once rather than once per Primer. The server is
+ * started when the first Primer routed to it starts, and stopped when the last of them stops.
+ *
+ * @author Shane Gibson
+ */
+public class SharedServer {
+
+    /**
+     * The shared servers of this JVM, by port
+     */
+    private static final ConcurrentMap<Integer,SharedServer> SHARED_SERVERS = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the shared server for the given port, constructing it if this is the first use of the port
+     * @param port the port of the shared server
+     * @return the shared server
+     */
+    public static SharedServer on(final int port) {
+        return on(port, ServerConfigurationBuilder.configuration().build());
+    }
+
+    /**
+     * Gets the shared server for the given port, constructing it with the given configuration if this is the first use
+     * of the port. The configuration of a server that has already been constructed is not changed, so any later use
+     * of the port must give the same configuration.
+     * @param port the port of the shared server
+     * @param configuration the configuration of the server
+     * @return the shared server
+     * @throws IllegalStateException the shared server for the port has already been constructed with a different
+     * configuration
+     */
+    public static SharedServer on(final int port, final ServerConfiguration configuration) {
+        SharedServer sharedServer = SHARED_SERVERS.get(port);
+        if (sharedServer == null) {
+            final SharedServer newSharedServer = new SharedServer(port, configuration);
+            final SharedServer existingSharedServer = SHARED_SERVERS.putIfAbsent(port, newSharedServer);
+            sharedServer = existingSharedServer != null ? existingSharedServer : newSharedServer;
+        }
+        if (!sharedServer.configuration.equals(configuration)) {
+            throw new IllegalStateException("The shared server on port " + port + " is already configured as "
+                    + sharedServer.configuration + ", so cannot be configured as " + configuration);
+        }
+        return sharedServer;
+    }
+
+    /**
+     * The port of the shared server
+     */
+    private final int port;
+
+    /**
+     * The router of the requests to the Primers of the shared server
+     */
+    private final RoutingRequestHandler router;
+
+    /**
+     * The configuration of the server
+     */
+    private final ServerConfiguration configuration;
+
+    /**
+     * The server, while any Primer routed to it is started
+     */
+    private PrimerServer primerServer;
+
+    /**
+     * Constructs the shared server for the given port and configuration
+     * @param port the port of the shared server
+     * @param configuration the configuration of the server
+     */
+    SharedServer(final int port, final ServerConfiguration configuration) {
+        this.port = port;
+        this.configuration = configuration;
+        this.router = new RoutingRequestHandler();
+    }
+
+    /**
+     * Constructs the server of a Primer that is hosted by this shared server, routed by context path
+     * @param contextPath the context path of the Primer
+     * @param requestHandler the request handler of the Primer
+     * @return the server of the Primer, which is routed while it is started
+     */
+    public PrimerServer routeContextPath(final String contextPath, final RequestHandler requestHandler) {
+        return new RoutedServer(null, contextPath, requestHandler);
+    }
+
+    /**
+     * Constructs the server of a Primer that is hosted by this shared server, routed by Host
+     * @param host the host name of the Primer
+     * @param requestHandler the request handler of the Primer
+     * @return the server of the Primer, which is routed while it is started
+     */
+    public PrimerServer routeHost(final String host, final RequestHandler requestHandler) {
+        return new RoutedServer(host, null, requestHandler);
+    }
+
+    /**
+     * Routes the given Primer server, starting the shared server if it is the first to be routed
+     * @param routedServer the Primer server to route
+     * @throws IllegalStateException the context path or host of the Primer server is already routed
+     */
+    private synchronized void attach(final RoutedServer routedServer) {
+        if (routedServer.host != null) {
+            router.routeHost(routedServer.host, routedServer.requestHandler);
+        } else {
+            router.routeContextPath(routedServer.contextPath, routedServer.requestHandler);
+        }
+        if (primerServer == null) {
+            final PrimerServer server = new PrimerServer(port, router, configuration);
+            try {
+                server.start();
+            } catch (final RuntimeException e) {
+                detach(routedServer);
+                throw e;
+            }
+            primerServer = server;
+        }
+    }
+
+    /**
+     * Stops routing the given Primer server, stopping the shared server if it was the last to be routed
+     * @param routedServer the Primer server to stop routing
+     */
+    private synchronized void detach(final RoutedServer routedServer) {
+        if (routedServer.host != null) {
+            router.unrouteHost(routedServer.host);
+        } else {
+            router.unrouteContextPath(routedServer.contextPath);
+        }
+        if (router.isEmpty() && primerServer != null) {
+            primerServer.stop();
+            primerServer = null;
+        }
+    }
+
+    /**
+     * Getter for the port of the shared server - while it is started, the port to which it is bound, which is chosen
+     * when it starts if it was constructed for port zero
+     * @return the port of the shared server
+     */
+    public synchronized int getPort() {
+        return primerServer != null ? primerServer.getPort() : port;
+    }
+
+    /**
+     * Waits for the shared server to stop
+     */
+    private void join() {
+        final PrimerServer server;
+        synchronized (this) {
+            server = primerServer;
+        }
+        if (server != null) {
+            server.join();
+        }
+    }
+
+    /**
+     * The server of a Primer that is hosted by the shared server
+     */
+    private class RoutedServer extends PrimerServer {
+
+        private final String host;
+
+        private final String contextPath;
+
+        private final RequestHandler requestHandler;
+
+        private boolean started;
+
+        private RoutedServer(final String host, final String contextPath, final RequestHandler requestHandler) {
+            this.host = host;
+            this.contextPath = contextPath;
+            this.requestHandler = requestHandler;
+        }
+
+        @Override
+        public synchronized void start() {
+            if (!started) {
+                attach(this);
+                started = true;
+            }
+        }
+
+        @Override
+        public synchronized void stop() {
+            if (started) {
+                detach(this);
+                started = false;
+            }
+        }
+
+        @Override
+        public int getPort() {
+            return SharedServer.this.getPort();
+        }
+
+        @Override
+        public void join() {
+            SharedServer.this.join();
+        }
+
+    }
+
+}
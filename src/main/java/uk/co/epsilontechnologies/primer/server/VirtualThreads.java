@@ -0,0 +1,51 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to the virtual threads of the Java runtime, where it provides them.
+ * They are looked up reflectively, so that Primer continues to build for, and run on, runtimes that do not.
+ *
+ * @author Shane Gibson
+ */
+final class VirtualThreads {
+
+    /**
+     * Hidden constructor
+     */
+    private VirtualThreads() {
+        super();
+    }
+
+    /**
+     * Determines whether the Java runtime provides virtual threads
+     * @return true if virtual threads are available, false otherwise
+     */
+    static boolean isAvailable() {
+        try {
+            newExecutor().shutdown();
+            return true;
+        } catch (final UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Constructs an executor that starts a new virtual thread for each task
+     * @return the executor
+     * @throws UnsupportedOperationException the Java runtime does not provide virtual threads
+     */
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final NoSuchMethodException e) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later, but running on Java " + System.getProperty("java.version"));
+        } catch (final IllegalAccessException | InvocationTargetException e) {
+            // e.g. a runtime on which virtual threads are a preview feature that has not been enabled
+            throw new UnsupportedOperationException("Virtual threads are not available on Java " + System.getProperty("java.version"), e instanceof InvocationTargetException ? e.getCause() : e);
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+package uk.co.epsilontechnologies.primer;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.epsilontechnologies.primer.domain.HttpServletRequestWrapper;
+import uk.co.epsilontechnologies.primer.domain.PrimedInvocation;
+import uk.co.epsilontechnologies.primer.domain.Response;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.get;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.post;
+
+public class MatchDecisionCacheTest {
+
+    private MatchDecisionCache underTest;
+
+    private PrimedInvocationIndex primedInvocations;
+
+    @Before
+    public void setUp() {
+        this.underTest = new MatchDecisionCache(10, 16);
+        this.primedInvocations = new PrimedInvocationIndex();
+        this.primedInvocations.prime(get().withUri("/a").withHeader("Accept", "text/xml").build(), mock(Response.class));
+    }
+
+    @Test
+    public void shouldFingerprintIdenticalRequestsEqually() throws IOException {
+
+        // act
+        final MatchDecisionCache.Fingerprint first = fingerprint("text/xml", "1", "");
+        final MatchDecisionCache.Fingerprint second = fingerprint("text/xml", "2", "");
+
+        // assert
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void shouldFingerprintReferencedHeadersAndBody() throws IOException {
+
+        // act
+        final MatchDecisionCache.Fingerprint first = fingerprint("text/xml", "1", "");
+        final MatchDecisionCache.Fingerprint differentHeader = fingerprint("application/json", "1", "");
+        final MatchDecisionCache.Fingerprint differentBody = fingerprint("text/xml", "1", "body");
+
+        // assert
+        assertFalse(first.equals(differentHeader));
+        assertFalse(first.equals(differentBody));
+    }
+
+    @Test
+    public void shouldNotFingerprintLargeBody() throws IOException {
+
+        // arrange
+        this.primedInvocations.prime(post().withUri("/a").withBody("body").build(), mock(Response.class));
+
+        // act
+        final MatchDecisionCache.Fingerprint result = fingerprint("text/xml", "1", "a body larger than the maximum");
+
+        // assert
+        assertNull(result);
+    }
+
+    @Test
+    public void shouldGetDecisionForSameGeneration() throws IOException {
+
+        // arrange
+        final MatchDecisionCache.Fingerprint fingerprint = fingerprint("text/xml", "1", "");
+        final PrimedInvocation primedInvocation = primedInvocations.candidates("GET", "/a").get(0);
+        this.underTest.put(fingerprint, primedInvocations.generation(), primedInvocation);
+
+        // act
+        final MatchDecisionCache.Decision result = this.underTest.get(fingerprint, primedInvocations.generation());
+
+        // assert
+        assertSame(primedInvocation, result.getPrimedInvocation());
+    }
+
+    @Test
+    public void shouldNotGetDecisionForEarlierGeneration() throws IOException {
+
+        // arrange
+        final MatchDecisionCache.Fingerprint fingerprint = fingerprint("text/xml", "1", "");
+        this.underTest.put(fingerprint, primedInvocations.generation(), null);
+        this.primedInvocations.prime(get().withUri("/b").build(), mock(Response.class));
+
+        // act
+        final MatchDecisionCache.Decision result = this.underTest.get(fingerprint, primedInvocations.generation());
+
+        // assert
+        assertNull(result);
+    }
+
+    @Test
+    public void shouldFingerprintBodyWithoutReadingWhenContentNotReferenced() throws IOException {
+
+        // arrange
+        final HttpServletRequestWrapper requestWrapper = request("text/xml", "1", "a body larger than the maximum", "HTTP/1.1", true);
+
+        // act
+        final MatchDecisionCache.Fingerprint result = this.underTest.fingerprint(requestWrapper, "/a", primedInvocations);
+
+        // assert
+        assertFalse(result == null);
+        assertFalse(result.equals(fingerprint("text/xml", "1", "")));
+        assertFalse(requestWrapper.isBodyRead());
+    }
+
+    @Test
+    public void shouldNotReadBodyOfUnknownLength() throws IOException {
+
+        // arrange
+        this.primedInvocations.prime(post().withUri("/a").withBody("body").build(), mock(Response.class));
+        final HttpServletRequestWrapper requestWrapper = request("text/xml", "1", "body", "HTTP/2.0", false);
+
+        // act
+        final MatchDecisionCache.Fingerprint result = this.underTest.fingerprint(requestWrapper, "/a", primedInvocations);
+
+        // assert
+        assertNull(result);
+        assertFalse(requestWrapper.isBodyRead());
+    }
+
+    @Test
+    public void shouldFingerprintBodyOfUnknownLengthOnceRead() throws IOException {
+
+        // arrange
+        this.primedInvocations.prime(post().withUri("/a").withBody("body").build(), mock(Response.class));
+        final HttpServletRequestWrapper requestWrapper = request("text/xml", "1", "body", "HTTP/2.0", false);
+        requestWrapper.getBodyBytes();
+
+        // act
+        final MatchDecisionCache.Fingerprint result = this.underTest.fingerprint(requestWrapper, "/a", primedInvocations);
+
+        // assert
+        assertFalse(result == null);
+    }
+
+    private MatchDecisionCache.Fingerprint fingerprint(final String accept, final String unreferenced, final String body) throws IOException {
+        return this.underTest.fingerprint(request(accept, unreferenced, body, "HTTP/1.1", true), "/a", primedInvocations);
+    }
+
+    private static HttpServletRequestWrapper request(final String accept, final String unreferenced, final String body, final String protocol, final boolean declaredLength) throws IOException {
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getMethod()).thenReturn("GET");
+        when(httpServletRequest.getProtocol()).thenReturn(protocol);
+        when(httpServletRequest.getContentLengthLong()).thenReturn(declaredLength ? (long) body.length() : -1L);
+        when(httpServletRequest.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList("Accept", "X-Unreferenced")));
+        when(httpServletRequest.getHeaders("Accept")).thenReturn(Collections.enumeration(Arrays.asList(accept)));
+        when(httpServletRequest.getHeaders("X-Unreferenced")).thenReturn(Collections.enumeration(Arrays.asList(unreferenced)));
+        when(httpServletRequest.getParameterNames()).thenReturn(Collections.<String>emptyEnumeration());
+        when(httpServletRequest.getInputStream()).thenReturn(new TestServletInputStream(body.getBytes("UTF-8")));
+        return new HttpServletRequestWrapper(httpServletRequest);
+    }
+
+    private static class TestServletInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream inputStream;
+
+        private TestServletInputStream(final byte[] content) {
+            this.inputStream = new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return inputStream.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(final ReadListener readListener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return inputStream.read();
+        }
+
+    }
+
+}
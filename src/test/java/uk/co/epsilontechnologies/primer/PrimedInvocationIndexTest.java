@@ -0,0 +1,221 @@
+package uk.co.epsilontechnologies.primer;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.epsilontechnologies.primer.domain.PrimedInvocation;
+import uk.co.epsilontechnologies.primer.domain.Request;
+import uk.co.epsilontechnologies.primer.domain.Response;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static uk.co.epsilontechnologies.primer.domain.PathTemplateMatchable.path;
+import static uk.co.epsilontechnologies.primer.domain.RegExMatchable.regex;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.get;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.post;
+
+public class PrimedInvocationIndexTest {
+
+    private PrimedInvocationIndex underTest;
+
+    @Before
+    public void setUp() {
+        this.underTest = new PrimedInvocationIndex();
+    }
+
+    @Test
+    public void shouldOnlyReturnCandidatesForMethodAndLiteralUri() {
+
+        // arrange
+        final Request getA = get().withUri("/a").build();
+        final Request getB = get().withUri("/b").build();
+        final Request postA = post().withUri("/a").build();
+        this.underTest.prime(getA, mock(Response.class));
+        this.underTest.prime(getB, mock(Response.class));
+        this.underTest.prime(postA, mock(Response.class));
+
+        // act
+        final List<PrimedInvocation> result = this.underTest.candidates("GET", "/a");
+
+        // assert
+        assertEquals(1, result.size());
+        assertSame(getA, result.get(0).getRequest());
+    }
+
+    @Test
+    public void shouldReturnFallbackCandidatesInPrimedOrder() {
+
+        // arrange
+        final Request regexBefore = get().withUri(regex("/a.*")).build();
+        final Request literal = get().withUri("/a").build();
+        final Request regexAfter = get().withUri(regex("/.*")).build();
+        this.underTest.prime(regexBefore, mock(Response.class));
+        this.underTest.prime(literal, mock(Response.class));
+        this.underTest.prime(regexAfter, mock(Response.class));
+
+        // act
+        final List<PrimedInvocation> result = this.underTest.candidates("GET", "/a");
+
+        // assert
+        assertEquals(3, result.size());
+        assertSame(regexBefore, result.get(0).getRequest());
+        assertSame(literal, result.get(1).getRequest());
+        assertSame(regexAfter, result.get(2).getRequest());
+    }
+
+    @Test
+    public void shouldExcludeRegExCandidatesThatCannotMatch() {
+
+        // arrange
+        final Request nonMatching = get().withUri(regex("/b.*")).build();
+        final Request firstMatching = get().withUri(regex("/a.*")).build();
+        final Request laterMatching = get().withUri(regex("/.*")).build();
+        this.underTest.prime(nonMatching, mock(Response.class));
+        this.underTest.prime(firstMatching, mock(Response.class));
+        this.underTest.prime(laterMatching, mock(Response.class));
+
+        // act
+        final List<PrimedInvocation> result = this.underTest.candidates("GET", "/a");
+
+        // assert
+        assertEquals(2, result.size());
+        assertSame(firstMatching, result.get(0).getRequest());
+        assertSame(laterMatching, result.get(1).getRequest());
+        assertTrue(this.underTest.candidates("GET", "x").isEmpty());
+    }
+
+    @Test
+    public void shouldReturnPathTemplateCandidatesInPrimedOrder() {
+
+        // arrange
+        final Request template = get().withUri(path("/accounts/{id}")).build();
+        final Request literal = get().withUri("/accounts/1").build();
+        final Request otherTemplate = get().withUri(path("/payments/{id}")).build();
+        this.underTest.prime(template, mock(Response.class));
+        this.underTest.prime(literal, mock(Response.class));
+        this.underTest.prime(otherTemplate, mock(Response.class));
+
+        // act
+        final List<PrimedInvocation> result = this.underTest.candidates("GET", "/accounts/1");
+
+        // assert
+        assertEquals(2, result.size());
+        assertSame(template, result.get(0).getRequest());
+        assertSame(literal, result.get(1).getRequest());
+    }
+
+    @Test
+    public void shouldAppendResponsesWhenSameRequestIsPrimed() {
+
+        // arrange
+        final Request request = get().withUri("/a").build();
+        this.underTest.prime(request, mock(Response.class));
+
+        // act
+        this.underTest.prime(request, mock(Response.class));
+
+        // assert
+        final List<PrimedInvocation> result = this.underTest.candidates("GET", "/a");
+        assertEquals(1, result.size());
+        assertEquals(2, result.get(0).getResponses().size());
+    }
+
+    @Test
+    public void shouldPrimeNewInvocationWhenSameRequestIsExhausted() {
+
+        // arrange
+        final Request request = get().withUri("/a").build();
+        this.underTest.prime(request, mock(Response.class));
+        this.underTest.candidates("GET", "/a").get(0).nextResponse();
+
+        // act
+        this.underTest.prime(request, mock(Response.class));
+
+        // assert
+        final List<PrimedInvocation> result = this.underTest.candidates("GET", "/a");
+        assertEquals(2, result.size());
+        assertTrue(result.get(0).isExhausted());
+        assertFalse(result.get(1).isExhausted());
+    }
+
+    @Test
+    public void shouldRemovePrimedInvocation() {
+
+        // arrange
+        final Request request = get().withUri("/a").build();
+        this.underTest.prime(request, mock(Response.class));
+        final PrimedInvocation primedInvocation = this.underTest.candidates("GET", "/a").get(0);
+
+        // act
+        this.underTest.remove(primedInvocation);
+
+        // assert
+        assertTrue(this.underTest.candidates("GET", "/a").isEmpty());
+        assertTrue(this.underTest.isEmpty());
+    }
+
+    @Test
+    public void shouldPruneBucketsOfExhaustedInvocations() {
+
+        // arrange
+        this.underTest.prime(get().withUri("/orders/1").build(), mock(Response.class));
+        this.underTest.prime(get().withUri(path("/orders/{id}/items")).build(), mock(Response.class));
+        this.underTest.prime(get().withUri("/orders/2").build(), mock(Response.class));
+        final PrimedInvocation literal = this.underTest.candidates("GET", "/orders/1").get(0);
+        final PrimedInvocation template = this.underTest.candidates("GET", "/orders/1/items").get(0);
+
+        // act
+        literal.nextResponse();
+        this.underTest.remove(literal);
+        template.nextResponse();
+        this.underTest.remove(template);
+
+        // assert
+        assertEquals(1, this.underTest.buckets());
+        assertTrue(this.underTest.candidates("GET", "/orders/1").isEmpty());
+        this.underTest.prime(get().withUri("/orders/1").build(), mock(Response.class));
+        assertEquals(1, this.underTest.candidates("GET", "/orders/1").size());
+        assertEquals(2, this.underTest.buckets());
+    }
+
+    @Test
+    public void shouldClearPrimedInvocations() {
+
+        // arrange
+        this.underTest.prime(get().withUri("/a").build(), mock(Response.class));
+        this.underTest.prime(get().withUri(regex("/.*")).build(), mock(Response.class));
+        assertFalse(this.underTest.isEmpty());
+
+        // act
+        this.underTest.clear();
+
+        // assert
+        assertTrue(this.underTest.isEmpty());
+        assertTrue(this.underTest.candidates("GET", "/a").isEmpty());
+    }
+
+    @Test
+    public void shouldAdvanceGenerationWhenPrimedInvocationsChange() {
+
+        // arrange
+        final long initial = this.underTest.generation();
+
+        // act
+        this.underTest.prime(get().withUri("/a").build(), mock(Response.class));
+        final long primed = this.underTest.generation();
+        this.underTest.remove(this.underTest.candidates("GET", "/a").get(0));
+        final long removed = this.underTest.generation();
+        this.underTest.clear();
+        final long cleared = this.underTest.generation();
+
+        // assert
+        assertTrue(primed > initial);
+        assertTrue(removed > primed);
+        assertTrue(cleared > removed);
+    }
+
+}
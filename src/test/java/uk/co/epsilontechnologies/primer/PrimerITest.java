@@ -1,5 +1,12 @@
 package uk.co.epsilontechnologies.primer;
 
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.http.HttpClientTransportOverHTTP2;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -8,17 +15,37 @@ import org.springframework.http.*;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
-
+import uk.co.epsilontechnologies.primer.domain.HttpServletRequestWrapper;
+import uk.co.epsilontechnologies.primer.domain.RecordedRequest;
+import uk.co.epsilontechnologies.primer.domain.RequestAwareResponse;
+import uk.co.epsilontechnologies.primer.domain.Throttle;
+import uk.co.epsilontechnologies.primer.server.SharedServer;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.*;
 import static uk.co.epsilontechnologies.primer.PrimerStatics.*;
+import static uk.co.epsilontechnologies.primer.domain.DelayedResponseBuilder.delayed;
+import static uk.co.epsilontechnologies.primer.domain.FileResponseBuilder.file;
+import static uk.co.epsilontechnologies.primer.domain.FileResponseBuilder.resource;
 import static uk.co.epsilontechnologies.primer.domain.JsonMatchable.json;
+import static uk.co.epsilontechnologies.primer.domain.PathTemplateMatchable.path;
 import static uk.co.epsilontechnologies.primer.domain.RegExMatchable.regex;
 import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.*;
 import static uk.co.epsilontechnologies.primer.domain.SimpleResponseBuilder.response;
+import static uk.co.epsilontechnologies.primer.domain.StreamingResponseBuilder.stream;
 import static uk.co.epsilontechnologies.primer.domain.StringMatchable.eq;
+import static uk.co.epsilontechnologies.primer.domain.ThrottledResponseBuilder.throttled;
 import static uk.co.epsilontechnologies.primer.domain.XmlMatchable.xml;
+import static uk.co.epsilontechnologies.primer.server.ServerConfigurationBuilder.configuration;
 
 /**
  * Test case for key Primer functionality.
@@ -29,7 +56,7 @@ public class PrimerITest {
 
     private static final RestTemplate restTemplate = new RestTemplate();
 
-    @Primable(contextPath = "/test", port = 8081)
+    @Primable(contextPath = "/test", port = 8081, minThreads = 4, maxThreads = 16, queueSize = 64, acceptQueueSize = 128, idleTimeout = 5000)
     private Primer primable;
 
     private static final Primer primer = new Primer("/test", 8082);
@@ -368,6 +395,331 @@ public class PrimerITest {
 
     }
 
+    @Test
+    public void shouldHandlePrimedRequestWithPathTemplate() {
+
+        // arrange
+        when(primer.receives(get().withUri(path("/accounts/{id}/transactions/{txId}")))).thenReturn(new RequestAwareResponse() {
+            @Override
+            public void populate(final HttpServletRequestWrapper requestWrapper, final HttpServletResponse httpServletResponse) throws IOException {
+                httpServletResponse.setStatus(200);
+                httpServletResponse.getWriter().write(requestWrapper.getPathVariables().get("id") + ":" + requestWrapper.getPathVariables().get("txId"));
+                httpServletResponse.flushBuffer();
+            }
+            @Override
+            public void populate(final HttpServletResponse httpServletResponse) throws IOException {
+                throw new UnsupportedOperationException();
+            }
+        });
+
+        // act
+        final ResponseEntity<String> result = restTemplate.exchange("http://localhost:8082/test/accounts/123/transactions/456", HttpMethod.GET, newRequestEntity(), String.class);
+
+        // assert
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("123:456", result.getBody());
+        verify(primer);
+    }
+
+    @Test
+    public void shouldHandlePrimedRequestWithFileResponse() throws IOException {
+
+        // arrange
+        final File file = File.createTempFile("primer", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "id,amount\n1,100\n".getBytes("UTF-8"));
+        when(primer.receives(get().withUri("/download"))).thenReturn(file(200, "text/csv", file).withHeader("response-header-key", "response-header-value"));
+
+        // act
+        final ResponseEntity<String> result = restTemplate.exchange("http://localhost:8082/test/download", HttpMethod.GET, newRequestEntity(), String.class);
+
+        // assert
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("id,amount\n1,100\n", result.getBody());
+        assertEquals(file.length(), result.getHeaders().getContentLength());
+        assertEquals("response-header-value", result.getHeaders().get("response-header-key").get(0));
+        verify(primer);
+    }
+
+    @Test
+    public void shouldHandlePrimedRequestWithClasspathResourceResponse() {
+
+        // arrange
+        when(primer.receives(get().withUri("/report"))).thenReturn(resource(200, "application/json", "report.json"));
+
+        // act
+        final ResponseEntity<String> result = restTemplate.exchange("http://localhost:8082/test/report", HttpMethod.GET, newRequestEntity(), String.class);
+
+        // assert
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("{ \"report\" : \"quarterly\" }\n", result.getBody());
+        verify(primer);
+    }
+
+    @Test
+    public void shouldHandlePrimedRequestWithStreamingResponse() {
+
+        // arrange
+        when(primer.receives(get().withUri("/stream"))).thenReturn(stream(200, "text/plain", 1024 * 1024).withPattern("0123456789").withChunkSize(4096));
+
+        // act
+        final ResponseEntity<String> result = restTemplate.exchange("http://localhost:8082/test/stream", HttpMethod.GET, newRequestEntity(), String.class);
+
+        // assert
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(1024 * 1024, result.getBody().length());
+        assertTrue(result.getBody().startsWith("01234567890123"));
+        assertEquals(1024 * 1024, result.getHeaders().getContentLength());
+        verify(primer);
+    }
+
+    @Test
+    public void shouldHandlePrimedRequestWithDelayedResponse() {
+
+        // arrange
+        when(primer.receives(get().withUri("/slow"))).thenReturn(delayed(response(200, "text/plain", "slow"), 200));
+        final long start = System.currentTimeMillis();
+
+        // act
+        final ResponseEntity<String> result = restTemplate.exchange("http://localhost:8082/test/slow", HttpMethod.GET, newRequestEntity(), String.class);
+
+        // assert
+        assertTrue(System.currentTimeMillis() - start >= 200);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("slow", result.getBody());
+        verify(primer);
+    }
+
+    @Test
+    public void shouldHandlePrimedRequestWithThrottledResponse() {
+
+        // arrange
+        when(primer.receives(get().withUri("/trickle"))).thenReturn(throttled(response(200, "text/plain", "0123456789"), Throttle.chunkDelay(2, 50)));
+        final long start = System.currentTimeMillis();
+
+        // act
+        final ResponseEntity<String> result = restTemplate.exchange("http://localhost:8082/test/trickle", HttpMethod.GET, newRequestEntity(), String.class);
+
+        // assert
+        assertTrue(System.currentTimeMillis() - start >= 200);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("0123456789", result.getBody());
+        verify(primer);
+    }
+
+    @Test
+    public void shouldThrottleEveryResponseOfPrimer() {
+
+        // arrange
+        primer.throttle(Throttle.bytesPerSecond(20).withChunkSize(5));
+        when(primer.receives(get().withUri("/throttled"))).thenReturn(response(200, "text/plain", "0123456789"));
+        final long start = System.currentTimeMillis();
+
+        // act
+        try {
+            final ResponseEntity<String> result = restTemplate.exchange("http://localhost:8082/test/throttled", HttpMethod.GET, newRequestEntity(), String.class);
+
+            // assert
+            assertTrue(System.currentTimeMillis() - start >= 250);
+            assertEquals("0123456789", result.getBody());
+        } finally {
+            primer.throttle(null);
+        }
+        verify(primer);
+    }
+
+    @Test
+    public void shouldHandlePrimedRequestWithBodySentSlowly() throws Exception {
+
+        // arrange
+        when(primer.receives(post().withUri("/upload").withBody(eq("first-second")))).thenReturn(response(200, "text/plain", "uploaded"));
+
+        // act
+        final String result;
+        try (final Socket socket = new Socket("localhost", 8082)) {
+            final OutputStream outputStream = socket.getOutputStream();
+            outputStream.write("POST /test/upload HTTP/1.1\r\nHost: localhost\r\nContent-Length: 12\r\nConnection: close\r\n\r\nfirst-".getBytes("US-ASCII"));
+            outputStream.flush();
+            Thread.sleep(200);
+            outputStream.write("second".getBytes("US-ASCII"));
+            outputStream.flush();
+            result = new String(IOUtils.toByteArray(socket.getInputStream()), "US-ASCII");
+        }
+
+        // assert
+        assertTrue(result, result.startsWith("HTTP/1.1 200"));
+        assertTrue(result, result.endsWith("uploaded"));
+        verify(primer);
+    }
+
+    @Test
+    public void shouldHandlePrimedRequestsOverHttp2() throws Exception {
+
+        // arrange
+        final String keyStorePath = new File(getClass().getResource("/primer-test.p12").toURI()).getPath();
+        final Primer http2Primer = new Primer("/test", 8083, configuration().withHttp2(true).withMaxConcurrentStreams(256).withTls(8443, keyStorePath, "changeit").build());
+        final HttpClient httpClient = new HttpClient(new HttpClientTransportOverHTTP2(new HTTP2Client()), new SslContextFactory.Client(true));
+        http2Primer.start();
+        httpClient.start();
+        when(http2Primer.receives(get().withUri("/h2c"))).thenReturn(response(200, "text/plain", "cleartext"));
+        when(http2Primer.receives(get().withUri("/h2"))).thenReturn(response(200, "text/plain", "tls"));
+
+        // act
+        final ContentResponse cleartextResponse;
+        final ContentResponse tlsResponse;
+        try {
+            cleartextResponse = httpClient.GET("http://localhost:8083/test/h2c");
+            tlsResponse = httpClient.GET("https://localhost:8443/test/h2");
+        } finally {
+            httpClient.stop();
+            http2Primer.stop();
+        }
+
+        // assert
+        assertEquals(HttpVersion.HTTP_2, cleartextResponse.getVersion());
+        assertEquals("cleartext", cleartextResponse.getContentAsString());
+        assertEquals(HttpVersion.HTTP_2, tlsResponse.getVersion());
+        assertEquals("tls", tlsResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldHandlePrimedRequestsOfManyPrimersOnSharedServer() {
+
+        // arrange
+        final SharedServer sharedServer = SharedServer.on(8084);
+        final Primer alpha = new Primer(sharedServer, "/alpha");
+        final Primer beta = new Primer(sharedServer, "/beta");
+        final Primer gamma = new Primer(sharedServer, "127.0.0.1", "");
+        alpha.start();
+        beta.start();
+        gamma.start();
+        when(alpha.receives(get().withUri("/get"))).thenReturn(response(200, "text/plain", "alpha"));
+        when(beta.receives(get().withUri("/get"))).thenReturn(response(200, "text/plain", "beta"));
+        when(gamma.receives(get().withUri("/get"))).thenReturn(response(200, "text/plain", "gamma"));
+
+        // act
+        final ResponseEntity<String> alphaResult;
+        final ResponseEntity<String> betaResult;
+        final ResponseEntity<String> gammaResult;
+        try {
+            alphaResult = restTemplate.exchange("http://localhost:8084/alpha/get", HttpMethod.GET, newRequestEntity(), String.class);
+            gamma.stop();
+            betaResult = restTemplate.exchange("http://127.0.0.1:8084/beta/get", HttpMethod.GET, newRequestEntity(), String.class);
+            gamma.start();
+            when(gamma.receives(get().withUri("/get"))).thenReturn(response(200, "text/plain", "gamma"));
+            gammaResult = restTemplate.exchange("http://127.0.0.1:8084/get", HttpMethod.GET, newRequestEntity(), String.class);
+        } finally {
+            alpha.stop();
+            beta.stop();
+            gamma.stop();
+        }
+
+        // assert
+        assertEquals("alpha", alphaResult.getBody());
+        assertEquals("beta", betaResult.getBody());
+        assertEquals("gamma", gammaResult.getBody());
+        verify(alpha, beta, gamma);
+    }
+
+    @Test
+    public void shouldHandlePrimedRequestsOnPortChosenWhenStarted() {
+
+        // arrange
+        final Primer ephemeral = new Primer("/ephemeral", 0);
+        ephemeral.start();
+        when(ephemeral.receives(get().withUri("/get"))).thenReturn(response(200, "text/plain", "ephemeral"));
+
+        // act
+        final int port = ephemeral.getPort();
+        final ResponseEntity<String> result;
+        try {
+            result = restTemplate.exchange("http://localhost:" + port + "/ephemeral/get", HttpMethod.GET, newRequestEntity(), String.class);
+        } finally {
+            ephemeral.stop();
+        }
+
+        // assert
+        assertTrue(port > 0);
+        assertEquals("ephemeral", result.getBody());
+        verify(ephemeral);
+    }
+
+    @Test
+    public void shouldExposeMetricsOfHitsAndMisses() {
+
+        // arrange
+        final Primer metered = new Primer("/metered", 0);
+        metered.exposeMetrics("/metrics");
+        metered.start();
+        when(metered.receives(get().withUri("/get"))).thenReturn(response(200));
+
+        // act
+        final ResponseEntity<String> result;
+        try {
+            final String baseUrl = "http://localhost:" + metered.getPort() + "/metered";
+            restTemplate.exchange(baseUrl + "/get", HttpMethod.GET, newRequestEntity(), String.class);
+            try {
+                restTemplate.exchange(baseUrl + "/missing", HttpMethod.GET, newRequestEntity(), String.class);
+                fail("Expected HttpServerErrorException was not thrown");
+            } catch (final HttpServerErrorException httpServerErrorException) {
+                assertEquals("Request Not Primed", httpServerErrorException.getResponseBodyAsString());
+            }
+            result = restTemplate.exchange(baseUrl + "/metrics", HttpMethod.GET, newRequestEntity(), String.class);
+        } finally {
+            metered.stop();
+        }
+
+        // assert
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("text/plain", result.getHeaders().getContentType().getType() + "/" + result.getHeaders().getContentType().getSubtype());
+        assertTrue(result.getBody().contains("primer_stub_hits_total{context=\"/metered\",method=\"GET\",uri=\"/get\"} 1\n"));
+        assertTrue(result.getBody().contains("primer_hits_total{context=\"/metered\"} 1\n"));
+        assertTrue(result.getBody().contains("primer_misses_total{context=\"/metered\"} 1\n"));
+        assertTrue(result.getBody().contains("primer_match_duration_seconds_count{context=\"/metered\"} 2\n"));
+    }
+
+    @Test
+    public void shouldJournalRequestsReceived() {
+
+        // arrange
+        final RequestJournal journal = RequestJournal.journal(8);
+        primer.journal(journal);
+        when(primer.receives(post().withUri("/post").withBody(json("{ \"key\" : \"value\" }")))).thenReturn(response(200));
+
+        // act
+        try {
+            restTemplate.exchange("http://localhost:8082/test/post?source=journal", HttpMethod.POST, newRequestEntity(MediaType.APPLICATION_JSON, "{ \"key\" : \"value\" }"), String.class);
+        } finally {
+            primer.journal(null);
+        }
+
+        // assert
+        final List<RecordedRequest> result = journal.getRequests();
+        assertEquals(1, result.size());
+        assertEquals("POST", result.get(0).getMethod());
+        assertEquals("/test/post", result.get(0).getURI());
+        assertEquals("source=journal", result.get(0).getQueryString());
+        assertTrue(result.get(0).getHeader("Content-Type").startsWith("application/json"));
+        assertEquals("{ \"key\" : \"value\" }", result.get(0).getBody(Charset.forName("UTF-8")));
+        verify(primer);
+    }
+
+    @Test
+    public void shouldHandlePrimedJsonResponseWithNonLatin1BodyAndNoCharset() throws Exception {
+
+        // arrange
+        when(primer.receives(get().withUri("/euro"))).thenReturn(response(200, "application/json", "{ \"price\" : \"\u20ac10\" }"));
+
+        // act
+        final ResponseEntity<byte[]> result = restTemplate.exchange("http://localhost:8082/test/euro", HttpMethod.GET, newRequestEntity(), byte[].class);
+
+        // assert
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("application/json", result.getHeaders().getFirst("Content-Type"));
+        assertEquals("{ \"price\" : \"\u20ac10\" }", new String(result.getBody(), "UTF-8"));
+        verify(primer);
+    }
+
     @Test
     public void shouldFailToVerifyWhenPrimedRequestNotInvoked() {
 
@@ -0,0 +1,110 @@
+package uk.co.epsilontechnologies.primer;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.epsilontechnologies.primer.domain.PrimedInvocation;
+import uk.co.epsilontechnologies.primer.domain.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static uk.co.epsilontechnologies.primer.domain.RequestBuilder.get;
+
+public class PrimerMetricsTest {
+
+    private PrimerMetrics underTest;
+
+    private PrimedInvocationIndex primedInvocations;
+
+    @Before
+    public void setUp() {
+        this.underTest = new PrimerMetrics();
+        this.primedInvocations = new PrimedInvocationIndex();
+        this.primedInvocations.prime(get().withUri("/a").build(), mock(Response.class), mock(Response.class));
+    }
+
+    @Test
+    public void shouldRenderHitsOfEachStub() {
+
+        // arrange
+        final PrimedInvocation primedInvocation = primedInvocations.candidates("GET", "/a").get(0);
+        this.underTest.recordHit(primedInvocation, 1000L);
+
+        // act
+        final String result = this.underTest.render("/test", primedInvocations.size());
+
+        // assert
+        assertTrue(result.contains("primer_stub_hits_total{context=\"/test\",method=\"GET\",uri=\"/a\"} 1\n"));
+        assertTrue(result.contains("primer_hits_total{context=\"/test\"} 1\n"));
+        assertTrue(result.contains("primer_stubs{context=\"/test\"} 1\n"));
+    }
+
+    @Test
+    public void shouldRenderHitsOfStubInSingleSeriesOnceExhaustedAndPrimedAgain() {
+
+        // arrange
+        final PrimedInvocationIndex single = new PrimedInvocationIndex();
+        single.prime(get().withUri("/b").build(), mock(Response.class));
+        final PrimedInvocation first = single.candidates("GET", "/b").get(0);
+        this.underTest.recordHit(first, 1000L);
+        single.remove(first);
+        single.prime(get().withUri("/b").build(), mock(Response.class));
+        this.underTest.recordHit(single.candidates("GET", "/b").get(0), 1000L);
+        single.clear();
+
+        // act
+        final String result = this.underTest.render("/test", single.size());
+
+        // assert
+        assertTrue(result.contains("primer_stub_hits_total{context=\"/test\",method=\"GET\",uri=\"/b\"} 2\n"));
+        assertEquals(result.indexOf("uri=\"/b\""), result.lastIndexOf("uri=\"/b\""));
+        assertTrue(result.contains("primer_stubs{context=\"/test\"} 0\n"));
+    }
+
+    @Test
+    public void shouldRenderMisses() {
+
+        // arrange
+        this.underTest.recordMiss(1000L);
+        this.underTest.recordMiss(1000L);
+
+        // act
+        final String result = this.underTest.render("/test", primedInvocations.size());
+
+        // assert
+        assertTrue(result.contains("primer_misses_total{context=\"/test\"} 2\n"));
+        assertTrue(result.contains("primer_hits_total{context=\"/test\"} 0\n"));
+    }
+
+    @Test
+    public void shouldRenderCumulativeLatencyBuckets() {
+
+        // arrange
+        this.underTest.recordMiss(5000L);
+        this.underTest.recordMiss(20000L);
+        this.underTest.recordWrite(20000000000L);
+
+        // act
+        final String result = this.underTest.render("/test", primedInvocations.size());
+
+        // assert
+        assertTrue(result.contains("primer_match_duration_seconds_bucket{context=\"/test\",le=\"1.0E-5\"} 1\n"));
+        assertTrue(result.contains("primer_match_duration_seconds_bucket{context=\"/test\",le=\"2.5E-5\"} 2\n"));
+        assertTrue(result.contains("primer_match_duration_seconds_bucket{context=\"/test\",le=\"+Inf\"} 2\n"));
+        assertTrue(result.contains("primer_match_duration_seconds_sum{context=\"/test\"} 2.5E-5\n"));
+        assertTrue(result.contains("primer_match_duration_seconds_count{context=\"/test\"} 2\n"));
+        assertTrue(result.contains("primer_write_duration_seconds_bucket{context=\"/test\",le=\"10.0\"} 0\n"));
+        assertTrue(result.contains("primer_write_duration_seconds_bucket{context=\"/test\",le=\"+Inf\"} 1\n"));
+    }
+
+    @Test
+    public void shouldEscapeLabelValues() {
+
+        // act
+        final String result = PrimerMetrics.escape("a\\b\"c\nd");
+
+        // assert
+        assertEquals("a\\\\b\\\"c\\nd", result);
+    }
+
+}
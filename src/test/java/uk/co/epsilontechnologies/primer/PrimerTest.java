@@ -3,11 +3,10 @@ package uk.co.epsilontechnologies.primer;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
-import uk.co.epsilontechnologies.primer.domain.PrimedInvocation;
+import uk.co.epsilontechnologies.primer.domain.Throttle;
 import uk.co.epsilontechnologies.primer.server.PrimerServer;
 
-import java.util.List;
-
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -18,15 +17,18 @@ public class PrimerTest {
     private Primer underTest;
 
     @Mock
-    private List<PrimedInvocation> mockPrimedInvocations;
+    private PrimedInvocationIndex mockPrimedInvocations;
 
     @Mock
     private PrimerServer mockPrimerServer;
 
+    @Mock
+    private PrimerRequestHandler mockPrimerRequestHandler;
+
     @Before
     public void setUp() {
         initMocks(this);
-        this.underTest = new Primer(mockPrimerServer, mockPrimedInvocations);
+        this.underTest = new Primer(mockPrimerServer, mockPrimerRequestHandler, mockPrimedInvocations);
     }
 
     @Test
@@ -50,6 +52,19 @@ public class PrimerTest {
         verify(mockPrimerServer).stop();
     }
 
+    @Test
+    public void shouldGetPort() {
+
+        // arrange
+        when(mockPrimerServer.getPort()).thenReturn(8080);
+
+        // act
+        final int result = this.underTest.getPort();
+
+        // assert
+        assertEquals(8080, result);
+    }
+
     @Test
     public void shouldReset() {
 
@@ -86,4 +101,42 @@ public class PrimerTest {
         // no exception was thrown
     }
 
+    @Test
+    public void shouldThrottleResponses() {
+
+        // arrange
+        final Throttle throttle = Throttle.bytesPerSecond(1024);
+
+        // act
+        this.underTest.throttle(throttle);
+
+        // assert
+        verify(mockPrimerRequestHandler).setDefaultThrottle(throttle);
+    }
+
+    @Test
+    public void shouldExposeMetrics() {
+
+        // act
+        this.underTest.exposeMetrics("/metrics");
+
+        // assert
+        verify(mockPrimerRequestHandler).setMetricsPath("/metrics");
+    }
+
+    @Test
+    public void shouldJournalRequests() {
+
+        // arrange
+        final RequestJournal journal = RequestJournal.journal(16);
+        when(mockPrimerRequestHandler.getJournal()).thenReturn(journal);
+
+        // act
+        this.underTest.journal(journal);
+
+        // assert
+        verify(mockPrimerRequestHandler).setJournal(journal);
+        assertEquals(journal, this.underTest.getJournal());
+    }
+
 }
@@ -0,0 +1,243 @@
+package uk.co.epsilontechnologies.primer;
+
+import org.junit.Test;
+import uk.co.epsilontechnologies.primer.domain.HttpServletRequestWrapper;
+import uk.co.epsilontechnologies.primer.domain.RecordedRequest;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RequestJournalTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private RequestJournal underTest;
+
+    @Test
+    public void shouldRecordMethodUriHeadersAndBody() {
+
+        // arrange
+        this.underTest = RequestJournal.journal(4);
+
+        // act
+        this.underTest.record(request("POST", "/test/orders", "{ \"id\" : 1 }", "Content-Type", "application/json", "X-Correlation-Id", "001"));
+
+        // assert
+        final List<RecordedRequest> result = this.underTest.getRequests();
+        assertEquals(1, result.size());
+        assertEquals(0L, result.get(0).getSequence());
+        assertEquals("POST", result.get(0).getMethod());
+        assertEquals("/test/orders", result.get(0).getURI());
+        assertEquals("q=1", result.get(0).getQueryString());
+        assertEquals(2, result.get(0).getHeaders().size());
+        assertEquals("001", result.get(0).getHeader("x-correlation-id"));
+        assertNull(result.get(0).getHeader("Accept"));
+        assertEquals("{ \"id\" : 1 }", result.get(0).getBody(UTF_8));
+        assertFalse(result.get(0).isTruncated());
+    }
+
+    @Test
+    public void shouldHoldMostRecentRequestsOnceFull() {
+
+        // arrange
+        this.underTest = RequestJournal.journal(3);
+
+        // act
+        for (int i = 0; i < 10; i++) {
+            this.underTest.record(request("GET", "/test/" + i, ""));
+        }
+
+        // assert
+        final List<RecordedRequest> result = this.underTest.getRequests();
+        assertEquals(4, this.underTest.getCapacity());
+        assertEquals(10L, this.underTest.getReceived());
+        assertEquals(4, result.size());
+        assertEquals("/test/6", result.get(0).getURI());
+        assertEquals("/test/9", result.get(3).getURI());
+    }
+
+    @Test
+    public void shouldTruncateBodyBeyondLimitOffHeap() {
+
+        // arrange
+        this.underTest = RequestJournal.journal(2, 4, true);
+
+        // act
+        this.underTest.record(request("POST", "/test/a", "abcdefgh"));
+        this.underTest.record(request("POST", "/test/b", "xy"));
+
+        // assert
+        final List<RecordedRequest> result = this.underTest.getRequests();
+        assertEquals("abcd", result.get(0).getBody(UTF_8));
+        assertEquals(8, result.get(0).getBodyLength());
+        assertTrue(result.get(0).isTruncated());
+        assertEquals("xy", result.get(1).getBody(UTF_8));
+        assertFalse(result.get(1).isTruncated());
+    }
+
+    @Test
+    public void shouldReadNoMoreOfBodyThanLimitToRecordIt() {
+
+        // arrange
+        this.underTest = RequestJournal.journal(4, 4, false);
+        final HttpServletRequestWrapper declared = streamedRequest("/test/a", "abcdefghij", 10L);
+        final HttpServletRequestWrapper undeclared = streamedRequest("/test/b", "abcdefghij", -1L);
+
+        // act
+        this.underTest.record(declared);
+        this.underTest.record(undeclared);
+
+        // assert
+        final List<RecordedRequest> result = this.underTest.getRequests();
+        assertEquals("abcd", result.get(0).getBody(UTF_8));
+        assertEquals(10, result.get(0).getBodyLength());
+        assertTrue(result.get(0).isTruncated());
+        assertEquals("abcd", result.get(1).getBody(UTF_8));
+        assertTrue(result.get(1).isTruncated());
+        assertFalse(declared.isBodyRead());
+        assertEquals("abcdefghij", declared.getBody());
+        assertEquals("abcdefghij", undeclared.getBody());
+    }
+
+    @Test
+    public void shouldClearRequests() {
+
+        // arrange
+        this.underTest = RequestJournal.journal(4);
+        this.underTest.record(request("GET", "/test/a", ""));
+
+        // act
+        this.underTest.clear();
+
+        // assert
+        assertTrue(this.underTest.getRequests().isEmpty());
+        assertEquals(1L, this.underTest.getReceived());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBodiesBeyondLargestBuffer() {
+
+        // act
+        RequestJournal.journal(1 << 20, 1 << 20, true);
+    }
+
+    @Test
+    public void shouldRecordEachRequestOnceWhenConcurrent() throws InterruptedException {
+
+        // arrange
+        this.underTest = RequestJournal.journal(2048);
+        final HttpServletRequestWrapper[] requests = new HttpServletRequestWrapper[2000];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = request("GET", "/test/" + i, "");
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (final InterruptedException e) {
+                        return;
+                    }
+                    for (int i = offset; i < requests.length; i += threads.length) {
+                        underTest.record(requests[i]);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        // act
+        start.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        // assert
+        final Set<String> uris = new HashSet<>();
+        for (final RecordedRequest recordedRequest : this.underTest.getRequests()) {
+            uris.add(recordedRequest.getURI());
+        }
+        assertEquals(2000, uris.size());
+        assertEquals(0L, this.underTest.getDropped());
+    }
+
+    private static HttpServletRequestWrapper streamedRequest(final String uri, final String body, final long contentLength) {
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getMethod()).thenReturn("POST");
+        when(httpServletRequest.getRequestURI()).thenReturn(uri);
+        when(httpServletRequest.getContentLengthLong()).thenReturn(contentLength);
+        when(httpServletRequest.getHeaderNames()).thenReturn(Collections.enumeration(Collections.<String>emptyList()));
+        try {
+            when(httpServletRequest.getInputStream()).thenReturn(new TestServletInputStream(body.getBytes(UTF_8)));
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new HttpServletRequestWrapper(httpServletRequest);
+    }
+
+    private static HttpServletRequestWrapper request(final String method, final String uri, final String body, final String... headers) {
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getMethod()).thenReturn(method);
+        when(httpServletRequest.getRequestURI()).thenReturn(uri);
+        when(httpServletRequest.getQueryString()).thenReturn("q=1");
+        final String[] names = new String[headers.length / 2];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = headers[i * 2];
+            when(httpServletRequest.getHeaders(headers[i * 2])).thenReturn(Collections.enumeration(Arrays.asList(headers[i * 2 + 1])));
+        }
+        when(httpServletRequest.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList(names)));
+        return new HttpServletRequestWrapper(httpServletRequest, body.getBytes(UTF_8), null);
+    }
+
+    private static class TestServletInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream inputStream;
+
+        private TestServletInputStream(final byte[] content) {
+            this.inputStream = new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return inputStream.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(final ReadListener readListener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return inputStream.read();
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static uk.co.epsilontechnologies.primer.domain.DelayDistribution.fixed;
+import static uk.co.epsilontechnologies.primer.domain.DelayDistribution.logNormal;
+import static uk.co.epsilontechnologies.primer.domain.DelayDistribution.normal;
+import static uk.co.epsilontechnologies.primer.domain.DelayDistribution.percentiles;
+import static uk.co.epsilontechnologies.primer.domain.DelayDistribution.uniform;
+
+public class DelayDistributionTest {
+
+    private DelayDistribution underTest;
+
+    @Test
+    public void shouldAlwaysDrawFixedDelay() {
+
+        // arrange
+        this.underTest = fixed(250);
+
+        // act
+        final long result = this.underTest.nextDelay();
+
+        // assert
+        assertEquals(250, result);
+    }
+
+    @Test
+    public void shouldDrawUniformDelaysWithinBounds() {
+
+        // arrange
+        this.underTest = uniform(100, 200);
+
+        // act & assert
+        for (int i = 0; i < 10000; i++) {
+            final long result = this.underTest.nextDelay();
+            assertTrue(result >= 100 && result <= 200);
+        }
+    }
+
+    @Test
+    public void shouldNeverDrawNegativeNormalOrLogNormalDelays() {
+
+        // arrange
+        final DelayDistribution normal = normal(10, 100);
+        final DelayDistribution logNormal = logNormal(10, 2);
+
+        // act & assert
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(normal.nextDelay() >= 0);
+            assertTrue(logNormal.nextDelay() >= 0);
+        }
+    }
+
+    @Test
+    public void shouldDrawPercentileDelaysInProportion() {
+
+        // arrange
+        final Map<Double,Long> recorded = new HashMap<>();
+        recorded.put(50d, 10L);
+        recorded.put(99d, 100L);
+        recorded.put(100d, 1000L);
+        this.underTest = percentiles(recorded);
+
+        // act
+        int belowMedian = 0;
+        for (int i = 0; i < 10000; i++) {
+            final long result = this.underTest.nextDelay();
+            assertTrue(result >= 0 && result <= 1000);
+            if (result <= 10) {
+                belowMedian++;
+            }
+        }
+
+        // assert
+        assertTrue(belowMedian > 4500 && belowMedian < 5500);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDecreasingPercentiles() {
+
+        // arrange
+        final Map<Double,Long> recorded = new HashMap<>();
+        recorded.put(50d, 100L);
+        recorded.put(99d, 10L);
+
+        // act
+        percentiles(recorded);
+    }
+
+}
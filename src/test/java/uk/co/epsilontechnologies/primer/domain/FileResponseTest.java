@@ -0,0 +1,128 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FileResponseTest {
+
+    private FileResponse underTest;
+
+    @Test
+    public void shouldWriteContentOfFile() throws IOException {
+
+        // arrange
+        final byte[] content = "file content".getBytes("UTF-8");
+        final File file = File.createTempFile("primer", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), content);
+        final TestServletOutputStream outputStream = new TestServletOutputStream();
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        when(httpServletResponse.getOutputStream()).thenReturn(outputStream);
+        this.underTest = new FileResponse(200, "text/plain", file, Collections.<String,String>emptyMap(), Collections.<String,String>emptyMap());
+
+        // act
+        this.underTest.populate(httpServletResponse);
+        this.underTest.populate(httpServletResponse);
+
+        // assert
+        final byte[] expected = new byte[content.length * 2];
+        System.arraycopy(content, 0, expected, 0, content.length);
+        System.arraycopy(content, 0, expected, content.length, content.length);
+        assertArrayEquals(expected, outputStream.toByteArray());
+        verify(httpServletResponse, times(2)).setContentLengthLong(content.length);
+    }
+
+    @Test
+    public void shouldWriteContentOfClasspathResource() throws IOException {
+
+        // arrange
+        final TestServletOutputStream outputStream = new TestServletOutputStream();
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        when(httpServletResponse.getOutputStream()).thenReturn(outputStream);
+        this.underTest = new FileResponse(200, "application/json", "report.json", Collections.<String,String>emptyMap(), Collections.<String,String>emptyMap());
+
+        // act
+        this.underTest.populate(httpServletResponse);
+
+        // assert
+        assertArrayEquals("{ \"report\" : \"quarterly\" }\n".getBytes("UTF-8"), outputStream.toByteArray());
+        verify(httpServletResponse).setStatus(200);
+        verify(httpServletResponse).setContentType("application/json");
+    }
+
+    @Test
+    public void shouldReadChunksAcrossMappedWindowsOfFile() throws IOException {
+
+        // arrange
+        final byte[] content = "content mapped a window at a time".getBytes("UTF-8");
+        final File file = File.createTempFile("primer", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), content);
+        final PacedWriter.ChunkSource chunkSource = FileResponse.chunkSource(file.toPath(), content.length, 7);
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final byte[] chunk = new byte[5];
+
+        // act
+        int length;
+        while ((length = chunkSource.read(body.size(), chunk)) >= 0) {
+            body.write(chunk, 0, length);
+        }
+
+        // assert
+        assertArrayEquals(content, body.toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMissingFile() {
+
+        // act
+        new FileResponse(200, "text/plain", new File("does-not-exist.txt"), null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMissingClasspathResource() {
+
+        // act
+        new FileResponse(200, "text/plain", "does-not-exist.txt", null, null);
+    }
+
+    private static class TestServletOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            outputStream.write(b);
+        }
+
+        private byte[] toByteArray() {
+            return outputStream.toByteArray();
+        }
+
+    }
+
+}
@@ -1,27 +1,30 @@
 package uk.co.epsilontechnologies.primer.domain;
 
-import org.apache.commons.io.IOUtils;
 import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
-import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.powermock.api.mockito.PowerMockito.mockStatic;
 
-@RunWith(PowerMockRunner.class)
-@PrepareForTest(IOUtils.class)
 public class HttpServletRequestWrapperTest {
 
     private HttpServletRequestWrapper underTest;
@@ -32,10 +35,139 @@ public class HttpServletRequestWrapperTest {
         // arrange
         final String body = "<xml>body</xml>";
         final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
-        final ServletInputStream servletInputStream = mock(ServletInputStream.class);
-        mockStatic(IOUtils.class);
-        when(IOUtils.toString(servletInputStream)).thenReturn(body);
-        when(httpServletRequest.getInputStream()).thenReturn(servletInputStream);
+        when(httpServletRequest.getInputStream()).thenReturn(new TestServletInputStream(body.getBytes("UTF-8")));
+        this.underTest = new HttpServletRequestWrapper(httpServletRequest);
+
+        // act
+        final String result = underTest.getBody();
+
+        // assert
+        assertEquals(body, result);
+    }
+
+    @Test
+    public void shouldNotReadBodyUntilRequired() throws IOException {
+
+        // arrange
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getInputStream()).thenReturn(new TestServletInputStream(new byte[0]));
+
+        // act
+        this.underTest = new HttpServletRequestWrapper(httpServletRequest);
+        underTest.getMethod();
+        underTest.getCookiesAsMap();
+
+        // assert
+        verify(httpServletRequest, never()).getInputStream();
+    }
+
+    @Test
+    public void shouldReadNoMoreThanPrefixOfBodyUntilRequiredInFull() throws IOException {
+
+        // arrange
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getContentLengthLong()).thenReturn(-1L);
+        final TestServletInputStream inputStream = new TestServletInputStream("abcdefghij".getBytes("UTF-8"));
+        when(httpServletRequest.getInputStream()).thenReturn(inputStream);
+        this.underTest = new HttpServletRequestWrapper(httpServletRequest);
+
+        // act
+        final byte[] prefix = underTest.getBodyPrefix(4);
+        final boolean readAfterPrefix = underTest.isBodyRead();
+        final int unreadAfterPrefix = inputStream.inputStream.available();
+        final String body = underTest.getBody();
+
+        // assert
+        assertArrayEquals("abcd".getBytes("UTF-8"), prefix);
+        assertEquals(false, readAfterPrefix);
+        assertEquals(6, unreadAfterPrefix);
+        assertEquals("abcdefghij", body);
+    }
+
+    @Test
+    public void shouldReadBodyInFullWhenWithinPrefix() throws IOException {
+
+        // arrange
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getContentLengthLong()).thenReturn(4L);
+        when(httpServletRequest.getInputStream()).thenReturn(new TestServletInputStream("abcd".getBytes("UTF-8")));
+        this.underTest = new HttpServletRequestWrapper(httpServletRequest);
+
+        // act
+        final byte[] prefix = underTest.getBodyPrefix(4096);
+
+        // assert
+        assertArrayEquals("abcd".getBytes("UTF-8"), prefix);
+        assertEquals(true, underTest.isBodyRead());
+        assertSame(prefix, underTest.getBodyBytes());
+    }
+
+    @Test
+    public void shouldReadBodyOnlyOnce() throws IOException {
+
+        // arrange
+        final byte[] body = "body".getBytes("UTF-8");
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getInputStream()).thenReturn(new TestServletInputStream(body));
+        this.underTest = new HttpServletRequestWrapper(httpServletRequest);
+
+        // act
+        final byte[] first = underTest.getBodyBytes();
+        final String decoded = underTest.getBody();
+        final byte[] second = underTest.getBodyBytes();
+
+        // assert
+        assertArrayEquals(body, first);
+        assertSame(first, second);
+        assertSame(decoded, underTest.getBody());
+        verify(httpServletRequest, times(1)).getInputStream();
+    }
+
+    @Test
+    public void shouldUseBodyAndAsyncContextThatHaveAlreadyBeenRead() throws IOException {
+
+        // arrange
+        final byte[] body = "body".getBytes("UTF-8");
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        this.underTest = new HttpServletRequestWrapper(httpServletRequest, body, asyncContext);
+
+        // act
+        final String result = underTest.getBody();
+
+        // assert
+        assertEquals("body", result);
+        assertTrue(underTest.isAsyncStarted());
+        assertSame(asyncContext, underTest.getAsyncContext());
+        assertSame(asyncContext, underTest.startAsync(httpServletRequest, null));
+        verify(httpServletRequest, never()).getInputStream();
+        verify(httpServletRequest, never()).startAsync(httpServletRequest, null);
+    }
+
+    @Test
+    public void shouldDecodeBodyWithCharsetOfContentType() throws IOException {
+
+        // arrange
+        final String body = "caf\u00e9";
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getCharacterEncoding()).thenReturn("ISO-8859-1");
+        when(httpServletRequest.getInputStream()).thenReturn(new TestServletInputStream(body.getBytes("ISO-8859-1")));
+        this.underTest = new HttpServletRequestWrapper(httpServletRequest);
+
+        // act
+        final String result = underTest.getBody();
+
+        // assert
+        assertEquals(body, result);
+    }
+
+    @Test
+    public void shouldDecodeBodyAsUtf8WhenContentTypeHasNoCharset() throws IOException {
+
+        // arrange
+        final String body = "caf\u00e9";
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getInputStream()).thenReturn(new TestServletInputStream(body.getBytes("UTF-8")));
         this.underTest = new HttpServletRequestWrapper(httpServletRequest);
 
         // act
@@ -53,8 +185,6 @@ public class HttpServletRequestWrapperTest {
         final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
         when(headerNames.hasMoreElements()).thenReturn(true, true, true, false);
         when(headerNames.nextElement()).thenReturn("key1", "key2", "key3");
-        mockStatic(IOUtils.class);
-        when(IOUtils.toString(any(ServletInputStream.class))).thenReturn("");
         when(httpServletRequest.getHeaderNames()).thenReturn(headerNames);
         when(httpServletRequest.getHeader("key1")).thenReturn("value1");
         when(httpServletRequest.getHeader("key2")).thenReturn("value2");
@@ -82,12 +212,10 @@ public class HttpServletRequestWrapperTest {
         final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
         when(parameterNames.hasMoreElements()).thenReturn(true, true, true, false);
         when(parameterNames.nextElement()).thenReturn("key1", "key2", "key3");
-        mockStatic(IOUtils.class);
-        when(IOUtils.toString(any(ServletInputStream.class))).thenReturn("");
         when(httpServletRequest.getParameterNames()).thenReturn(parameterNames);
-        when(httpServletRequest.getParameter("key1")).thenReturn("value1");
-        when(httpServletRequest.getParameter("key2")).thenReturn("value2");
-        when(httpServletRequest.getParameter("key3")).thenReturn("value3");
+        when(httpServletRequest.getParameterValues("key1")).thenReturn(new String[] { "value1" });
+        when(httpServletRequest.getParameterValues("key2")).thenReturn(new String[] { "value2" });
+        when(httpServletRequest.getParameterValues("key3")).thenReturn(new String[] { "value3" });
         this.underTest = new HttpServletRequestWrapper(httpServletRequest);
 
         // act
@@ -108,8 +236,6 @@ public class HttpServletRequestWrapperTest {
 
         // arrange
         final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
-        mockStatic(IOUtils.class);
-        when(IOUtils.toString(any(ServletInputStream.class))).thenReturn("");
         when(httpServletRequest.getCookies()).thenReturn(new Cookie[] { new Cookie("key1", "value1"), new Cookie("key2", "value2"), new Cookie("key3", "value3") });
         this.underTest = new HttpServletRequestWrapper(httpServletRequest);
 
@@ -126,4 +252,96 @@ public class HttpServletRequestWrapperTest {
         assertEquals("value3", result.get("key3"));
     }
 
+    @Test
+    public void shouldGetHeadersRegardlessOfCase() {
+
+        // arrange
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList("Content-Type")));
+        when(httpServletRequest.getHeaders("Content-Type")).thenReturn(Collections.enumeration(Arrays.asList("application/json")));
+        this.underTest = new HttpServletRequestWrapper(httpServletRequest);
+
+        // act
+        final Map<String,String> result = underTest.getHeadersAsMap();
+
+        // assert
+        assertEquals("application/json", result.get("content-type"));
+        assertEquals("application/json", result.get("CONTENT-TYPE"));
+    }
+
+    @Test
+    public void shouldGetEveryValueOfHeadersAndParameters() {
+
+        // arrange
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList("Accept")));
+        when(httpServletRequest.getHeaders("Accept")).thenReturn(Collections.enumeration(Arrays.asList("text/xml", "application/json")));
+        when(httpServletRequest.getParameterNames()).thenReturn(Collections.enumeration(Arrays.asList("id")));
+        when(httpServletRequest.getParameterValues("id")).thenReturn(new String[] { "1", "2" });
+        this.underTest = new HttpServletRequestWrapper(httpServletRequest);
+
+        // act
+        final Map<String,List<String>> headers = underTest.getHeaderValuesAsMap();
+        final Map<String,List<String>> parameters = underTest.getParameterValuesAsMap();
+
+        // assert
+        assertEquals(Arrays.asList("text/xml", "application/json"), headers.get("accept"));
+        assertEquals(Arrays.asList("1", "2"), parameters.get("id"));
+        assertEquals("text/xml", underTest.getHeadersAsMap().get("Accept"));
+        assertEquals("1", underTest.getParametersAsMap().get("id"));
+    }
+
+    @Test
+    public void shouldBuildViewsOnlyOnce() {
+
+        // arrange
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList("key1")));
+        when(httpServletRequest.getParameterNames()).thenReturn(Collections.enumeration(Arrays.asList("key2")));
+        when(httpServletRequest.getCookies()).thenReturn(new Cookie[] { new Cookie("key3", "value3") });
+        this.underTest = new HttpServletRequestWrapper(httpServletRequest);
+
+        // act
+        final Map<String,String> headers = underTest.getHeadersAsMap();
+        final Map<String,String> parameters = underTest.getParametersAsMap();
+        final Map<String,String> cookies = underTest.getCookiesAsMap();
+
+        // assert
+        assertSame(headers, underTest.getHeadersAsMap());
+        assertSame(parameters, underTest.getParametersAsMap());
+        assertSame(cookies, underTest.getCookiesAsMap());
+        verify(httpServletRequest, times(1)).getHeaderNames();
+        verify(httpServletRequest, times(1)).getParameterNames();
+    }
+
+    private static class TestServletInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream inputStream;
+
+        private TestServletInputStream(final byte[] content) {
+            this.inputStream = new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return inputStream.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(final ReadListener readListener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return inputStream.read();
+        }
+
+    }
+
 }
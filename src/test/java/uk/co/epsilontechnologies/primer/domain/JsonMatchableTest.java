@@ -74,5 +74,75 @@ public class JsonMatchableTest {
         assertFalse(result);
     }
 
-}
+    @Test
+    public void shouldMatchNestedJsonWithFieldsInDifferentOrder() {
+
+        // arrange
+        this.underTest = new JsonMatchable("{\"one\":{\"a\":[1,2.5,true,null],\"b\":\"x\"},\"two\":12345678901}");
+
+        // act
+        boolean result = this.underTest.match("{\"two\":12345678901,\"one\":{\"b\":\"x\",\"a\":[1,2.5,true,null]}}");
+
+        // assert
+        assertTrue(result);
+    }
+
+    @Test
+    public void shouldNotMatchJsonArrayInDifferentOrder() {
+
+        // arrange
+        this.underTest = new JsonMatchable("[1,2,3]");
+
+        // act
+        boolean result = this.underTest.match("[1,3,2]");
+
+        // assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void shouldNotMatchJsonWithDifferentValueType() {
+
+        // arrange
+        this.underTest = new JsonMatchable("{\"one\":1}");
+
+        // act
+        boolean result = this.underTest.match("{\"one\":\"1\"}");
 
+        // assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void shouldNotMatchWhenFieldIsRepeatedInPlaceOfMissingField() {
+
+        // arrange
+        this.underTest = new JsonMatchable("{\"a\":1,\"b\":2}");
+
+        // act
+        boolean result = this.underTest.match("{\"a\":1,\"a\":1}");
+
+        // assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void shouldNotMatchMalformedOrEmptyJson() {
+
+        // arrange
+        this.underTest = new JsonMatchable("{\"one\":1}");
+
+        // act / assert
+        assertFalse(this.underTest.match("{\"one\":"));
+        assertFalse(this.underTest.match(""));
+        assertFalse(this.underTest.match(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidPrimedJson() {
+
+        // act
+        new JsonMatchable("{\"one\":");
+    }
+
+}
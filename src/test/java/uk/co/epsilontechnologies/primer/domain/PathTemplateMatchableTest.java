@@ -0,0 +1,103 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PathTemplateMatchableTest {
+
+    private PathTemplateMatchable underTest;
+
+    @Test
+    public void shouldMatchPathWithVariables() {
+
+        // arrange
+        this.underTest = new PathTemplateMatchable("/accounts/{id}/transactions/{txId}");
+
+        // act
+        final boolean result = this.underTest.match("/accounts/123/transactions/456");
+
+        // assert
+        assertTrue(result);
+    }
+
+    @Test
+    public void shouldNotMatchPathWithDifferentLiteralSegment() {
+
+        // arrange
+        this.underTest = new PathTemplateMatchable("/accounts/{id}/transactions/{txId}");
+
+        // act
+        final boolean result = this.underTest.match("/accounts/123/payments/456");
+
+        // assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void shouldNotMatchPathWithDifferentDepth() {
+
+        // arrange
+        this.underTest = new PathTemplateMatchable("/accounts/{id}");
+
+        // act
+        final boolean result = this.underTest.match("/accounts/123/transactions");
+
+        // assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void shouldNotMatchEmptyVariableSegment() {
+
+        // arrange
+        this.underTest = new PathTemplateMatchable("/accounts/{id}");
+
+        // act
+        final boolean result = this.underTest.match("/accounts/");
+
+        // assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void shouldExtractPathVariables() {
+
+        // arrange
+        this.underTest = new PathTemplateMatchable("/accounts/{id}/transactions/{txId}");
+
+        // act
+        final Map<String,String> result = this.underTest.extract("/accounts/123/transactions/456");
+
+        // assert
+        assertEquals(2, result.size());
+        assertEquals("123", result.get("id"));
+        assertEquals("456", result.get("txId"));
+    }
+
+    @Test
+    public void shouldNotExtractPathVariablesForNonMatchingPath() {
+
+        // arrange
+        this.underTest = new PathTemplateMatchable("/accounts/{id}");
+
+        // act
+        final Map<String,String> result = this.underTest.extract("/payments/123");
+
+        // assert
+        assertNull(result);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectVariableSpanningPartOfSegment() {
+
+        // act
+        new PathTemplateMatchable("/accounts/id-{id}");
+    }
+
+}
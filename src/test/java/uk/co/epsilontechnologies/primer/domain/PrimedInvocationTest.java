@@ -0,0 +1,117 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class PrimedInvocationTest {
+
+    private PrimedInvocation underTest;
+
+    @Test
+    public void shouldIssueResponsesInSequence() {
+
+        // arrange
+        final Response first = mock(Response.class);
+        final Response second = mock(Response.class);
+        this.underTest = new PrimedInvocation(mock(Request.class), first, second);
+
+        // act
+        final Response firstResult = this.underTest.nextResponse();
+        final Response secondResult = this.underTest.nextResponse();
+
+        // assert
+        assertSame(first, firstResult);
+        assertSame(second, secondResult);
+        assertNull(this.underTest.nextResponse());
+        assertTrue(this.underTest.isExhausted());
+    }
+
+    @Test
+    public void shouldAppendResponsesWhenNotExhausted() {
+
+        // arrange
+        this.underTest = new PrimedInvocation(mock(Request.class), mock(Response.class));
+
+        // act
+        final boolean result = this.underTest.addResponses(mock(Response.class));
+
+        // assert
+        assertTrue(result);
+        assertEquals(2, this.underTest.getResponses().size());
+        assertFalse(this.underTest.isExhausted());
+    }
+
+    @Test
+    public void shouldNotAppendResponsesWhenExhausted() {
+
+        // arrange
+        this.underTest = new PrimedInvocation(mock(Request.class), mock(Response.class));
+        this.underTest.nextResponse();
+
+        // act
+        final boolean result = this.underTest.addResponses(mock(Response.class));
+
+        // assert
+        assertFalse(result);
+        assertNull(this.underTest.nextResponse());
+        assertTrue(this.underTest.getResponses().isEmpty());
+    }
+
+    @Test
+    public void shouldIssueEachResponseToExactlyOneConcurrentCaller() throws InterruptedException {
+
+        // arrange
+        final int responseCount = 10000;
+        final int threadCount = 16;
+        final Response[] responses = new Response[responseCount];
+        for (int i = 0; i < responseCount; i++) {
+            responses[i] = new SimpleResponse(200, null, String.valueOf(i), Collections.<String,String>emptyMap(), Collections.<String,String>emptyMap());
+        }
+        this.underTest = new PrimedInvocation(mock(Request.class), responses);
+        final Set<Response> issued = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<Response,Boolean>()));
+        final AtomicInteger issuedCount = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        Response response;
+                        while ((response = underTest.nextResponse()) != null) {
+                            issued.add(response);
+                            issuedCount.incrementAndGet();
+                        }
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        finish.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        // act
+        start.countDown();
+        finish.await();
+
+        // assert
+        assertEquals(responseCount, issuedCount.get());
+        assertEquals(responseCount, issued.size());
+        assertTrue(this.underTest.isExhausted());
+    }
+
+}
@@ -2,6 +2,8 @@ package uk.co.epsilontechnologies.primer.domain;
 
 import org.junit.Test;
 
+import java.util.regex.PatternSyntaxException;
+
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -35,4 +37,11 @@ public class RegExMatchableTest {
         assertFalse(result);
     }
 
+    @Test(expected = PatternSyntaxException.class)
+    public void shouldRejectInvalidRegExExpressionWhenPrimed() {
+
+        // act
+        new RegExMatchable("([a-z]{5}");
+    }
+
 }
@@ -0,0 +1,160 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SimpleResponseTest {
+
+    private SimpleResponse underTest;
+
+    @Test
+    public void shouldWriteBodyEncodedWithCharsetOfContentType() throws IOException {
+
+        // arrange
+        final String body = "{ \"name\" : \"caf\u00e9\" }";
+        final TestServletOutputStream outputStream = new TestServletOutputStream();
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        when(httpServletResponse.getOutputStream()).thenReturn(outputStream);
+        this.underTest = new SimpleResponse(200, "application/json; charset=UTF-8", body, Collections.singletonMap("key", "value"), Collections.<String,String>emptyMap());
+
+        // act
+        this.underTest.populate(httpServletResponse);
+
+        // assert
+        assertArrayEquals(body.getBytes("UTF-8"), outputStream.toByteArray());
+        verify(httpServletResponse).setContentLength(body.getBytes("UTF-8").length);
+        verify(httpServletResponse, never()).setCharacterEncoding(anyString());
+        verify(httpServletResponse).addHeader("key", "value");
+        verify(httpServletResponse).setStatus(200);
+    }
+
+    @Test
+    public void shouldWriteBodyEncodedAsIso88591WhenContentTypeHasNoCharset() throws IOException {
+
+        // arrange
+        final String body = "caf\u00e9";
+        final TestServletOutputStream outputStream = new TestServletOutputStream();
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        when(httpServletResponse.getOutputStream()).thenReturn(outputStream);
+        this.underTest = new SimpleResponse(200, "text/plain", body, Collections.<String,String>emptyMap(), Collections.<String,String>emptyMap());
+
+        // act
+        this.underTest.populate(httpServletResponse);
+
+        // assert
+        assertArrayEquals(body.getBytes("ISO-8859-1"), outputStream.toByteArray());
+        verify(httpServletResponse).setContentLength(body.length());
+        verify(httpServletResponse).setCharacterEncoding("ISO-8859-1");
+    }
+
+    @Test
+    public void shouldWriteBodyEncodedWithCharsetAssumedForJsonWithoutSettingIt() throws IOException {
+
+        // arrange
+        final String body = "{ \"price\" : \"\u20ac10\" }";
+        final TestServletOutputStream outputStream = new TestServletOutputStream();
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        when(httpServletResponse.getOutputStream()).thenReturn(outputStream);
+        this.underTest = new SimpleResponse(200, "application/json", body, Collections.<String,String>emptyMap(), Collections.<String,String>emptyMap());
+
+        // act
+        this.underTest.populate(httpServletResponse);
+
+        // assert
+        assertArrayEquals(body.getBytes("UTF-8"), outputStream.toByteArray());
+        verify(httpServletResponse).setContentLength(body.getBytes("UTF-8").length);
+        verify(httpServletResponse, never()).setCharacterEncoding(anyString());
+    }
+
+    @Test
+    public void shouldWriteBodyEncodedWithCharsetInferredForXml() throws IOException {
+
+        // arrange
+        final String body = "<price>\u20ac10</price>";
+        final TestServletOutputStream outputStream = new TestServletOutputStream();
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        when(httpServletResponse.getOutputStream()).thenReturn(outputStream);
+        this.underTest = new SimpleResponse(200, "text/xml", body, Collections.<String,String>emptyMap(), Collections.<String,String>emptyMap());
+
+        // act
+        this.underTest.populate(httpServletResponse);
+
+        // assert
+        assertArrayEquals(body.getBytes("UTF-8"), outputStream.toByteArray());
+        verify(httpServletResponse).setCharacterEncoding("UTF-8");
+    }
+
+    @Test
+    public void shouldNotWriteBodyWhenNoneIsPrimed() throws IOException {
+
+        // arrange
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        this.underTest = new SimpleResponse(204, null, null, Collections.<String,String>emptyMap(), Collections.<String,String>emptyMap());
+
+        // act
+        this.underTest.populate(httpServletResponse);
+
+        // assert
+        verify(httpServletResponse, never()).getOutputStream();
+        verify(httpServletResponse).setStatus(204);
+        verify(httpServletResponse).flushBuffer();
+    }
+
+    @Test
+    public void shouldCompareAndDescribeByPrimedFieldsOnly() {
+
+        // arrange
+        this.underTest = new SimpleResponse(200, "application/json", "{}", Collections.singletonMap("X-Id", "1"), Collections.<String,String>emptyMap());
+
+        // act
+        final SimpleResponse result = new SimpleResponse(200, "application/json", "{}", Collections.singletonMap("X-Id", "1"), Collections.<String,String>emptyMap());
+
+        // assert
+        assertEquals(underTest, result);
+        assertEquals(underTest.hashCode(), result.hashCode());
+        assertTrue(underTest.toString().contains("body={}"));
+        assertFalse(underTest.toString().contains("encodedBody"));
+    }
+
+    private static class TestServletOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            outputStream.write(b);
+        }
+
+        private byte[] toByteArray() {
+            return outputStream.toByteArray();
+        }
+
+    }
+
+}
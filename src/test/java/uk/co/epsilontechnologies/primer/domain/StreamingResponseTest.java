@@ -0,0 +1,127 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.co.epsilontechnologies.primer.domain.StreamingResponseBuilder.stream;
+
+public class StreamingResponseTest {
+
+    private StreamingResponse underTest;
+
+    @Test
+    public void shouldWriteRepeatedPatternOfGivenLength() throws IOException {
+
+        // arrange
+        final TestServletOutputStream outputStream = new TestServletOutputStream();
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        when(httpServletResponse.getOutputStream()).thenReturn(outputStream);
+        this.underTest = (StreamingResponse) stream(200, "text/plain", 7).withPattern("abc").withChunkSize(2).build();
+
+        // act
+        this.underTest.populate(httpServletResponse);
+
+        // assert
+        assertEquals("abcabca", new String(outputStream.toByteArray(), "UTF-8"));
+        verify(httpServletResponse).setContentLengthLong(7);
+    }
+
+    @Test
+    public void shouldWriteChunksOnlyWhenClientIsReady() throws IOException {
+
+        // arrange
+        final TestServletOutputStream outputStream = new TestServletOutputStream();
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        when(httpServletResponse.getOutputStream()).thenReturn(outputStream);
+        this.underTest = (StreamingResponse) stream(200, "text/plain", 5).withPattern("ab").withChunkSize(2).build();
+        this.underTest.populate(asyncContext, httpServletResponse);
+
+        // act
+        outputStream.ready(1);
+        outputStream.writeListener.onWritePossible();
+        final String afterFirstWrite = new String(outputStream.toByteArray(), "UTF-8");
+        outputStream.ready(2);
+        outputStream.writeListener.onWritePossible();
+        verify(asyncContext, never()).complete();
+        outputStream.ready(1);
+        outputStream.writeListener.onWritePossible();
+
+        // assert
+        assertEquals("ab", afterFirstWrite);
+        assertEquals("ababa", new String(outputStream.toByteArray(), "UTF-8"));
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    public void shouldGenerateSameSeededContentRegardlessOfChunking() {
+
+        // arrange
+        final ContentGenerator generator = new StreamingResponseBuilder.SeededGenerator(42);
+        final byte[] whole = new byte[100];
+        final byte[] first = new byte[37];
+        final byte[] second = new byte[63];
+
+        // act
+        generator.generate(0, whole, 100);
+        generator.generate(0, first, 37);
+        generator.generate(37, second, 63);
+
+        // assert
+        assertArrayEquals(Arrays.copyOfRange(whole, 0, 37), first);
+        assertArrayEquals(Arrays.copyOfRange(whole, 37, 100), second);
+    }
+
+    private static class TestServletOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        private WriteListener writeListener;
+
+        private int readyWrites = Integer.MAX_VALUE;
+
+        private void ready(final int writes) {
+            this.readyWrites = writes;
+        }
+
+        @Override
+        public boolean isReady() {
+            return readyWrites > 0;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            this.writeListener = writeListener;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            outputStream.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            readyWrites--;
+            outputStream.write(b, off, len);
+        }
+
+        private byte[] toByteArray() {
+            return outputStream.toByteArray();
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class ThrottleTest {
+
+    private Throttle underTest;
+
+    @Test
+    public void shouldPaceRateAgainstStartTime() {
+
+        // arrange
+        this.underTest = Throttle.bytesPerSecond(1000).withChunkSize(100);
+        final long start = 0;
+
+        // act
+        final long onSchedule = this.underTest.nextDelay(start, 500, TimeUnit.MILLISECONDS.toNanos(100));
+        final long behindSchedule = this.underTest.nextDelay(start, 500, TimeUnit.MILLISECONDS.toNanos(600));
+
+        // assert
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(400), onSchedule);
+        assertEquals(0, behindSchedule);
+        assertEquals(100, this.underTest.getChunkSize());
+    }
+
+    @Test
+    public void shouldPauseForChunkDelay() {
+
+        // arrange
+        this.underTest = Throttle.chunkDelay(10, 50);
+
+        // act
+        final long result = this.underTest.nextDelay(0, 1000, TimeUnit.SECONDS.toNanos(10));
+
+        // assert
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), result);
+        assertEquals(10, this.underTest.getChunkSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidRate() {
+
+        // act
+        Throttle.bytesPerSecond(0);
+    }
+
+}
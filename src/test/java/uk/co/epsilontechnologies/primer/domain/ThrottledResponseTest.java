@@ -0,0 +1,158 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ThrottledResponseTest {
+
+    private ThrottledResponse underTest;
+
+    @Test
+    public void shouldWriteBodyOfDelegateResponseInPacedChunks() throws IOException {
+
+        // arrange
+        final TestServletOutputStream outputStream = new TestServletOutputStream();
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        when(httpServletResponse.getOutputStream()).thenReturn(outputStream);
+        when(httpServletResponse.getCharacterEncoding()).thenReturn("ISO-8859-1");
+        final Response response = new SimpleResponse(200, "text/plain", "abcdefghij", Collections.<String,String>emptyMap(), Collections.<String,String>emptyMap());
+        this.underTest = new ThrottledResponse(response, Throttle.chunkDelay(4, 20));
+        final long start = System.nanoTime();
+
+        // act
+        this.underTest.populate(httpServletResponse);
+
+        // assert
+        assertTrue(System.nanoTime() - start >= 40000000L);
+        assertEquals("abcdefghij", outputStream.toString());
+        assertEquals(3, outputStream.writes);
+        verify(httpServletResponse).setStatus(200);
+        verify(httpServletResponse).setContentLengthLong(10);
+    }
+
+    @Test
+    public void shouldWriteBodyAsynchronouslyAndComplete() throws IOException {
+
+        // arrange
+        final TestServletOutputStream outputStream = new TestServletOutputStream();
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final Thread serverThread = new Thread((Runnable) invocation.getArguments()[0], "server");
+                serverThread.start();
+                return null;
+            }
+        }).when(asyncContext).start(any(Runnable.class));
+        when(httpServletResponse.getOutputStream()).thenReturn(outputStream);
+        final Response response = new SimpleResponse(200, "text/plain", "abcdefghij", Collections.<String,String>emptyMap(), Collections.<String,String>emptyMap());
+        this.underTest = new ThrottledResponse(response, Throttle.chunkDelay(4, 10));
+
+        // act
+        this.underTest.populate(asyncContext, httpServletResponse);
+        outputStream.writeListener.onWritePossible();
+
+        // assert
+        verify(asyncContext, timeout(2000)).complete();
+        assertEquals("abcdefghij", outputStream.toString());
+        assertEquals(3, outputStream.writes);
+        verify(asyncContext, times(3)).start(any(Runnable.class));
+        assertEquals(Collections.singleton("server"), outputStream.resumedOn);
+    }
+
+    @Test
+    public void shouldWriteFileInPacedChunksWithoutCapturingIt() throws IOException {
+
+        // arrange
+        final File file = File.createTempFile("primer", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "abcdefghij".getBytes("UTF-8"));
+        final TestServletOutputStream outputStream = new TestServletOutputStream();
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        when(httpServletResponse.getOutputStream()).thenReturn(outputStream);
+        final Response response = new FileResponse(200, "text/plain", file, Collections.<String,String>emptyMap(), Collections.<String,String>emptyMap());
+        this.underTest = new ThrottledResponse(response, Throttle.chunkDelay(4, 1));
+
+        // act
+        this.underTest.populate(httpServletResponse);
+
+        // assert
+        assertEquals("abcdefghij", outputStream.toString());
+        assertEquals(3, outputStream.writes);
+        verify(httpServletResponse).setStatus(200);
+        verify(httpServletResponse).setContentType("text/plain");
+        verify(httpServletResponse).setContentLengthLong(10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAsynchronousResponse() {
+
+        // act
+        new ThrottledResponse(mock(AsyncResponse.class), Throttle.bytesPerSecond(1024));
+    }
+
+    private static class TestServletOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        private WriteListener writeListener;
+
+        private volatile int writes;
+
+        private final Set<String> resumedOn = new HashSet<>();
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            this.writeListener = writeListener;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            outputStream.write(b);
+        }
+
+        @Override
+        public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+            if (writes++ > 0) {
+                resumedOn.add(Thread.currentThread().getName());
+            }
+            outputStream.write(b, off, len);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return new String(outputStream.toByteArray());
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package uk.co.epsilontechnologies.primer.domain;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class XmlMatchableTest {
+
+    private XmlMatchable underTest;
+
+    @Test
+    public void shouldMatchSameXml() {
+
+        // arrange
+        this.underTest = new XmlMatchable("<blah><one a=\"1\">x</one><two/></blah>");
+
+        // act
+        final boolean result = this.underTest.match("<blah><one a=\"1\">x</one><two/></blah>");
+
+        // assert
+        assertTrue(result);
+    }
+
+    @Test
+    public void shouldMatchXmlWithSiblingsAndAttributesInDifferentOrder() {
+
+        // arrange
+        this.underTest = new XmlMatchable("<blah><one a=\"1\" b=\"2\"/><two/></blah>");
+
+        // act
+        final boolean result = this.underTest.match("<blah> <two/> <one b=\"2\" a=\"1\"/> </blah>");
+
+        // assert
+        assertTrue(result);
+    }
+
+    @Test
+    public void shouldMatchXmlWithDifferentNamespacePrefixes() {
+
+        // arrange
+        this.underTest = new XmlMatchable("<a:blah xmlns:a=\"urn:test\"><a:one/></a:blah>");
+
+        // act
+        final boolean result = this.underTest.match("<b:blah xmlns:b=\"urn:test\"><b:one/></b:blah>");
+
+        // assert
+        assertTrue(result);
+    }
+
+    @Test
+    public void shouldNotMatchXmlWithDifferentElements() {
+
+        // arrange
+        this.underTest = new XmlMatchable("<blah><one/><two/></blah>");
+
+        // act
+        final boolean result = this.underTest.match("<blah><two/><three/></blah>");
+
+        // assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void shouldNotMatchXmlWithDifferentText() {
+
+        // arrange
+        this.underTest = new XmlMatchable("<blah><one>x</one></blah>");
+
+        // act
+        final boolean result = this.underTest.match("<blah><one>y</one></blah>");
+
+        // assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void shouldNotMatchXmlWithAdditionalAttribute() {
+
+        // arrange
+        this.underTest = new XmlMatchable("<blah><one a=\"1\"/></blah>");
+
+        // act
+        final boolean result = this.underTest.match("<blah><one a=\"1\" b=\"2\"/></blah>");
+
+        // assert
+        assertFalse(result);
+    }
+
+    @Test
+    public void shouldNotMatchXmlWithDifferentWhitespaceWhenWhitespaceIsSignificant() {
+
+        // arrange
+        this.underTest = new XmlMatchable("<blah><one> x </one></blah>", false);
+
+        // act / assert
+        assertTrue(this.underTest.match("<blah><one> x </one></blah>"));
+        assertFalse(this.underTest.match("<blah><one>x</one></blah>"));
+    }
+
+    @Test
+    public void shouldNotMatchMalformedXml() {
+
+        // arrange
+        this.underTest = new XmlMatchable("<blah><one/></blah>");
+
+        // act
+        final boolean result = this.underTest.match("<blah><one/>");
+
+        // assert
+        assertFalse(result);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidPrimedXml() {
+
+        // act
+        new XmlMatchable("<blah>");
+    }
+
+}
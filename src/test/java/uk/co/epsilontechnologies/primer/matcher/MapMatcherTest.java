@@ -3,7 +3,9 @@ package uk.co.epsilontechnologies.primer.matcher;
 import org.junit.Test;
 import uk.co.epsilontechnologies.primer.domain.Matchable;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertFalse;
@@ -92,4 +94,38 @@ public class MapMatcherTest {
         assertFalse(result);
     }
 
+    @Test
+    public void shouldMatchAnyValueOfMultiValuedMap() {
+
+        // arrange
+        this.underTest = new MapMatcher();
+        final Map<String,Matchable> primedMap = new HashMap<>();
+        primedMap.put("key1", eq("value2"));
+        final Map<String,List<String>> requestMap = new HashMap<>();
+        requestMap.put("key1", Arrays.asList("value1", "value2"));
+
+        // act
+        final boolean result = this.underTest.matchAny(primedMap, requestMap);
+
+        // assert
+        assertTrue(result);
+    }
+
+    @Test
+    public void shouldNotMatchMultiValuedMapWithoutMatchingValue() {
+
+        // arrange
+        this.underTest = new MapMatcher();
+        final Map<String,Matchable> primedMap = new HashMap<>();
+        primedMap.put("key1", eq("value3"));
+        final Map<String,List<String>> requestMap = new HashMap<>();
+        requestMap.put("key1", Arrays.asList("value1", "value2"));
+
+        // act
+        final boolean result = this.underTest.matchAny(primedMap, requestMap);
+
+        // assert
+        assertFalse(result);
+    }
+
 }
@@ -0,0 +1,56 @@
+package uk.co.epsilontechnologies.primer.matcher;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MultiPatternMatcherTest {
+
+    private MultiPatternMatcher underTest;
+
+    @Test
+    public void shouldFindFirstMatchingPattern() {
+
+        // arrange
+        this.underTest = new MultiPatternMatcher(Arrays.asList(Pattern.compile("/a/(\\d+)"), Pattern.compile("/b/.*"), Pattern.compile("/.*")));
+
+        // act / assert
+        assertEquals(0, this.underTest.firstMatch("/a/123"));
+        assertEquals(1, this.underTest.firstMatch("/b/xyz"));
+        assertEquals(2, this.underTest.firstMatch("/a/xyz"));
+    }
+
+    @Test
+    public void shouldNotMatchWhenNoPatternMatchesWholeString() {
+
+        // arrange
+        this.underTest = new MultiPatternMatcher(Arrays.asList(Pattern.compile("/a/(\\d+)"), Pattern.compile("/b")));
+
+        // act
+        final int result = this.underTest.firstMatch("/b/c");
+
+        // assert
+        assertEquals(-1, result);
+    }
+
+    @Test
+    public void shouldNotCombinePatternsWithBackReferences() {
+
+        // arrange
+        this.underTest = new MultiPatternMatcher(Arrays.asList(Pattern.compile("/(a)\\1"), Pattern.compile("/(b)(c)"), Pattern.compile("/d")));
+
+        // act / assert
+        assertFalse(this.underTest.isCombined(0));
+        assertTrue(this.underTest.isCombined(1));
+        assertTrue(this.underTest.isCombined(2));
+        assertEquals(-1, this.underTest.firstMatch("/aa"));
+        assertEquals(1, this.underTest.firstMatch("/bc"));
+        assertEquals(2, this.underTest.firstMatch("/d"));
+    }
+
+}
@@ -0,0 +1,103 @@
+package uk.co.epsilontechnologies.primer.matcher;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PathTemplateTrieTest {
+
+    private PathTemplateTrie<String> underTest;
+
+    @Before
+    public void setUp() {
+        this.underTest = new PathTemplateTrie<>();
+    }
+
+    @Test
+    public void shouldLookupTemplatesMatchingPathInSequence() {
+
+        // arrange
+        this.underTest.add(segments("", "accounts", null, "transactions", null), 2, "transaction");
+        this.underTest.add(segments("", "accounts", null), 1, "account");
+        this.underTest.add(segments("", "accounts", "current", "transactions", null), 0, "current");
+
+        // act
+        final List<String> result = new ArrayList<>(this.underTest.lookup(new String[] { "", "accounts", "current", "transactions", "1" }).values());
+
+        // assert
+        assertEquals(Arrays.asList("current", "transaction"), result);
+    }
+
+    @Test
+    public void shouldSplitCompressedEdges() {
+
+        // arrange
+        this.underTest.add(segments("", "a", "b", "c"), 0, "abc");
+        this.underTest.add(segments("", "a", "b", "d"), 1, "abd");
+        this.underTest.add(segments("", "a"), 2, "a");
+
+        // act / assert
+        assertEquals(Arrays.asList("abc"), new ArrayList<>(this.underTest.lookup(new String[] { "", "a", "b", "c" }).values()));
+        assertEquals(Arrays.asList("abd"), new ArrayList<>(this.underTest.lookup(new String[] { "", "a", "b", "d" }).values()));
+        assertEquals(Arrays.asList("a"), new ArrayList<>(this.underTest.lookup(new String[] { "", "a" }).values()));
+        assertTrue(this.underTest.lookup(new String[] { "", "a", "b" }).isEmpty());
+    }
+
+    @Test
+    public void shouldRemoveTemplate() {
+
+        // arrange
+        this.underTest.add(segments("", "accounts", null), 0, "account");
+
+        // act
+        this.underTest.remove(segments("", "accounts", null), 0);
+
+        // assert
+        assertTrue(this.underTest.lookup(new String[] { "", "accounts", "1" }).isEmpty());
+    }
+
+    @Test
+    public void shouldPruneEmptyNodesWhenTemplatesRemoved() {
+
+        // arrange
+        this.underTest.add(segments("", "accounts", null, "transactions"), 0, "transactions");
+
+        // act
+        for (int i = 1; i <= 100; i++) {
+            this.underTest.add(segments("", "accounts", null, "statements", "s" + i), i, "statement");
+            this.underTest.add(segments("", "customers", null), 1000 + i, "customer");
+            this.underTest.remove(segments("", "accounts", null, "statements", "s" + i), i);
+            this.underTest.remove(segments("", "customers", null), 1000 + i);
+        }
+
+        // assert
+        assertEquals(4, this.underTest.nodes());
+        assertEquals(Arrays.asList("transactions"), new ArrayList<>(this.underTest.lookup(new String[] { "", "accounts", "1", "transactions" }).values()));
+    }
+
+    @Test
+    public void shouldMergeSplitEdgesWhenTemplateRemoved() {
+
+        // arrange
+        this.underTest.add(segments("", "accounts", "current", "transactions"), 0, "transactions");
+        this.underTest.add(segments("", "accounts", "current", "statements"), 1, "statements");
+
+        // act
+        this.underTest.remove(segments("", "accounts", "current", "statements"), 1);
+
+        // assert
+        assertEquals(2, this.underTest.nodes());
+        assertEquals(Arrays.asList("transactions"), new ArrayList<>(this.underTest.lookup(new String[] { "", "accounts", "current", "transactions" }).values()));
+    }
+
+    private static List<String> segments(final String... segments) {
+        return Arrays.asList(segments);
+    }
+
+}
@@ -0,0 +1,226 @@
+package uk.co.epsilontechnologies.primer.matcher;
+
+import org.junit.Test;
+import uk.co.epsilontechnologies.primer.domain.HttpServletRequestWrapper;
+import uk.co.epsilontechnologies.primer.domain.Request;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class RequestMatcherTest {
+
+    private RequestMatcher underTest;
+
+    @Test
+    public void shouldMatchWhenAllAttributesMatch() {
+
+        // arrange
+        final CountingBodyMatcher bodyMatcher = new CountingBodyMatcher(true);
+        this.underTest = newRequestMatcher(bodyMatcher, true, true, true);
+
+        // act
+        final boolean result = this.underTest.match(mock(Request.class), mock(HttpServletRequestWrapper.class));
+
+        // assert
+        assertTrue(result);
+        assertEquals(1, bodyMatcher.count);
+    }
+
+    @Test
+    public void shouldNotEvaluateBodyWhenUriDoesNotMatch() {
+
+        // arrange
+        final CountingBodyMatcher bodyMatcher = new CountingBodyMatcher(true);
+        this.underTest = newRequestMatcher(bodyMatcher, true, false, true);
+
+        // act
+        boolean result = false;
+        for (int i = 0; i < 10000; i++) {
+            result |= this.underTest.match(mock(Request.class), mock(HttpServletRequestWrapper.class));
+        }
+
+        // assert
+        assertFalse(result);
+        assertEquals(0, bodyMatcher.count);
+    }
+
+    @Test
+    public void shouldEvaluateMostSelectiveMatcherFirstOnceAdapted() {
+
+        // arrange
+        final CountingMethodMatcher methodMatcher = new CountingMethodMatcher(true);
+        final CountingHeadersMatcher headersMatcher = new CountingHeadersMatcher(false);
+        this.underTest = new RequestMatcher(
+                new CountingBodyMatcher(true),
+                new CountingUriMatcher(true),
+                new CountingParametersMatcher(true),
+                headersMatcher,
+                new CountingCookiesMatcher(true),
+                methodMatcher);
+        final Request request = mock(Request.class);
+        final HttpServletRequestWrapper requestWrapper = mock(HttpServletRequestWrapper.class);
+        for (int i = 0; i < 200000; i++) {
+            this.underTest.match(request, requestWrapper);
+        }
+        methodMatcher.count = 0;
+        headersMatcher.count = 0;
+
+        // act
+        for (int i = 0; i < 1000; i++) {
+            this.underTest.match(request, requestWrapper);
+        }
+
+        // assert
+        assertEquals(1000, headersMatcher.count);
+        assertEquals(0, methodMatcher.count);
+    }
+
+    @Test
+    public void shouldEvaluateBodyLastWhenUriRarelyRejects() {
+
+        // arrange
+        final CountingBodyMatcher bodyMatcher = new CountingBodyMatcher(false);
+        final CountingUriMatcher uriMatcher = new CountingUriMatcher(true);
+        this.underTest = new RequestMatcher(
+                bodyMatcher,
+                uriMatcher,
+                new CountingParametersMatcher(true),
+                new CountingHeadersMatcher(true),
+                new CountingCookiesMatcher(true),
+                new CountingMethodMatcher(true));
+        final Request request = mock(Request.class);
+        final HttpServletRequestWrapper requestWrapper = mock(HttpServletRequestWrapper.class);
+        for (int i = 0; i < 200000; i++) {
+            this.underTest.match(request, requestWrapper);
+        }
+        uriMatcher.result = false;
+        bodyMatcher.count = 0;
+
+        // act
+        boolean result = false;
+        for (int i = 0; i < 1000; i++) {
+            result |= this.underTest.match(request, requestWrapper);
+        }
+
+        // assert
+        assertFalse(result);
+        assertEquals(0, bodyMatcher.count);
+    }
+
+    private static RequestMatcher newRequestMatcher(final BodyMatcher bodyMatcher, final boolean method, final boolean uri, final boolean headers) {
+        return new RequestMatcher(
+                bodyMatcher,
+                new CountingUriMatcher(uri),
+                new CountingParametersMatcher(true),
+                new CountingHeadersMatcher(headers),
+                new CountingCookiesMatcher(true),
+                new CountingMethodMatcher(method));
+    }
+
+    private static class CountingBodyMatcher extends BodyMatcher {
+
+        private final boolean result;
+
+        private int count;
+
+        CountingBodyMatcher(final boolean result) {
+            this.result = result;
+        }
+
+        @Override
+        public boolean match(final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
+            count++;
+            return result;
+        }
+
+    }
+
+    private static class CountingUriMatcher extends UriMatcher {
+
+        private boolean result;
+
+        CountingUriMatcher(final boolean result) {
+            super("");
+            this.result = result;
+        }
+
+        @Override
+        public boolean match(final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
+            return result;
+        }
+
+    }
+
+    private static class CountingParametersMatcher extends ParametersMatcher {
+
+        private final boolean result;
+
+        CountingParametersMatcher(final boolean result) {
+            super(null);
+            this.result = result;
+        }
+
+        @Override
+        public boolean match(final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
+            return result;
+        }
+
+    }
+
+    private static class CountingHeadersMatcher extends HeadersMatcher {
+
+        private final boolean result;
+
+        private int count;
+
+        CountingHeadersMatcher(final boolean result) {
+            super(null);
+            this.result = result;
+        }
+
+        @Override
+        public boolean match(final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
+            count++;
+            return result;
+        }
+
+    }
+
+    private static class CountingCookiesMatcher extends CookiesMatcher {
+
+        private final boolean result;
+
+        CountingCookiesMatcher(final boolean result) {
+            super(null);
+            this.result = result;
+        }
+
+        @Override
+        public boolean match(final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
+            return result;
+        }
+
+    }
+
+    private static class CountingMethodMatcher extends MethodMatcher {
+
+        private final boolean result;
+
+        private int count;
+
+        CountingMethodMatcher(final boolean result) {
+            super(null);
+            this.result = result;
+        }
+
+        @Override
+        public boolean match(final Request primedRequest, final HttpServletRequestWrapper requestWrapper) {
+            count++;
+            return result;
+        }
+
+    }
+
+}
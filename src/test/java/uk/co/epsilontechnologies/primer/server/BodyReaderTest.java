@@ -0,0 +1,127 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import org.junit.Test;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class BodyReaderTest {
+
+    private BodyReader underTest;
+
+    @Test
+    public void shouldAccumulateBodyAcrossReadsAndHandItOverOnceRead() throws IOException {
+
+        // arrange
+        final TestServletInputStream inputStream = new TestServletInputStream();
+        final TestCallback callback = new TestCallback();
+        this.underTest = new BodyReader(inputStream, -1, callback);
+
+        // act
+        inputStream.offer("hello ");
+        underTest.onDataAvailable();
+        inputStream.offer("world");
+        underTest.onDataAvailable();
+        final byte[] beforeAllDataRead = callback.body;
+        underTest.onAllDataRead();
+
+        // assert
+        assertNull(beforeAllDataRead);
+        assertEquals("hello world", new String(callback.body, "UTF-8"));
+    }
+
+    @Test
+    public void shouldNotifyCallbackOfFailureToRead() {
+
+        // arrange
+        final TestCallback callback = new TestCallback();
+        final Throwable throwable = new IOException("reset");
+        this.underTest = new BodyReader(new TestServletInputStream(), 10, callback);
+
+        // act
+        underTest.onError(throwable);
+
+        // assert
+        assertSame(throwable, callback.throwable);
+    }
+
+    @Test
+    public void shouldNotifyCallbackOfFailureToHandleBody() {
+
+        // arrange
+        final RuntimeException exception = new RuntimeException("failed");
+        final TestCallback callback = new TestCallback() {
+            @Override
+            public void onBody(final byte[] body) {
+                throw exception;
+            }
+        };
+        this.underTest = new BodyReader(new TestServletInputStream(), 0, callback);
+
+        // act
+        underTest.onAllDataRead();
+
+        // assert
+        assertSame(exception, callback.throwable);
+    }
+
+    private static class TestCallback implements BodyReader.Callback {
+
+        private byte[] body;
+
+        private Throwable throwable;
+
+        @Override
+        public void onBody(final byte[] body) {
+            this.body = body;
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            this.throwable = throwable;
+        }
+
+    }
+
+    /**
+     * Input stream that is ready only while it holds content that has been offered but not yet read
+     */
+    private static class TestServletInputStream extends ServletInputStream {
+
+        private final List<Byte> available = new ArrayList<>();
+
+        private void offer(final String content) {
+            for (final byte b : content.getBytes()) {
+                available.add(b);
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return false;
+        }
+
+        @Override
+        public boolean isReady() {
+            return !available.isEmpty();
+        }
+
+        @Override
+        public void setReadListener(final ReadListener readListener) {
+        }
+
+        @Override
+        public int read() throws IOException {
+            return available.isEmpty() ? -1 : available.remove(0);
+        }
+
+    }
+
+}
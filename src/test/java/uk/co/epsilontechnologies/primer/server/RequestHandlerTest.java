@@ -0,0 +1,47 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RequestHandlerTest {
+
+    private RequestHandler underTest;
+
+    @Test
+    public void shouldHandleReadBodyAsAnyOtherRequestAndComplete() throws IOException {
+
+        // arrange
+        final StringBuilder handledBody = new StringBuilder();
+        this.underTest = new RequestHandler() {
+            @Override
+            public void handle(final HttpServletRequest httpServletRequest, final HttpServletResponse httpServletResponse) {
+                try {
+                    handledBody.append(IOUtils.toString(httpServletRequest.getReader()));
+                } catch (final IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getCharacterEncoding()).thenReturn("UTF-8");
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+
+        // act
+        this.underTest.handle(httpServletRequest, mock(HttpServletResponse.class), asyncContext, "{ \"id\" : \"€1\" }".getBytes("UTF-8"));
+
+        // assert
+        assertEquals("{ \"id\" : \"€1\" }", handledBody.toString());
+        verify(asyncContext).complete();
+    }
+
+}
@@ -0,0 +1,131 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RoutingRequestHandlerTest {
+
+    private RoutingRequestHandler underTest;
+
+    private RequestHandler alpha;
+
+    private RequestHandler alphaBeta;
+
+    private RequestHandler host;
+
+    @Before
+    public void setUp() {
+        this.underTest = new RoutingRequestHandler();
+        this.alpha = mock(RequestHandler.class);
+        this.alphaBeta = mock(RequestHandler.class);
+        this.host = mock(RequestHandler.class);
+        underTest.routeContextPath("/alpha", alpha);
+        underTest.routeContextPath("/alpha/beta/", alphaBeta);
+        underTest.routeHost("Stub.Local", host);
+    }
+
+    @Test
+    public void shouldRouteToLongestContextPath() {
+
+        // act
+        final RequestHandler alphaResult = underTest.route(request("localhost:8080", "/alpha/gamma"));
+        final RequestHandler alphaBetaResult = underTest.route(request("localhost:8080", "/alpha/beta/gamma"));
+        final RequestHandler exactResult = underTest.route(request("localhost:8080", "/alpha"));
+
+        // assert
+        assertSame(alpha, alphaResult);
+        assertSame(alphaBeta, alphaBetaResult);
+        assertSame(alpha, exactResult);
+    }
+
+    @Test
+    public void shouldRouteByHostBeforeContextPath() {
+
+        // act
+        final RequestHandler result = underTest.route(request("stub.local:8080", "/alpha/gamma"));
+
+        // assert
+        assertSame(host, result);
+    }
+
+    @Test
+    public void shouldNotRouteToPartialSegmentOfContextPath() {
+
+        // act
+        final RequestHandler result = underTest.route(request("localhost", "/alphabet"));
+
+        // assert
+        assertNull(result);
+    }
+
+    @Test
+    public void shouldRouteToRootContextPathWhenNoOtherMatches() {
+
+        // arrange
+        final RequestHandler root = mock(RequestHandler.class);
+        underTest.routeContextPath("/", root);
+
+        // act
+        final RequestHandler result = underTest.route(request("localhost", "/other"));
+
+        // assert
+        assertSame(root, result);
+    }
+
+    @Test
+    public void shouldStopRoutingWhenUnrouted() {
+
+        // arrange
+        underTest.unrouteContextPath("/alpha/beta");
+        underTest.unrouteHost("stub.local");
+
+        // act
+        final RequestHandler result = underTest.route(request("stub.local", "/alpha/beta/gamma"));
+
+        // assert
+        assertSame(alpha, result);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectContextPathThatIsAlreadyRouted() {
+
+        // act
+        underTest.routeContextPath("/alpha/", mock(RequestHandler.class));
+    }
+
+    @Test
+    public void shouldRespondNotFoundAndCompleteWhenNotRouted() throws Exception {
+
+        // arrange
+        final HttpServletResponse httpServletResponse = mock(HttpServletResponse.class);
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        when(httpServletResponse.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+
+        // act
+        underTest.handle(request("localhost", "/unknown"), httpServletResponse, asyncContext, new byte[0]);
+
+        // assert
+        verify(httpServletResponse).setStatus(HttpServletResponse.SC_NOT_FOUND);
+        verify(asyncContext).complete();
+    }
+
+    private static HttpServletRequest request(final String host, final String uri) {
+        final HttpServletRequest httpServletRequest = mock(HttpServletRequest.class);
+        when(httpServletRequest.getHeader("Host")).thenReturn(host);
+        when(httpServletRequest.getRequestURI()).thenReturn(uri);
+        return httpServletRequest;
+    }
+
+}
@@ -0,0 +1,110 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static uk.co.epsilontechnologies.primer.server.ServerConfigurationBuilder.configuration;
+
+public class ServerConfigurationBuilderTest {
+
+    private ServerConfigurationBuilder underTest;
+
+    @Test
+    public void shouldLeaveEverySettingAtDefaultUnlessConfigured() {
+
+        // arrange
+        this.underTest = configuration();
+
+        // act
+        final ServerConfiguration result = underTest.build();
+
+        // assert
+        assertEquals(ServerConfiguration.DEFAULT, result.getMinThreads());
+        assertEquals(ServerConfiguration.DEFAULT, result.getMaxThreads());
+        assertEquals(ServerConfiguration.DEFAULT, result.getQueueSize());
+        assertEquals(ServerConfiguration.DEFAULT, result.getAcceptors());
+        assertEquals(ServerConfiguration.DEFAULT, result.getSelectors());
+        assertEquals(ServerConfiguration.DEFAULT, result.getAcceptQueueSize());
+        assertEquals(ServerConfiguration.DEFAULT, result.getIdleTimeout());
+        assertEquals(ServerConfiguration.DEFAULT, result.getOutputBufferSize());
+        assertTrue(result.isTcpNoDelay());
+    }
+
+    @Test
+    public void shouldBuildConfiguredSettings() {
+
+        // arrange
+        this.underTest = configuration()
+                .withMinThreads(4)
+                .withMaxThreads(64)
+                .withQueueSize(256)
+                .withAcceptors(2)
+                .withSelectors(4)
+                .withAcceptQueueSize(1024)
+                .withIdleTimeout(5000)
+                .withTcpNoDelay(false)
+                .withOutputBufferSize(65536);
+
+        // act
+        final ServerConfiguration result = underTest.build();
+
+        // assert
+        assertEquals(4, result.getMinThreads());
+        assertEquals(64, result.getMaxThreads());
+        assertEquals(256, result.getQueueSize());
+        assertEquals(2, result.getAcceptors());
+        assertEquals(4, result.getSelectors());
+        assertEquals(1024, result.getAcceptQueueSize());
+        assertEquals(5000, result.getIdleTimeout());
+        assertEquals(65536, result.getOutputBufferSize());
+        assertFalse(result.isTcpNoDelay());
+    }
+
+    @Test
+    public void shouldBuildHttp2AndTlsSettings() {
+
+        // arrange
+        this.underTest = configuration()
+                .withHttp2(true)
+                .withMaxConcurrentStreams(512)
+                .withInitialStreamWindow(1024 * 1024)
+                .withInitialSessionWindow(4 * 1024 * 1024)
+                .withTls(8443, "keystore.p12", "secret");
+
+        // act
+        final ServerConfiguration result = underTest.build();
+
+        // assert
+        assertTrue(result.isHttp2());
+        assertEquals(512, result.getMaxConcurrentStreams());
+        assertEquals(1024 * 1024, result.getInitialStreamWindow());
+        assertEquals(4 * 1024 * 1024, result.getInitialSessionWindow());
+        assertEquals(8443, result.getTlsPort());
+        assertEquals("keystore.p12", result.getKeyStorePath());
+        assertEquals("secret", result.getKeyStorePassword());
+        assertFalse(result.toString().contains("secret"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTlsWithoutKeyStore() {
+
+        // arrange
+        this.underTest = configuration().withTls(8443, null, null);
+
+        // act
+        underTest.build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMinimumThreadsAboveMaximumThreads() {
+
+        // arrange
+        this.underTest = configuration().withMinThreads(32).withMaxThreads(16);
+
+        // act
+        underTest.build();
+    }
+
+}
@@ -0,0 +1,87 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import org.eclipse.jetty.server.Request;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerRequestHandlerTest {
+
+    private PrimerServer.ServerRequestHandler underTest;
+
+    private RequestHandler requestHandler;
+
+    private HttpServletRequest httpServletRequest;
+
+    private HttpServletResponse httpServletResponse;
+
+    private ServletInputStream inputStream;
+
+    @Before
+    public void setUp() throws Exception {
+        this.requestHandler = mock(RequestHandler.class);
+        this.httpServletRequest = mock(HttpServletRequest.class);
+        this.httpServletResponse = mock(HttpServletResponse.class);
+        this.inputStream = mock(ServletInputStream.class);
+        when(httpServletRequest.isAsyncSupported()).thenReturn(true);
+        when(httpServletRequest.startAsync(httpServletRequest, httpServletResponse)).thenReturn(mock(AsyncContext.class));
+        when(httpServletRequest.getInputStream()).thenReturn(inputStream);
+        this.underTest = new PrimerServer(8092, requestHandler).new ServerRequestHandler(requestHandler, null);
+    }
+
+    @Test
+    public void shouldReadBodyOfUndeclaredLengthWithoutBlockingBeyondHttp1() throws Exception {
+
+        // arrange
+        when(httpServletRequest.getProtocol()).thenReturn("HTTP/2.0");
+        when(httpServletRequest.getContentLengthLong()).thenReturn(-1L);
+
+        // act
+        underTest.handle("/upload", mock(Request.class), httpServletRequest, httpServletResponse);
+
+        // assert
+        verify(inputStream).setReadListener(any(ReadListener.class));
+        verify(requestHandler, never()).handle(httpServletRequest, httpServletResponse);
+    }
+
+    @Test
+    public void shouldHandleHttp1RequestOfUndeclaredLengthDirectly() throws Exception {
+
+        // arrange
+        when(httpServletRequest.getProtocol()).thenReturn("HTTP/1.1");
+        when(httpServletRequest.getContentLengthLong()).thenReturn(-1L);
+
+        // act
+        underTest.handle("/", mock(Request.class), httpServletRequest, httpServletResponse);
+
+        // assert
+        verify(requestHandler).handle(httpServletRequest, httpServletResponse);
+        verify(inputStream, never()).setReadListener(any(ReadListener.class));
+    }
+
+    @Test
+    public void shouldHandleRequestOfEmptyBodyDirectlyBeyondHttp1() throws Exception {
+
+        // arrange
+        when(httpServletRequest.getProtocol()).thenReturn("HTTP/2.0");
+        when(httpServletRequest.getContentLengthLong()).thenReturn(0L);
+
+        // act
+        underTest.handle("/", mock(Request.class), httpServletRequest, httpServletResponse);
+
+        // assert
+        verify(requestHandler).handle(httpServletRequest, httpServletResponse);
+    }
+
+}
@@ -0,0 +1,35 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertSame;
+import static uk.co.epsilontechnologies.primer.server.ServerConfigurationBuilder.configuration;
+
+public class SharedServerTest {
+
+    private SharedServer underTest;
+
+    @Test
+    public void shouldReuseSharedServerOfSameConfiguration() {
+
+        // arrange
+        this.underTest = SharedServer.on(8093, configuration().withMaxThreads(32).build());
+
+        // act
+        final SharedServer result = SharedServer.on(8093, configuration().withMaxThreads(32).build());
+
+        // assert
+        assertSame(underTest, result);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectSharedServerOfDifferentConfiguration() {
+
+        // arrange
+        this.underTest = SharedServer.on(8094, configuration().withMaxThreads(32).build());
+
+        // act
+        SharedServer.on(8094, configuration().withMaxThreads(64).build());
+    }
+
+}
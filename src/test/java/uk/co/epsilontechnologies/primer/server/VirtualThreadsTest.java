@@ -0,0 +1,100 @@
+package uk.co.epsilontechnologies.primer.server;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static uk.co.epsilontechnologies.primer.server.ServerConfigurationBuilder.configuration;
+
+public class VirtualThreadsTest {
+
+    private PrimerServer underTest;
+
+    @Test
+    public void shouldHandleRequestsOnVirtualThreadsWhereAvailable() throws Exception {
+
+        // arrange
+        final ServerConfiguration configuration = configuration().withVirtualThreads(true).build();
+        if (!VirtualThreads.isAvailable()) {
+            try {
+                new PrimerServer(8091, new ThreadReportingRequestHandler(), configuration);
+                fail("Expected virtual threads to be unsupported on Java " + System.getProperty("java.version"));
+            } catch (final UnsupportedOperationException e) {
+                return;
+            }
+        }
+        this.underTest = new PrimerServer(8091, new ThreadReportingRequestHandler(), configuration);
+        underTest.start();
+
+        // act
+        final String result;
+        try {
+            result = IOUtils.toString(new URL("http://localhost:8091/thread").openStream(), "UTF-8");
+        } finally {
+            underTest.stop();
+        }
+
+        // assert
+        assertEquals("virtual", result);
+    }
+
+    @Test
+    public void shouldRunTasksOnVirtualThreadsWhereAvailable() throws Exception {
+
+        if (!VirtualThreads.isAvailable()) {
+            try {
+                VirtualThreads.newExecutor();
+                fail("Expected virtual threads to be unsupported on Java " + System.getProperty("java.version"));
+            } catch (final UnsupportedOperationException e) {
+                return;
+            }
+        }
+
+        // arrange
+        final ExecutorService executor = VirtualThreads.newExecutor();
+
+        // act
+        final boolean result = executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return isVirtual(Thread.currentThread());
+            }
+        }).get();
+        executor.shutdown();
+
+        // assert
+        assertEquals(true, result);
+    }
+
+    private static boolean isVirtual(final Thread thread) throws Exception {
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    private static class ThreadReportingRequestHandler implements RequestHandler {
+
+        @Override
+        public void handle(final HttpServletRequest httpServletRequest, final HttpServletResponse httpServletResponse) {
+            throw new IllegalStateException("Expected request to be handled on a virtual thread");
+        }
+
+        @Override
+        public void handle(final HttpServletRequest httpServletRequest, final HttpServletResponse httpServletResponse, final AsyncContext asyncContext, final byte[] body) {
+            try {
+                httpServletResponse.getWriter().write(isVirtual(Thread.currentThread()) ? "virtual" : "platform");
+            } catch (final Exception e) {
+                throw new RuntimeException(e);
+            }
+            asyncContext.complete();
+        }
+
+    }
+
+}